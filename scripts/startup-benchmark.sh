@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+#
+# Compares the startup time and resident memory (RSS) of the regular jar with the AOT-processed
+# build (mvn -Paot), run with and without a class data sharing (CDS) archive.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# The application needs a database at startup. By default it gets an in-memory H2 database, so
+# only JVM and Spring startup are measured; set DRIVER_JAR and SPRING_DATASOURCE_URL (plus the
+# username and password variables) to start against MySQL instead.
+# Results are written to target/startup-benchmark/results.csv.
+#
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+# mvnw is not checked in as executable, so it is run through sh; MVN=mvn uses a local Maven
+MVN=${MVN:-sh ./mvnw}
+OUT=target/startup-benchmark
+# Builds run mvn clean, so the jars under test live outside target
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+APP=com.devops.certtracker.CertTrackerApplication
+
+DRIVER_JAR=${DRIVER_JAR:-$(find ~/.m2/repository/com/h2database/h2 -name 'h2-*.jar' | sort | tail -1)}
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:h2:mem:benchmark}
+export SPRING_JPA_SHOW_SQL=false
+export SERVER_PORT=0
+
+build() {
+    local name=$1
+    shift
+    $MVN -q -B -DskipTests "$@" clean package
+    mkdir -p "$WORK/$name"
+    cp target/cert-tracker-*.jar "$WORK/$name/app.jar"
+}
+
+# Unpacks a jar onto a flat classpath of jar files: CDS only archives classes loaded from jars
+# by the JVM's own class loaders, not from nested jars or directories.
+explode() {
+    local dir=$WORK/$1
+    rm -rf "$dir/exploded"
+    mkdir -p "$dir/exploded"
+    (cd "$dir/exploded" && jar xf ../app.jar)
+    jar cf "$dir/classes.jar" -C "$dir/exploded/BOOT-INF/classes" .
+    find "$dir/exploded/BOOT-INF/lib" -name '*.jar' | sort | tr '\n' ':' | sed "s|^|$dir/classes.jar:|;s|:\$|:$DRIVER_JAR|"
+}
+
+# Starts the application, waits for the "Started" log line, records startup time and RSS, stops it.
+run_once() {
+    local label=$1 run=$2
+    shift 2
+    local log=$OUT/$label-$run.log
+    "$@" >"$log" 2>&1 &
+    local pid=$!
+    for _ in $(seq 1 600); do
+        grep -q "Started CertTrackerApplication" "$log" && break
+        kill -0 "$pid" 2>/dev/null || { echo "$label failed to start, see $log" >&2; exit 1; }
+        sleep 0.1
+    done
+    local rss started
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    started=$(grep -o 'Started CertTrackerApplication in [0-9.]* seconds' "$log" | awk '{print $4}')
+    kill "$pid"
+    wait "$pid" || true
+    echo "$label,$run,$started,$((rss / 1024))" >>"$OUT/results.csv"
+}
+
+measure() {
+    local label=$1
+    shift
+    for run in $(seq 1 "$RUNS"); do
+        run_once "$label" "$run" "$@"
+    done
+    awk -F, -v label="$label" '$1 == label { s += $3; r += $4; n++ }
+        END { printf "%-12s startup %.2f s   rss %d MB   (%d runs)\n", label, s / n, r / n, n }' "$OUT/results.csv"
+}
+
+build jar
+build aot -Paot
+AOT_CLASSPATH=$(explode aot)
+
+rm -rf "$OUT"
+mkdir -p "$OUT"
+echo "variant,run,startup_seconds,rss_mb" >"$OUT/results.csv"
+
+# Training run: the archive of every class loaded during startup is written when the JVM exits
+run_once cds-training 0 java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.aot.enabled=true -cp "$AOT_CLASSPATH" "$APP"
+
+measure jar java -cp "$WORK/jar/app.jar:$DRIVER_JAR" org.springframework.boot.loader.JarLauncher
+measure aot java -Dspring.aot.enabled=true -cp "$AOT_CLASSPATH" "$APP"
+measure aot+cds java -XX:SharedArchiveFile="$WORK/app.jsa" -Dspring.aot.enabled=true -cp "$AOT_CLASSPATH" "$APP"
@@ -0,0 +1,37 @@
+package com.devops.certtracker.config;
+
+import com.devops.certtracker.service.CertificateEventBus;
+import com.devops.certtracker.service.CertificateEventListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The in-process bus publishing certificate changes to every {@link CertificateEventListener}
+ * bean, with its queue depth and throughput exposed as metrics.
+ */
+@Configuration
+public class EventConfig {
+
+    @Bean
+    public CertificateEventBus certificateEventBus(ObjectProvider<CertificateEventListener> listeners,
+                                                   @Value("${certtracker.events.capacity:65536}") int capacity,
+                                                   @Value("${certtracker.events.batch-size:256}") int batchSize,
+                                                   MeterRegistry meterRegistry) {
+        CertificateEventBus bus = new CertificateEventBus(listeners.orderedStream().toList(), capacity, batchSize);
+        Gauge.builder("certtracker.events.pending", bus, CertificateEventBus::getPending)
+                .description("Certificate events waiting for delivery")
+                .register(meterRegistry);
+        FunctionCounter.builder("certtracker.events.published", bus, CertificateEventBus::getPublished)
+                .description("Certificate events published")
+                .register(meterRegistry);
+        FunctionCounter.builder("certtracker.events.delivered", bus, CertificateEventBus::getDelivered)
+                .description("Certificate events delivered to every listener")
+                .register(meterRegistry);
+        return bus;
+    }
+}
@@ -0,0 +1,43 @@
+package com.devops.certtracker.config;
+
+import com.devops.certtracker.service.FileOutboxSink;
+import com.devops.certtracker.service.LoggingOutboxSink;
+import com.devops.certtracker.service.OutboxSink;
+import com.devops.certtracker.service.WebhookOutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The destination of the changes relayed from the outbox, chosen with
+ * {@code certtracker.outbox.sink}: {@code log}, {@code file} or {@code webhook}.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(@Value("${certtracker.outbox.sink:log}") String sink,
+                                 @Value("${certtracker.outbox.file:certificate-changes.ndjson}") Path file,
+                                 @Value("${certtracker.outbox.webhook.url:}") String webhookUrl,
+                                 @Value("${certtracker.outbox.webhook.timeout:10s}") Duration webhookTimeout,
+                                 ObjectMapper objectMapper) {
+        return switch (sink) {
+            case "log" -> new LoggingOutboxSink();
+            case "file" -> new FileOutboxSink(file, objectMapper);
+            case "webhook" -> {
+                if (webhookUrl.isBlank()) {
+                    throw new IllegalStateException("certtracker.outbox.webhook.url is required for the webhook sink");
+                }
+                yield new WebhookOutboxSink(URI.create(webhookUrl), webhookTimeout, objectMapper);
+            }
+            default -> throw new IllegalStateException("Unknown outbox sink: " + sink);
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.devops.certtracker.config;
+
+import com.devops.certtracker.service.AdaptiveConcurrencyLimiter;
+import com.devops.certtracker.service.DnsResolver;
+import com.devops.certtracker.service.LoggingSpanExporter;
+import com.devops.certtracker.service.SpanExporter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Beans shared by the TLS probing code: the system DNS resolver, the executors running DNS
+ * lookups and the handshakes of scan jobs and API requests, the adaptive limit on concurrent
+ * handshakes, and the exporter of probe traces.
+ */
+@Configuration
+public class ProbeConfig {
+
+    @Bean
+    public DnsResolver dnsResolver() {
+        return host -> List.of(InetAddress.getAllByName(host));
+    }
+
+    /**
+     * Probe spans are logged when tracing is turned on, as a line per phase adds up on busy
+     * instances; a tracing backend can be plugged in by declaring another SpanExporter bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean(SpanExporter.class)
+    public SpanExporter spanExporter(@Value("${certtracker.tracing.enabled:false}") boolean enabled) {
+        return enabled ? new LoggingSpanExporter() : spans -> {
+        };
+    }
+
+    /**
+     * Runs the probes of scan jobs. The scan scheduler keeps its queue short; should it fill up
+     * anyway, the dispatching thread runs the probe itself, which slows the dispatch down instead
+     * of queuing without bound.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor probeExecutor(@Value("${certtracker.probe.threads:32}") int threads,
+                                                @Value("${certtracker.probe.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("probe-");
+        return executor;
+    }
+
+    /**
+     * Runs the probes of API requests such as /add/addresses, so they never wait behind the URLs
+     * of scan jobs. When its queue is full the request thread probes itself.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor interactiveProbeExecutor(@Value("${certtracker.probe.interactive-threads:8}") int threads,
+                                                           @Value("${certtracker.probe.interactive-queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("probe-api-");
+        return executor;
+    }
+
+    /**
+     * DNS lookups get their own threads: probes block on lookups, so sharing the probe executor
+     * could leave every probe thread waiting for a lookup queued behind it.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dnsExecutor(@Value("${certtracker.dns.threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("dns-");
+        return executor;
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter probeConcurrencyLimiter(@Value("${certtracker.probe.concurrency.initial:8}") int initialLimit,
+                                                              @Value("${certtracker.probe.concurrency.min:1}") int minLimit,
+                                                              @Value("${certtracker.probe.threads:32}") int maxLimit,
+                                                              MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+        Gauge.builder("certtracker.probe.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent TLS probes")
+                .register(meterRegistry);
+        Gauge.builder("certtracker.probe.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("TLS probes currently running")
+                .register(meterRegistry);
+        Gauge.builder("certtracker.probe.latency.ratio", limiter, AdaptiveConcurrencyLimiter::getLatencyRatio)
+                .description("Recent handshake latency relative to the baseline of each target")
+                .register(meterRegistry);
+        return limiter;
+    }
+}
@@ -0,0 +1,26 @@
+package com.devops.certtracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor running scan jobs off the request threads. Its queue is bounded, so submissions
+ * beyond the queue depth are rejected instead of piling up.
+ */
+@Configuration
+public class ScanJobConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor scanJobExecutor(@Value("${certtracker.jobs.threads:4}") int threads,
+                                                  @Value("${certtracker.jobs.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scan-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
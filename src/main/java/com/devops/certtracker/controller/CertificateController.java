@@ -1,11 +1,26 @@
 package com.devops.certtracker.controller;
 
+import com.devops.certtracker.entity.BulkDeleteResult;
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateFilter;
+import com.devops.certtracker.entity.CertificatePage;
+import com.devops.certtracker.entity.CertificateSummary;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.PostureSummary;
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.exception.CertificateServiceException;
 import com.devops.certtracker.service.CertificateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -16,9 +31,10 @@ public class CertificateController {
     private CertificateService certificateService;
 
     @PostMapping("/info")
-    public ResponseEntity<Object> getCertificateInfo(@RequestBody Map<String, String> requestBody) {
+    public ResponseEntity<Object> getCertificateInfo(@RequestBody Map<String, String> requestBody,
+                                                     @RequestParam(defaultValue = "false") boolean timings) {
         String url = requestBody.get("url");
-        Certificate certificate = certificateService.getCertificateInfo(url);
+        Certificate certificate = certificateService.getCertificateInfo(url, timings);
         return ResponseEntity.ok(certificate);
     }
 
@@ -29,16 +45,114 @@ public class CertificateController {
         return ResponseEntity.ok(certificate);
     }
 
+    @PostMapping("/add/addresses")
+    public ResponseEntity<List<Certificate>> addCertificatesForAllAddresses(@RequestBody Map<String, String> requestBody) {
+        String url = requestBody.get("url");
+        List<Certificate> certificates = certificateService.retrieveAndSaveCertificatesForAllAddresses(url);
+        return ResponseEntity.ok(certificates);
+    }
+
+    @PostMapping("/targets")
+    public ResponseEntity<Certificate> addTargetCertificate(@RequestBody Map<String, String> requestBody) {
+        ScanTarget target;
+        try {
+            String port = requestBody.get("port");
+            String protocol = requestBody.get("protocol");
+            target = ScanTarget.of(requestBody.get("host"),
+                    port == null ? null : Integer.valueOf(port),
+                    requestBody.get("sniName"),
+                    protocol == null ? null : ScanProtocol.valueOf(protocol.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new CertificateServiceException("Invalid target - " + e.getMessage());
+        }
+        Certificate certificate = certificateService.retrieveAndSaveTargetCertificate(target);
+        return ResponseEntity.ok(certificate);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Certificate> importCertificate(@RequestParam("file") MultipartFile file,
+                                                         @RequestParam(value = "url", required = false) String url,
+                                                         @RequestParam(value = "password", required = false) String password) throws IOException {
+        String source = url != null ? url : file.getOriginalFilename();
+        Certificate certificate = certificateService.importCertificate(source, file.getBytes(), password);
+        return ResponseEntity.ok(certificate);
+    }
+
     @DeleteMapping("delete/{certificateId}")
     public ResponseEntity<Void> deleteCertificateById(@PathVariable Long certificateId){
         certificateService.deleteCertificateById(certificateId);
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/delete/bulk")
+    public ResponseEntity<BulkDeleteResult> deleteCertificatesByIds(@RequestBody List<Long> certificateIds){
+        return ResponseEntity.ok(certificateService.deleteCertificatesByIds(certificateIds));
+    }
+
+    @PostMapping("/delete/filter")
+    public ResponseEntity<BulkDeleteResult> deleteCertificatesByFilter(@RequestBody CertificateFilter filter){
+        return ResponseEntity.ok(certificateService.deleteCertificatesByFilter(filter));
+    }
+
     @GetMapping("/all")
-    ResponseEntity<List<Certificate>> getALLCertificates(){
-        List<Certificate> certificates = certificateService.getAllCertificates();
+    ResponseEntity<List<CertificateView>> getALLCertificates(){
+        List<CertificateView> certificates = certificateService.getAllCertificates();
         return ResponseEntity.ok(certificates);
     }
 
+    @GetMapping("/page")
+    ResponseEntity<CertificatePage> getCertificatePage(@RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "100") int size,
+                                                       @RequestParam(required = false) Long after){
+        return ResponseEntity.ok(certificateService.getCertificatePage(page, size, after));
+    }
+
+    @GetMapping("/search")
+    ResponseEntity<CertificatePage> searchCertificates(@RequestParam(required = false) String owner,
+                                                       @RequestParam(name = "tag", required = false) List<String> tags,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "100") int size){
+        return ResponseEntity.ok(certificateService.searchCertificates(owner, tags, page, size));
+    }
+
+    @GetMapping("/posture")
+    ResponseEntity<CertificatePage> searchByPosture(@RequestParam(required = false) String protocol,
+                                                    @RequestParam(required = false) String keyAlgorithm,
+                                                    @RequestParam(required = false) Integer maxKeySize,
+                                                    @RequestParam(required = false) String signatureAlgorithm,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "100") int size){
+        return ResponseEntity.ok(certificateService.searchByPosture(protocol, keyAlgorithm, maxKeySize, signatureAlgorithm, page, size));
+    }
+
+    @GetMapping("/posture/summary")
+    ResponseEntity<PostureSummary> getPostureSummary(){
+        return ResponseEntity.ok(certificateService.getPostureSummary());
+    }
+
+    @PutMapping("/{certificateId}/tags")
+    public ResponseEntity<Certificate> setCertificateTags(@PathVariable Long certificateId, @RequestBody List<String> tags){
+        return ResponseEntity.ok(certificateService.setCertificateTags(certificateId, tags));
+    }
+
+    @PutMapping("/{certificateId}/owner")
+    public ResponseEntity<Certificate> setCertificateOwner(@PathVariable Long certificateId, @RequestBody Map<String, String> request){
+        return ResponseEntity.ok(certificateService.setCertificateOwner(certificateId, request.get("owner")));
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    ResponseEntity<StreamingResponseBody> exportCertificates(){
+        StreamingResponseBody body = outputStream ->
+                certificateService.exportCertificates(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"certificates.csv\"")
+                .body(body);
+    }
+
+    @GetMapping("/summary")
+    ResponseEntity<CertificateSummary> getCertificateSummary(){
+        CertificateSummary summary = certificateService.getCertificateSummary();
+        return ResponseEntity.ok(summary);
+    }
+
 }
@@ -0,0 +1,36 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.RenewalClaim;
+import com.devops.certtracker.service.RenewalWorklist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/renewals")
+public class RenewalController {
+    @Autowired
+    private RenewalWorklist renewalWorklist;
+
+    @GetMapping("/next")
+    public ResponseEntity<List<CertificateView>> getNextRenewals(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(renewalWorklist.next(limit));
+    }
+
+    @PostMapping("/claim")
+    public ResponseEntity<List<RenewalClaim>> claimRenewals(@RequestParam String worker,
+                                                            @RequestParam(defaultValue = "1") int limit,
+                                                            @RequestParam(required = false) Duration lease) {
+        return ResponseEntity.ok(renewalWorklist.claim(worker, limit, lease));
+    }
+
+    @PostMapping("/{certificateId}/release")
+    public ResponseEntity<Void> releaseRenewal(@PathVariable Long certificateId, @RequestParam String worker) {
+        renewalWorklist.release(certificateId, worker);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.ScanJob;
+import com.devops.certtracker.entity.ScanJobRequest;
+import com.devops.certtracker.entity.ScanResultPage;
+import com.devops.certtracker.service.ScanJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class ScanJobController {
+    @Autowired
+    private ScanJobService scanJobService;
+
+    @PostMapping
+    public ResponseEntity<ScanJob> submitScanJob(@RequestBody ScanJobRequest request) {
+        ScanJob job = scanJobService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ScanJob> getScanJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(scanJobService.getJob(jobId));
+    }
+
+    @GetMapping("/{jobId}/results")
+    public ResponseEntity<ScanResultPage> getScanJobResults(@PathVariable String jobId,
+                                                            @RequestParam(defaultValue = "0") int after,
+                                                            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(scanJobService.getResults(jobId, after, size));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScanJob>> getScanJobs() {
+        return ResponseEntity.ok(scanJobService.getJobs());
+    }
+}
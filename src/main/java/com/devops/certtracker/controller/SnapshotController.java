@@ -0,0 +1,56 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.EndpointChange;
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotDiffSummary;
+import com.devops.certtracker.service.ScanSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/snapshots")
+public class SnapshotController {
+    @Autowired
+    private ScanSnapshotService scanSnapshotService;
+
+    @PostMapping
+    public ResponseEntity<ScanSnapshot> createSnapshot(@RequestParam(required = false) String label) {
+        return ResponseEntity.ok(scanSnapshotService.createSnapshot(label));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScanSnapshot>> getSnapshots() {
+        return ResponseEntity.ok(scanSnapshotService.getSnapshots());
+    }
+
+    @DeleteMapping("/{snapshotId}")
+    public ResponseEntity<Void> deleteSnapshot(@PathVariable Long snapshotId) {
+        scanSnapshotService.deleteSnapshot(snapshotId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping(value = "/{fromSnapshotId}/diff/{toSnapshotId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> diffSnapshots(@PathVariable Long fromSnapshotId,
+                                                               @PathVariable Long toSnapshotId,
+                                                               @RequestParam(required = false) Set<EndpointChange> change) {
+        // Checked before streaming, so an unknown snapshot still answers 404
+        scanSnapshotService.getSnapshot(fromSnapshotId);
+        scanSnapshotService.getSnapshot(toSnapshotId);
+        StreamingResponseBody body = outputStream -> scanSnapshotService.writeDiff(fromSnapshotId, toSnapshotId, change,
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/{fromSnapshotId}/diff/{toSnapshotId}/summary")
+    public ResponseEntity<SnapshotDiffSummary> summarizeDiff(@PathVariable Long fromSnapshotId, @PathVariable Long toSnapshotId) {
+        return ResponseEntity.ok(scanSnapshotService.diff(fromSnapshotId, toSnapshotId, Set.of(), endpointDiff -> {}));
+    }
+}
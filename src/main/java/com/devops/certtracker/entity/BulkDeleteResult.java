@@ -0,0 +1,9 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Outcome of a bulk deletion.
+ *
+ * @param deleted The number of certificates deleted.
+ */
+public record BulkDeleteResult(int deleted) {
+}
@@ -1,5 +1,6 @@
 package com.devops.certtracker.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -7,6 +8,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a Certificate entity stored in the database.
@@ -15,19 +19,43 @@ import java.util.Date;
 @Table(name = "certificates")
 public class Certificate {
     /**
-     * The unique identifier (ID) of the certificate.
+     * The unique identifier (ID) of the certificate. Allocated from a sequence in blocks of 50
+     * (pooled optimizer), so inserts can be batched by the JDBC driver.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificates_seq")
+    @SequenceGenerator(name = "certificates_seq", sequenceName = "certificates_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
+    /**
+     * The number of times the row was updated, incremented by every save that changes it. Sent
+     * with each change so receivers can drop a change older than one they already applied.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * The URL associated with the certificate.
      */
     @Column(name = "url")
     private String url;
 
+    /**
+     * The registrable domain of the URL, derived from it on every save so the dashboard can count
+     * certificates per domain in the database.
+     */
+    @Column(name = "domain")
+    private String domain;
+
+    /**
+     * The IP address the certificate was served from, when each address of the URL's host is
+     * probed separately. Null when the certificate was retrieved through the host name.
+     */
+    @Column(name = "ip_address")
+    private String ipAddress;
+
     /**
      * The subject of the certificate.
      */
@@ -52,6 +80,73 @@ public class Certificate {
     @Column(name = "valid_to")
     private Date validTo;
 
+    /**
+     * The team owning the certificate.
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    /**
+     * Whether the certificate was revoked when it was last scanned.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "revocation_status")
+    private RevocationStatus revocationStatus;
+
+    /**
+     * The TLS protocol version negotiated when the certificate was last scanned, such as TLSv1.2.
+     */
+    @Column(name = "tls_protocol")
+    private String tlsProtocol;
+
+    /**
+     * The cipher suite negotiated when the certificate was last scanned.
+     */
+    @Column(name = "cipher_suite")
+    private String cipherSuite;
+
+    /**
+     * The algorithm of the certificate's public key, such as RSA or EC.
+     */
+    @Column(name = "key_algorithm")
+    private String keyAlgorithm;
+
+    /**
+     * The size of the certificate's public key in bits.
+     */
+    @Column(name = "key_size")
+    private Integer keySize;
+
+    /**
+     * The algorithm the issuer signed the certificate with, such as SHA256withRSA.
+     */
+    @Column(name = "signature_algorithm")
+    private String signatureAlgorithm;
+
+    /**
+     * The SHA-256 hash of the certificate's DER encoding, as lowercase hex. Null for
+     * certificates saved before fingerprints were recorded.
+     */
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    /**
+     * Milliseconds spent in each phase of the probe that returned this certificate, only filled
+     * in when requested.
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timings;
+
+    /**
+     * The tags of the certificate, such as its environment or service.
+     */
+    @ManyToMany
+    @JoinTable(name = "certificate_tags",
+            joinColumns = @JoinColumn(name = "certificate_id"),
+            inverseJoinColumns = @JoinColumn(name = "tag_id"))
+    private Set<Tag> tags = new HashSet<>();
+
 
     /**
      * Default constructor.
@@ -88,6 +183,15 @@ public class Certificate {
         return id;
     }
 
+    /**
+     * Gets the version of the certificate row.
+     *
+     * @return The number of times the row was updated.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Sets the ID of the certificate.
      *
@@ -115,6 +219,39 @@ public class Certificate {
         this.url = url;
     }
 
+    /**
+     * Gets the registrable domain of the URL, as of the last save.
+     *
+     * @return The domain, or null before the certificate is first saved.
+     */
+    public String getDomain() {
+        return domain;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void deriveDomain() {
+        domain = url == null ? null : ScanTarget.domainOf(url);
+    }
+
+    /**
+     * Gets the IP address the certificate was served from.
+     *
+     * @return The IP address, or null when retrieved through the host name.
+     */
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    /**
+     * Sets the IP address the certificate was served from.
+     *
+     * @param ipAddress The IP address.
+     */
+    public void setIpAddress(String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
     /**
      * Gets the subject of the certificate.
      *
@@ -186,5 +323,184 @@ public class Certificate {
     public void setValidTo(Date validTo) {
         this.validTo = validTo;
     }
-}
 
+    /**
+     * Gets the team owning the certificate.
+     *
+     * @return The owner, or null when unassigned.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Sets the team owning the certificate.
+     *
+     * @param owner The owner.
+     */
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Gets whether the certificate was revoked when it was last scanned.
+     *
+     * @return The revocation status, or null when it was never checked.
+     */
+    public RevocationStatus getRevocationStatus() {
+        return revocationStatus;
+    }
+
+    /**
+     * Sets whether the certificate was revoked when it was last scanned.
+     *
+     * @param revocationStatus The revocation status.
+     */
+    public void setRevocationStatus(RevocationStatus revocationStatus) {
+        this.revocationStatus = revocationStatus;
+    }
+
+    /**
+     * Gets the TLS protocol version negotiated when the certificate was last scanned, such as TLSv1.2.
+     *
+     * @return The protocol, or null for imported certificates.
+     */
+    public String getTlsProtocol() {
+        return tlsProtocol;
+    }
+
+    /**
+     * Sets the TLS protocol version negotiated when the certificate was last scanned, such as TLSv1.2.
+     *
+     * @param tlsProtocol The TLS protocol.
+     */
+    public void setTlsProtocol(String tlsProtocol) {
+        this.tlsProtocol = tlsProtocol;
+    }
+
+    /**
+     * Gets the cipher suite negotiated when the certificate was last scanned.
+     *
+     * @return The cipher suite, or null for imported certificates.
+     */
+    public String getCipherSuite() {
+        return cipherSuite;
+    }
+
+    /**
+     * Sets the cipher suite negotiated when the certificate was last scanned.
+     *
+     * @param cipherSuite The cipher suite.
+     */
+    public void setCipherSuite(String cipherSuite) {
+        this.cipherSuite = cipherSuite;
+    }
+
+    /**
+     * Gets the algorithm of the certificate's public key, such as RSA or EC.
+     *
+     * @return The key algorithm.
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm of the certificate's public key, such as RSA or EC.
+     *
+     * @param keyAlgorithm The key algorithm.
+     */
+    public void setKeyAlgorithm(String keyAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * Gets the size of the certificate's public key in bits.
+     *
+     * @return The key size, or null when it cannot be determined.
+     */
+    public Integer getKeySize() {
+        return keySize;
+    }
+
+    /**
+     * Sets the size of the certificate's public key in bits.
+     *
+     * @param keySize The key size.
+     */
+    public void setKeySize(Integer keySize) {
+        this.keySize = keySize;
+    }
+
+    /**
+     * Gets the algorithm the issuer signed the certificate with, such as SHA256withRSA.
+     *
+     * @return The signature algorithm.
+     */
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm the issuer signed the certificate with, such as SHA256withRSA.
+     *
+     * @param signatureAlgorithm The signature algorithm.
+     */
+    public void setSignatureAlgorithm(String signatureAlgorithm) {
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    /**
+     * Gets the SHA-256 hash of the certificate's DER encoding.
+     *
+     * @return The fingerprint as lowercase hex, or null.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Sets the SHA-256 hash of the certificate's DER encoding.
+     *
+     * @param fingerprint The fingerprint as lowercase hex.
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Gets the time spent in each phase of the probe that returned this certificate.
+     *
+     * @return The phase durations in milliseconds, or null when they were not requested.
+     */
+    public Map<String, Double> getTimings() {
+        return timings;
+    }
+
+    /**
+     * Sets the time spent in each phase of the probe that returned this certificate.
+     *
+     * @param timings The phase durations in milliseconds.
+     */
+    public void setTimings(Map<String, Double> timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Gets the tags of the certificate.
+     *
+     * @return The tags of the certificate.
+     */
+    public Set<Tag> getTags() {
+        return tags;
+    }
+
+    /**
+     * Sets the tags of the certificate.
+     *
+     * @param tags The tags of the certificate.
+     */
+    public void setTags(Set<Tag> tags) {
+        this.tags = tags;
+    }
+}
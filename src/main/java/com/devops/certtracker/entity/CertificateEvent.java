@@ -0,0 +1,45 @@
+package com.devops.certtracker.entity;
+
+import java.time.Instant;
+
+/**
+ * A change to a stored certificate, published after the change is committed.
+ *
+ * @param type          What happened to the certificate.
+ * @param certificateId The ID of the certificate.
+ * @param version       The row version the change gave the certificate. Changes of one
+ *                      certificate can be published in another order than they were committed
+ *                      in, so a change with a lower version than one already applied is stale.
+ *                      A deletion is the last change of a certificate and has the version the
+ *                      row would have had next.
+ * @param certificate   The certificate as saved, or null when it was deleted.
+ * @param occurredAt    When the change was made.
+ */
+public record CertificateEvent(Type type, Long certificateId, long version, CertificateView certificate, Instant occurredAt) {
+
+    public enum Type {
+        /**
+         * Added or edited, such as a new URL, an import or an owner change.
+         */
+        SAVED,
+        /**
+         * Probed again and updated with what the server presents now.
+         */
+        RESCANNED,
+        DELETED
+    }
+
+    public static CertificateEvent saved(Type type, Certificate certificate) {
+        return new CertificateEvent(type, certificate.getId(), certificate.getVersion(), new CertificateView(certificate.getId(), certificate.getUrl(),
+                certificate.getIpAddress(), certificate.getSubject(), certificate.getIssuer(), certificate.getValidFrom(),
+                certificate.getValidTo(), certificate.getOwner()), Instant.now());
+    }
+
+    public static CertificateEvent deleted(Long certificateId, long version) {
+        return new CertificateEvent(Type.DELETED, certificateId, version + 1, null, Instant.now());
+    }
+
+    public static CertificateEvent deleted(CertificateVersion row) {
+        return deleted(row.id(), row.version());
+    }
+}
@@ -0,0 +1,21 @@
+package com.devops.certtracker.entity;
+
+import java.util.Date;
+
+/**
+ * Criteria selecting certificates for bulk operations. Null criteria are ignored, the others
+ * must all match.
+ *
+ * @param urlPrefix     The start of the URL, for example https://shop.example.com.
+ * @param issuer        The exact issuer distinguished name.
+ * @param expiredBefore Only certificates whose validity ends before this date.
+ */
+public record CertificateFilter(String urlPrefix, String issuer, Date expiredBefore) {
+
+    /**
+     * @return Whether no criterion is set, in which case the filter would match every certificate.
+     */
+    public boolean isEmpty() {
+        return (urlPrefix == null || urlPrefix.isEmpty()) && (issuer == null || issuer.isEmpty()) && expiredBefore == null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.devops.certtracker.entity;
+
+import java.util.List;
+
+/**
+ * One page of certificate views, ordered by ID, with the total count so clients can size a
+ * scrollable list without loading every row. The total is null when it was not counted, as on
+ * the pages of /page after the first.
+ */
+public record CertificatePage(List<CertificateView> items, int page, int size, Long total) {
+}
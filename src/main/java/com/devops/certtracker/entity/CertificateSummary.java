@@ -0,0 +1,66 @@
+package com.devops.certtracker.entity;
+
+import java.util.List;
+
+/**
+ * Dashboard summary of the stored certificates, computed by grouped queries.
+ */
+public class CertificateSummary {
+    private ExpiryBucketCounts expiry;
+    private List<GroupCount> byIssuer;
+    private List<GroupCount> byDomain;
+    private List<GroupCount> byOwner;
+    private List<GroupCount> byTag;
+
+    public CertificateSummary() {
+    }
+
+    public CertificateSummary(ExpiryBucketCounts expiry, List<GroupCount> byIssuer, List<GroupCount> byDomain,
+                              List<GroupCount> byOwner, List<GroupCount> byTag) {
+        this.expiry = expiry;
+        this.byIssuer = byIssuer;
+        this.byDomain = byDomain;
+        this.byOwner = byOwner;
+        this.byTag = byTag;
+    }
+
+    public ExpiryBucketCounts getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(ExpiryBucketCounts expiry) {
+        this.expiry = expiry;
+    }
+
+    public List<GroupCount> getByIssuer() {
+        return byIssuer;
+    }
+
+    public void setByIssuer(List<GroupCount> byIssuer) {
+        this.byIssuer = byIssuer;
+    }
+
+    public List<GroupCount> getByDomain() {
+        return byDomain;
+    }
+
+    public void setByDomain(List<GroupCount> byDomain) {
+        this.byDomain = byDomain;
+    }
+
+    public List<GroupCount> getByOwner() {
+        return byOwner;
+    }
+
+    public void setByOwner(List<GroupCount> byOwner) {
+        this.byOwner = byOwner;
+    }
+
+    public List<GroupCount> getByTag() {
+        return byTag;
+    }
+
+    public void setByTag(List<GroupCount> byTag) {
+        this.byTag = byTag;
+    }
+}
@@ -0,0 +1,10 @@
+package com.devops.certtracker.entity;
+
+/**
+ * The ID and row version of a certificate, as read when locking it for a delete.
+ *
+ * @param id      The ID of the certificate.
+ * @param version The version of the row when it was locked.
+ */
+public record CertificateVersion(Long id, long version) {
+}
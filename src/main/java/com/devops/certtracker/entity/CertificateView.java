@@ -0,0 +1,20 @@
+package com.devops.certtracker.entity;
+
+import java.util.Date;
+
+/**
+ * Read-only view of a stored certificate, used by the list and export paths so rows are
+ * returned without being attached to the persistence context.
+ *
+ * @param id        The unique identifier (ID) of the certificate.
+ * @param url       The URL associated with the certificate.
+ * @param ipAddress The IP address the certificate was served from, or null.
+ * @param subject   The subject of the certificate.
+ * @param issuer    The issuer of the certificate.
+ * @param validFrom The date when the certificate becomes valid.
+ * @param validTo   The date when the certificate expires.
+ * @param owner     The team owning the certificate, or null.
+ */
+public record CertificateView(Long id, String url, String ipAddress, String subject, String issuer, Date validFrom, Date validTo,
+                              String owner) {
+}
@@ -0,0 +1,17 @@
+package com.devops.certtracker.entity;
+
+/**
+ * How an endpoint differs between two snapshots.
+ */
+public enum EndpointChange {
+    /** Only in the later snapshot. */
+    ADDED,
+    /** Only in the earlier snapshot. */
+    REMOVED,
+    /** Serves a different certificate from the same issuer. */
+    ROTATED,
+    /** Serves a different certificate from another issuer. */
+    ISSUER_CHANGED,
+    /** Serves the same certificate. */
+    UNCHANGED
+}
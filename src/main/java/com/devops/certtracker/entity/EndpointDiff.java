@@ -0,0 +1,15 @@
+package com.devops.certtracker.entity;
+
+/**
+ * One endpoint of a snapshot comparison.
+ *
+ * @param change    How the endpoint differs.
+ * @param url       The URL of the endpoint.
+ * @param ipAddress The address the certificate was served from, or null when probed through the
+ *                  host name.
+ * @param before    The endpoint in the earlier snapshot, or null when added.
+ * @param after     The endpoint in the later snapshot, or null when removed.
+ */
+public record EndpointDiff(EndpointChange change, String url, String ipAddress, SnapshotEndpoint before,
+                           SnapshotEndpoint after) {
+}
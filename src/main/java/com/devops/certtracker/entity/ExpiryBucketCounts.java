@@ -0,0 +1,26 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Projection holding the number of certificates in each dashboard expiry bucket.
+ */
+public interface ExpiryBucketCounts {
+    /**
+     * @return The number of certificates already expired.
+     */
+    long getExpired();
+
+    /**
+     * @return The number of certificates expiring within two weeks.
+     */
+    long getExpiringInTwoWeeks();
+
+    /**
+     * @return The number of certificates expiring within six weeks, but not within two.
+     */
+    long getExpiringInSixWeeks();
+
+    /**
+     * @return The number of certificates with more than six weeks remaining.
+     */
+    long getGood();
+}
@@ -0,0 +1,16 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Projection holding the number of certificates sharing the same value of a grouped column.
+ */
+public interface GroupCount {
+    /**
+     * @return The grouped value, such as an issuer or a URL.
+     */
+    String getName();
+
+    /**
+     * @return The number of certificates with that value.
+     */
+    long getCount();
+}
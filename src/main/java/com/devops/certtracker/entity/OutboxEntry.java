@@ -0,0 +1,113 @@
+package com.devops.certtracker.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * A certificate change waiting in the outbox to be relayed to downstream systems. Written in the
+ * same transaction as the change itself, so a change is never committed without its entry.
+ */
+@Entity
+@Table(name = "certificate_outbox")
+public class OutboxEntry {
+    /**
+     * The unique identifier (ID) of the entry. Allocated in blocks per instance when the entry
+     * is written, so IDs do not follow the order changes were committed in; the certificate
+     * version does, per certificate.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_outbox_seq")
+    @SequenceGenerator(name = "certificate_outbox_seq", sequenceName = "certificate_outbox_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * What happened to the certificate, as a {@link CertificateEvent.Type} name.
+     */
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType;
+
+    /**
+     * The ID of the changed certificate.
+     */
+    @Column(name = "certificate_id", nullable = false)
+    private Long certificateId;
+
+    /**
+     * The row version the change gave the certificate.
+     */
+    @Column(name = "certificate_version", nullable = false)
+    private long certificateVersion;
+
+    /**
+     * The certificate as saved, as JSON, or null when it was deleted.
+     */
+    @Column(name = "payload", length = 4000)
+    private String payload;
+
+    /**
+     * When the change was made.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /**
+     * The number of failed attempts to relay the entry.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /**
+     * The error of the last failed attempt, or null.
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * Default constructor.
+     */
+    public OutboxEntry() {
+        // Default constructor
+    }
+
+    public OutboxEntry(String eventType, Long certificateId, long certificateVersion, String payload, Date createdAt) {
+        this.eventType = eventType;
+        this.certificateId = certificateId;
+        this.certificateVersion = certificateVersion;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getCertificateId() {
+        return certificateId;
+    }
+
+    public long getCertificateVersion() {
+        return certificateVersion;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,22 @@
+package com.devops.certtracker.entity;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * A certificate change as sent to downstream systems. Delivery is at least once, so receivers
+ * should ignore an ID they have already processed. Changes are sent in about the order they were
+ * made, but not exactly: receivers should keep the highest version seen per certificate and drop
+ * a change with a lower one. A DELETED change is the last of its certificate.
+ *
+ * @param id            The unique identifier (ID) of the change.
+ * @param type          What happened to the certificate: SAVED, RESCANNED or DELETED.
+ * @param certificateId The ID of the certificate.
+ * @param version       The row version the change gave the certificate.
+ * @param occurredAt    When the change was made.
+ * @param certificate   The certificate as saved, as JSON, or null when it was deleted.
+ */
+public record OutboxMessage(Long id, String type, Long certificateId, long version, Instant occurredAt,
+                            @JsonRawValue String certificate) {
+}
@@ -0,0 +1,15 @@
+package com.devops.certtracker.entity;
+
+import java.util.List;
+
+/**
+ * TLS posture of the stored certificates, computed by grouped queries.
+ *
+ * @param byProtocol           Certificates per negotiated protocol version.
+ * @param byCipherSuite        Certificates per negotiated cipher suite.
+ * @param byKey                Certificates per key algorithm and size, for example RSA-2048.
+ * @param bySignatureAlgorithm Certificates per signature algorithm.
+ */
+public record PostureSummary(List<GroupCount> byProtocol, List<GroupCount> byCipherSuite, List<GroupCount> byKey,
+                             List<GroupCount> bySignatureAlgorithm) {
+}
@@ -0,0 +1,13 @@
+package com.devops.certtracker.entity;
+
+import java.time.Instant;
+
+/**
+ * A certificate of the renewal worklist claimed by a worker.
+ *
+ * @param certificate    The claimed certificate.
+ * @param worker         The worker holding the claim.
+ * @param leaseExpiresAt When the claim lapses and the certificate is offered to other workers.
+ */
+public record RenewalClaim(CertificateView certificate, String worker, Instant leaseExpiresAt) {
+}
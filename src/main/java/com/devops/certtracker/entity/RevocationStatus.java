@@ -0,0 +1,20 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Revocation status of a certificate, as reported by OCSP or the issuer's CRL.
+ */
+public enum RevocationStatus {
+    /**
+     * Not revoked according to a fresh, correctly signed OCSP response or CRL.
+     */
+    GOOD,
+    /**
+     * Revoked by its issuer.
+     */
+    REVOKED,
+    /**
+     * No usable answer: no OCSP or CRL location, issuer missing from the chain, responder
+     * unreachable or response not trustworthy.
+     */
+    UNKNOWN
+}
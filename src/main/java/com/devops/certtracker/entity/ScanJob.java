@@ -0,0 +1,142 @@
+package com.devops.certtracker.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous scan of a list of URLs. The job is updated by the worker thread running it
+ * and read concurrently by the status endpoint, so every mutable field is thread-safe.
+ * <p>
+ * The status only carries counts; the results are read a page at a time with
+ * {@link #getResults(int, int)}. Once the job finishes it drops its URLs and successful results,
+ * whose certificates are stored, and keeps only the failures.
+ */
+public class ScanJob {
+    private final String id = UUID.randomUUID().toString();
+    private final int total;
+    private final Instant submittedAt = Instant.now();
+    // Results keyed by their position in the job, the cursor of the results pages
+    private final ConcurrentNavigableMap<Integer, ScanResult> results = new ConcurrentSkipListMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private volatile List<String> urls;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile ScanJobStatus status = ScanJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    /**
+     * Creates a queued job for the given URLs.
+     *
+     * @param urls The URLs to probe.
+     */
+    public ScanJob(List<String> urls) {
+        this.urls = List.copyOf(urls);
+        this.total = this.urls.size();
+    }
+
+    public void start() {
+        startedAt = Instant.now();
+        status = ScanJobStatus.RUNNING;
+    }
+
+    public void addResult(ScanResult result) {
+        results.put(sequence.incrementAndGet(), result);
+        (result.success() ? succeeded : failed).incrementAndGet();
+    }
+
+    public void complete() {
+        release();
+        finishedAt = Instant.now();
+        status = ScanJobStatus.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        release();
+        finishedAt = Instant.now();
+        status = ScanJobStatus.FAILED;
+    }
+
+    private void release() {
+        urls = List.of();
+        results.values().removeIf(ScanResult::success);
+    }
+
+    public boolean isFinished() {
+        return status == ScanJobStatus.COMPLETED || status == ScanJobStatus.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ScanJobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return The URLs to scan, or an empty list once the job has finished.
+     */
+    @JsonIgnore
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * Returns the results recorded after a cursor, in the order they were recorded.
+     *
+     * @param after The cursor of the previous page, or 0 for the first page.
+     * @param size  The maximum number of results.
+     * @return The page, with the cursor of its last result, or null when it is empty.
+     */
+    public ScanResultPage getResults(int after, int size) {
+        List<ScanResult> items = new ArrayList<>();
+        Integer next = null;
+        for (Map.Entry<Integer, ScanResult> entry : results.tailMap(after, false).entrySet()) {
+            if (items.size() >= size) {
+                break;
+            }
+            items.add(entry.getValue());
+            next = entry.getKey();
+        }
+        return new ScanResultPage(items, next);
+    }
+}
@@ -0,0 +1,45 @@
+package com.devops.certtracker.entity;
+
+import java.util.List;
+
+/**
+ * Request body for submitting a scan job: an explicit list of URLs, the stored URLs carrying a
+ * tag, or every stored URL.
+ */
+public class ScanJobRequest {
+    private List<String> urls;
+    private boolean all;
+    private String tag;
+
+    public ScanJobRequest() {
+    }
+
+    public ScanJobRequest(List<String> urls, boolean all) {
+        this.urls = urls;
+        this.all = all;
+    }
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public void setAll(boolean all) {
+        this.all = all;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+}
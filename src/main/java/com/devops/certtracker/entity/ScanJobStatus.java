@@ -0,0 +1,11 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Lifecycle states of an asynchronous scan job.
+ */
+public enum ScanJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,59 @@
+package com.devops.certtracker.entity;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How a TLS session is established with a scan target: directly, or by upgrading a plain-text
+ * connection with the protocol's STARTTLS command.
+ */
+public enum ScanProtocol {
+    /**
+     * TLS from the first byte (HTTPS, LDAPS, SMTPS, IMAPS...).
+     */
+    TLS("tls", 443),
+    /**
+     * SMTP upgraded with EHLO and STARTTLS.
+     */
+    SMTP("smtp", 25),
+    /**
+     * IMAP upgraded with the STARTTLS command.
+     */
+    IMAP("imap", 143),
+    /**
+     * PostgreSQL upgraded with an SSLRequest message.
+     */
+    POSTGRES("postgresql", 5432);
+
+    private final String scheme;
+    private final int defaultPort;
+
+    ScanProtocol(String scheme, int defaultPort) {
+        this.scheme = scheme;
+        this.defaultPort = defaultPort;
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public int getDefaultPort() {
+        return defaultPort;
+    }
+
+    /**
+     * @param scheme A URL scheme, "https" being an alias of "tls".
+     * @return The matching protocol.
+     * @throws IllegalArgumentException If the scheme is not supported.
+     */
+    public static ScanProtocol fromScheme(String scheme) {
+        String normalized = scheme.toLowerCase(Locale.ROOT);
+        if ("https".equals(normalized)) {
+            return TLS;
+        }
+        return Arrays.stream(values())
+                .filter(protocol -> protocol.scheme.equals(normalized))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported protocol: " + scheme));
+    }
+}
@@ -0,0 +1,21 @@
+package com.devops.certtracker.entity;
+
+/**
+ * Outcome of probing a single URL as part of a scan job.
+ *
+ * @param url           The probed URL.
+ * @param success       Whether the certificate was retrieved and saved.
+ * @param certificateId The ID of the saved certificate, or null on failure.
+ * @param validTo       The expiry date of the certificate, or null on failure.
+ * @param error         The failure message, or null on success.
+ */
+public record ScanResult(String url, boolean success, Long certificateId, java.util.Date validTo, String error) {
+
+    public static ScanResult success(String url, Certificate certificate) {
+        return new ScanResult(url, true, certificate.getId(), certificate.getValidTo(), null);
+    }
+
+    public static ScanResult failure(String url, String error) {
+        return new ScanResult(url, false, null, null, error);
+    }
+}
@@ -0,0 +1,13 @@
+package com.devops.certtracker.entity;
+
+import java.util.List;
+
+/**
+ * One page of the results of a scan job, in the order they were recorded.
+ *
+ * @param items The results.
+ * @param next  The cursor to pass as {@code after} for the next page, or null when the page is
+ *              empty.
+ */
+public record ScanResultPage(List<ScanResult> items, Integer next) {
+}
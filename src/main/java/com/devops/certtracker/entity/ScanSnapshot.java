@@ -0,0 +1,72 @@
+package com.devops.certtracker.entity;
+
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * A point-in-time copy of every tracked endpoint and the certificate it served, taken for
+ * example before and after a mass renewal to compare the two.
+ */
+@Entity
+@Table(name = "scan_snapshots")
+public class ScanSnapshot {
+    /**
+     * The unique identifier (ID) of the snapshot.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scan_snapshots_seq")
+    @SequenceGenerator(name = "scan_snapshots_seq", sequenceName = "scan_snapshots_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * A free-form label, such as "before renewal", or null.
+     */
+    @Column(name = "label", length = 100)
+    private String label;
+
+    /**
+     * When the snapshot was taken.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    /**
+     * The number of endpoints copied into the snapshot.
+     */
+    @Column(name = "endpoints", nullable = false)
+    private int endpoints;
+
+    /**
+     * Default constructor.
+     */
+    public ScanSnapshot() {
+        // Default constructor
+    }
+
+    public ScanSnapshot(String label, Date createdAt) {
+        this.label = label;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(int endpoints) {
+        this.endpoints = endpoints;
+    }
+}
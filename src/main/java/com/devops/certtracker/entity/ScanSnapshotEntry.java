@@ -0,0 +1,79 @@
+package com.devops.certtracker.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * An endpoint as copied into a snapshot. Rows are only written by INSERT ... SELECT and read as
+ * {@link SnapshotEndpoint}s, so the mapping exists for queries and schema validation.
+ */
+@Entity
+@Table(name = "scan_snapshot_entries")
+@IdClass(ScanSnapshotEntry.Key.class)
+public class ScanSnapshotEntry {
+
+    @Id
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Id
+    @Column(name = "url")
+    private String url;
+
+    /**
+     * The address the certificate was served from, or '' when probed through the host name, so
+     * it can be part of the primary key.
+     */
+    @Id
+    @Column(name = "ip_address", length = 45)
+    private String ipAddress;
+
+    @Column(name = "certificate_id", nullable = false)
+    private Long certificateId;
+
+    @Column(name = "subject")
+    private String subject;
+
+    @Column(name = "issuer")
+    private String issuer;
+
+    @Column(name = "valid_from")
+    private Date validFrom;
+
+    @Column(name = "valid_to")
+    private Date validTo;
+
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    protected ScanSnapshotEntry() {
+        // For JPA
+    }
+
+    /**
+     * The primary key: the snapshot, then the endpoint.
+     */
+    public static class Key implements Serializable {
+        private Long snapshotId;
+        private String url;
+        private String ipAddress;
+
+        public Key() {
+            // For JPA
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(snapshotId, key.snapshotId)
+                    && Objects.equals(url, key.url) && Objects.equals(ipAddress, key.ipAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(snapshotId, url, ipAddress);
+        }
+    }
+}
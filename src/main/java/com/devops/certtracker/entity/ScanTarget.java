@@ -0,0 +1,107 @@
+package com.devops.certtracker.entity;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An endpoint whose certificate is tracked: host and port to connect to, server name sent as
+ * SNI, and how the TLS session is established.
+ *
+ * @param host     The host name or IP address to connect to.
+ * @param port     The port to connect to.
+ * @param sniName  The server name sent in the handshake, usually the host name.
+ * @param protocol Direct TLS or the STARTTLS flavour to use.
+ */
+public record ScanTarget(String host, int port, String sniName, ScanProtocol protocol) {
+
+    // Second-level labels under which organizations register, as in example.co.uk
+    private static final Set<String> SECOND_LEVEL_LABELS = Set.of("ac", "co", "com", "edu", "gov", "ne", "net", "or", "org");
+
+    /**
+     * Creates a target, defaulting the port, SNI name and protocol when they are not given.
+     */
+    public static ScanTarget of(String host, Integer port, String sniName, ScanProtocol protocol) {
+        ScanProtocol actualProtocol = protocol != null ? protocol : ScanProtocol.TLS;
+        return new ScanTarget(host,
+                port != null && port > 0 ? port : actualProtocol.getDefaultPort(),
+                sniName != null && !sniName.isBlank() ? sniName : host,
+                actualProtocol);
+    }
+
+    /**
+     * Parses a target URL such as {@code https://example.com}, {@code smtp://mail.example.com:587}
+     * or {@code tls://10.0.0.5:8443?sni=internal.example.com}.
+     *
+     * @param url The target URL.
+     * @return The target.
+     * @throws IllegalArgumentException If the URL is invalid or its scheme unsupported.
+     */
+    public static ScanTarget fromUrl(String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                throw new IllegalArgumentException("Invalid target URL: " + url);
+            }
+            String sniName = null;
+            if (uri.getQuery() != null && uri.getQuery().startsWith("sni=")) {
+                sniName = uri.getQuery().substring("sni=".length());
+            }
+            return of(uri.getHost(), uri.getPort(), sniName, ScanProtocol.fromScheme(uri.getScheme()));
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid target URL: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The URL the target's certificate is stored under, parseable by {@link #fromUrl(String)}.
+     */
+    public String toUrl() {
+        String authority = host.indexOf(':') >= 0 && !host.startsWith("[") ? "[" + host + "]" : host;
+        String url = protocol.getScheme() + "://" + authority + ":" + port;
+        return sniName.equals(host) ? url : url + "?sni=" + sniName;
+    }
+
+    /**
+     * Returns the registrable domain of a URL, approximated as the last two labels of its host, or
+     * three under a second-level label such as co.uk. An IP address is returned as is, and an
+     * invalid URL as a whole.
+     *
+     * @param url The target URL.
+     * @return The domain the URL belongs to.
+     */
+    public static String domainOf(String url) {
+        String host;
+        try {
+            host = fromUrl(url).host();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        if (host.startsWith("[")) {
+            return host.substring(1, host.length() - 1);
+        }
+        if (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (isIpLiteral(host)) {
+            return host;
+        }
+        String[] labels = host.split("\\.");
+        if (labels.length <= 2) {
+            return host;
+        }
+        int kept = labels[labels.length - 1].length() == 2 && SECOND_LEVEL_LABELS.contains(labels[labels.length - 2]) ? 3 : 2;
+        return String.join(".", List.of(labels).subList(labels.length - kept, labels.length));
+    }
+
+    /**
+     * @param host A host name or IP address.
+     * @return Whether the host is an IPv4 or IPv6 address rather than a name.
+     */
+    public static boolean isIpLiteral(String host) {
+        return host.indexOf(':') >= 0 || host.chars().allMatch(c -> c == '.' || Character.isDigit(c));
+    }
+}
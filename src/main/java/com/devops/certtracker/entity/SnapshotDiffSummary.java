@@ -0,0 +1,16 @@
+package com.devops.certtracker.entity;
+
+/**
+ * The number of endpoints of each kind of change between two snapshots.
+ *
+ * @param fromSnapshotId The ID of the earlier snapshot.
+ * @param toSnapshotId   The ID of the later snapshot.
+ * @param added          Endpoints only in the later snapshot.
+ * @param removed        Endpoints only in the earlier snapshot.
+ * @param rotated        Endpoints serving a different certificate from the same issuer.
+ * @param issuerChanged  Endpoints serving a certificate from another issuer.
+ * @param unchanged      Endpoints serving the same certificate.
+ */
+public record SnapshotDiffSummary(Long fromSnapshotId, Long toSnapshotId, long added, long removed, long rotated,
+                                  long issuerChanged, long unchanged) {
+}
@@ -0,0 +1,21 @@
+package com.devops.certtracker.entity;
+
+import java.util.Date;
+
+/**
+ * An endpoint of a snapshot and the certificate it served at the time.
+ *
+ * @param url           The URL of the endpoint.
+ * @param ipAddress     The address the certificate was served from, or '' when probed through the
+ *                      host name.
+ * @param certificateId The ID of the certificate row the endpoint was copied from.
+ * @param subject       The subject of the certificate.
+ * @param issuer        The issuer of the certificate.
+ * @param validFrom     The date when the certificate became valid.
+ * @param validTo       The date when the certificate expires.
+ * @param fingerprint   The SHA-256 fingerprint of the certificate, or null for rows saved before
+ *                      fingerprints were recorded.
+ */
+public record SnapshotEndpoint(String url, String ipAddress, Long certificateId, String subject, String issuer,
+                               Date validFrom, Date validTo, String fingerprint) {
+}
@@ -0,0 +1,93 @@
+package com.devops.certtracker.entity;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * A label shared between certificates, such as an environment or a service. Serialized as its
+ * name alone.
+ */
+@Entity
+@Table(name = "tags")
+public class Tag {
+    /**
+     * The unique identifier (ID) of the tag.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tags_seq")
+    @SequenceGenerator(name = "tags_seq", sequenceName = "tags_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * The tag name, unique and normalized to lower case.
+     */
+    @Column(name = "name", nullable = false, unique = true, length = 100)
+    private String name;
+
+    /**
+     * Default constructor.
+     */
+    public Tag() {
+        // Default constructor
+    }
+
+    /**
+     * Constructs a Tag with the given name.
+     *
+     * @param name The tag name.
+     */
+    public Tag(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the ID of the tag.
+     *
+     * @return The ID of the tag.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the tag.
+     *
+     * @param id The ID of the tag.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the tag name.
+     *
+     * @return The tag name.
+     */
+    @JsonValue
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the tag name.
+     *
+     * @param name The tag name.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    // Tags are identified by their unique name, so sets of tags compare the same before and after saving
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Tag tag && Objects.equals(name, tag.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+}
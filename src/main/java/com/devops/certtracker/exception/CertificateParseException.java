@@ -0,0 +1,15 @@
+package com.devops.certtracker.exception;
+
+public class CertificateParseException extends RuntimeException {
+    public CertificateParseException(String message) {
+        super(message);
+    }
+
+    public CertificateParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public CertificateParseException(Throwable cause) {
+        super(cause);
+    }
+}
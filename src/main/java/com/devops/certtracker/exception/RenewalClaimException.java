@@ -0,0 +1,15 @@
+package com.devops.certtracker.exception;
+
+public class RenewalClaimException extends RuntimeException {
+    public RenewalClaimException(String message) {
+        super(message);
+    }
+
+    public RenewalClaimException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RenewalClaimException(Throwable cause) {
+        super(cause);
+    }
+}
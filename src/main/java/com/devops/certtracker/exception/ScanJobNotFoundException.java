@@ -0,0 +1,15 @@
+package com.devops.certtracker.exception;
+
+public class ScanJobNotFoundException extends RuntimeException {
+    public ScanJobNotFoundException(String message) {
+        super(message);
+    }
+
+    public ScanJobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ScanJobNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.devops.certtracker.exception;
+
+public class ScanJobRejectedException extends RuntimeException {
+    public ScanJobRejectedException(String message) {
+        super(message);
+    }
+
+    public ScanJobRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ScanJobRejectedException(Throwable cause) {
+        super(cause);
+    }
+}
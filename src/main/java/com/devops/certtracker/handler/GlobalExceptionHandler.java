@@ -3,8 +3,12 @@ package com.devops.certtracker.handler;
 import com.devops.certtracker.entity.ErrorResponse;
 import com.devops.certtracker.exception.CertificateDeleteException;
 import com.devops.certtracker.exception.CertificateNoContentException;
+import com.devops.certtracker.exception.CertificateParseException;
 import com.devops.certtracker.exception.CertificateServiceException;
 import com.devops.certtracker.exception.EntityNotFoundException;
+import com.devops.certtracker.exception.RenewalClaimException;
+import com.devops.certtracker.exception.ScanJobNotFoundException;
+import com.devops.certtracker.exception.ScanJobRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -36,6 +40,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    @ExceptionHandler(CertificateParseException.class)
+    public ResponseEntity<ErrorResponse> handleCertificateParseException(CertificateParseException ex){
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Invalid certificate file", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(ScanJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleScanJobNotFoundException(ScanJobNotFoundException ex){
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.NOT_FOUND.value(), "Scan job not Found", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
+    @ExceptionHandler(ScanJobRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleScanJobRejectedException(ScanJobRejectedException ex){
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Scan job rejected", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").body(errorResponse);
+    }
+
+    @ExceptionHandler(RenewalClaimException.class)
+    public ResponseEntity<ErrorResponse> handleRenewalClaimException(RenewalClaimException ex){
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.CONFLICT.value(), "Renewal claim conflict", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex) {
         ErrorResponse errorResponse = new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal server error", ex.getMessage());
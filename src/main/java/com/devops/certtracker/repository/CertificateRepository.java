@@ -1,8 +1,303 @@
 package com.devops.certtracker.repository;
 
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.CertificateVersion;
+import com.devops.certtracker.entity.ExpiryBucketCounts;
+import com.devops.certtracker.entity.GroupCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CertificateRepository extends JpaRepository<Certificate, Long> {
 
+    /**
+     * Lists every certificate as a read-only view, ordered by ID.
+     *
+     * @return The certificate views.
+     */
+    @Query("""
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c order by c.id""")
+    List<CertificateView> findAllViews();
+
+    /**
+     * Streams every certificate as a read-only view, ordered by ID. Must be consumed inside a
+     * transaction and closed afterwards.
+     *
+     * @return The certificate views.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c order by c.id""")
+    Stream<CertificateView> streamAllViews();
+
+    /**
+     * Returns one page of certificate views by offset, without counting them. Used when a client
+     * jumps to a page whose predecessor it does not have; {@link #findViewsAfter} is cheaper.
+     *
+     * @param pageable The page to load, with its sort order.
+     * @return The certificate views of the page.
+     */
+    @Query("""
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c""")
+    List<CertificateView> findViews(Pageable pageable);
+
+    /**
+     * Returns the certificate views following an ID, in ID order. The primary key index seeks
+     * straight to the first row, however deep into the table it is, instead of skipping an offset.
+     *
+     * @param afterId  The last ID of the previous page.
+     * @param pageable The page size; the page number is ignored.
+     * @return The certificate views of the page.
+     */
+    @Query("""
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c where c.id > :afterId order by c.id""")
+    List<CertificateView> findViewsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Returns the row of the endpoint probed through the URL's host name, rather than one of its
+     * addresses: the oldest one when the URL was stored several times.
+     */
+    Optional<Certificate> findFirstByUrlAndIpAddressIsNullOrderByIdAsc(String url);
+
+    Optional<Certificate> findFirstByUrlAndIpAddressOrderByIdAsc(String url, String ipAddress);
+
+    @Query("select distinct c.url from Certificate c")
+    List<String> findDistinctUrls();
+
+    @Query("select distinct c.url from Certificate c join c.tags t where t.name = :tag")
+    List<String> findDistinctUrlsByTag(@Param("tag") String tag);
+
+    /**
+     * Returns one page of the certificates of an owner.
+     *
+     * @param owner    The owner, or null for every certificate.
+     * @param pageable The page to load, with its sort order.
+     * @return The page of certificate views.
+     */
+    @Query(value = """
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c
+            where (:owner is null or c.owner = :owner)""",
+            countQuery = "select count(c) from Certificate c where (:owner is null or c.owner = :owner)")
+    Page<CertificateView> findViewsByOwner(@Param("owner") String owner, Pageable pageable);
+
+    /**
+     * Returns one page of the certificates carrying every given tag, optionally of one owner.
+     * The tag names resolve through the unique index on tags and the certificates through the
+     * tag index of certificate_tags, so only matching rows are read.
+     *
+     * @param tags     The tag names, all of which must be present.
+     * @param tagCount The number of distinct names in {@code tags}.
+     * @param owner    The owner, or null for any owner.
+     * @param pageable The page to load, with its sort order.
+     * @return The page of certificate views.
+     */
+    @Query(value = """
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c
+            where (:owner is null or c.owner = :owner)
+            and c.id in (select tc.id from Certificate tc join tc.tags t where t.name in :tags
+                         group by tc.id having count(t) = :tagCount)""",
+            countQuery = """
+            select count(c) from Certificate c
+            where (:owner is null or c.owner = :owner)
+            and c.id in (select tc.id from Certificate tc join tc.tags t where t.name in :tags
+                         group by tc.id having count(t) = :tagCount)""")
+    Page<CertificateView> findViewsByTags(@Param("tags") Collection<String> tags, @Param("tagCount") long tagCount,
+                                          @Param("owner") String owner, Pageable pageable);
+
+    /**
+     * Returns one page of the certificates matching a TLS posture. Null criteria are ignored;
+     * the protocol, key and signature algorithm criteria each have their own index.
+     *
+     * @param tlsProtocol        The negotiated protocol, or null for any.
+     * @param keyAlgorithm       The key algorithm, or null for any.
+     * @param maxKeySize         The largest key size in bits, or null for any.
+     * @param signatureAlgorithm The signature algorithm, or null for any.
+     * @param pageable           The page to load, with its sort order.
+     * @return The page of certificate views.
+     */
+    @Query(value = """
+            select new com.devops.certtracker.entity.CertificateView(c.id, c.url, c.ipAddress, c.subject, c.issuer, c.validFrom, c.validTo, c.owner)
+            from Certificate c
+            where (:tlsProtocol is null or c.tlsProtocol = :tlsProtocol)
+            and (:keyAlgorithm is null or c.keyAlgorithm = :keyAlgorithm)
+            and (:maxKeySize is null or c.keySize <= :maxKeySize)
+            and (:signatureAlgorithm is null or c.signatureAlgorithm = :signatureAlgorithm)""",
+            countQuery = """
+            select count(c) from Certificate c
+            where (:tlsProtocol is null or c.tlsProtocol = :tlsProtocol)
+            and (:keyAlgorithm is null or c.keyAlgorithm = :keyAlgorithm)
+            and (:maxKeySize is null or c.keySize <= :maxKeySize)
+            and (:signatureAlgorithm is null or c.signatureAlgorithm = :signatureAlgorithm)""")
+    Page<CertificateView> findViewsByPosture(@Param("tlsProtocol") String tlsProtocol,
+                                             @Param("keyAlgorithm") String keyAlgorithm,
+                                             @Param("maxKeySize") Integer maxKeySize,
+                                             @Param("signatureAlgorithm") String signatureAlgorithm,
+                                             Pageable pageable);
+
+    /**
+     * Counts the certificates in each dashboard expiry bucket in a single aggregate query.
+     *
+     * @param now       The reference time; anything expiring before it is expired.
+     * @param twoWeeks  The upper bound of the "expiring within two weeks" bucket.
+     * @param sixWeeks  The upper bound of the "expiring within six weeks" bucket.
+     * @return The number of certificates in each bucket.
+     */
+    @Query("""
+            select coalesce(sum(case when c.validTo < :now then 1 else 0 end), 0) as expired,
+                   coalesce(sum(case when c.validTo >= :now and c.validTo < :twoWeeks then 1 else 0 end), 0) as expiringInTwoWeeks,
+                   coalesce(sum(case when c.validTo >= :twoWeeks and c.validTo < :sixWeeks then 1 else 0 end), 0) as expiringInSixWeeks,
+                   coalesce(sum(case when c.validTo >= :sixWeeks then 1 else 0 end), 0) as good
+            from Certificate c""")
+    ExpiryBucketCounts countByExpiryBucket(@Param("now") Date now,
+                                           @Param("twoWeeks") Date twoWeeks,
+                                           @Param("sixWeeks") Date sixWeeks);
+
+    @Query("select c.issuer as name, count(c) as count from Certificate c group by c.issuer order by count(c) desc")
+    List<GroupCount> countByIssuer();
+
+    /**
+     * Counts the certificates per registrable domain, largest first.
+     *
+     * @param pageable How many domains to return.
+     * @return The largest domains and their certificate counts.
+     */
+    @Query("select c.domain as name, count(c) as count from Certificate c where c.domain is not null group by c.domain order by count(c) desc")
+    List<GroupCount> countByDomain(Pageable pageable);
+
+    @Query("select c.owner as name, count(c) as count from Certificate c where c.owner is not null group by c.owner order by count(c) desc")
+    List<GroupCount> countByOwner();
+
+    @Query("select t.name as name, count(c) as count from Certificate c join c.tags t group by t.name order by count(c) desc")
+    List<GroupCount> countByTag();
+
+    @Query("select c.tlsProtocol as name, count(c) as count from Certificate c where c.tlsProtocol is not null group by c.tlsProtocol order by count(c) desc")
+    List<GroupCount> countByTlsProtocol();
+
+    @Query("select c.cipherSuite as name, count(c) as count from Certificate c where c.cipherSuite is not null group by c.cipherSuite order by count(c) desc")
+    List<GroupCount> countByCipherSuite();
+
+    /**
+     * Counts the certificates by key, named as the algorithm and size, for example RSA-2048, or by
+     * the algorithm alone when it has a fixed size, such as Ed25519.
+     */
+    @Query("""
+            select case when c.keySize is null then c.keyAlgorithm
+                        else concat(c.keyAlgorithm, '-', cast(c.keySize as String)) end as name, count(c) as count
+            from Certificate c where c.keyAlgorithm is not null
+            group by c.keyAlgorithm, c.keySize order by count(c) desc""")
+    List<GroupCount> countByKey();
+
+    @Query("select c.signatureAlgorithm as name, count(c) as count from Certificate c where c.signatureAlgorithm is not null group by c.signatureAlgorithm order by count(c) desc")
+    List<GroupCount> countBySignatureAlgorithm();
+
+    /**
+     * Deletes the given certificates in one statement. Pending changes are flushed first and the
+     * persistence context is cleared afterwards, so no deleted entity stays cached.
+     *
+     * @param ids The IDs to delete; unknown IDs are ignored.
+     * @return The number of rows deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Certificate c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Locks the given certificates until the end of the transaction and returns the IDs and row
+     * versions of those that exist, so a delete that follows knows which rows it removes.
+     *
+     * @param ids The IDs to lock.
+     * @return The existing certificates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.devops.certtracker.entity.CertificateVersion(c.id, c.version) from Certificate c where c.id in :ids")
+    List<CertificateVersion> lockVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Locks the certificates matching every non-null criterion until the end of the transaction
+     * and returns their IDs and row versions, so they can be deleted by ID without touching rows
+     * inserted meanwhile.
+     *
+     * @param urlPattern    A LIKE pattern on the URL, with ! as escape character, or null.
+     * @param issuer        The exact issuer, or null.
+     * @param expiredBefore The validity end date bound, or null.
+     * @return The matching certificates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new com.devops.certtracker.entity.CertificateVersion(c.id, c.version) from Certificate c
+            where (:urlPattern is null or c.url like :urlPattern escape '!')
+            and (:issuer is null or c.issuer = :issuer)
+            and (cast(:expiredBefore as timestamp) is null or c.validTo < :expiredBefore)""")
+    List<CertificateVersion> lockVersionsByFilter(@Param("urlPattern") String urlPattern, @Param("issuer") String issuer,
+                                                  @Param("expiredBefore") Date expiredBefore);
+
+    /**
+     * Locks the certificates that expired before the cutoff until the end of the transaction and
+     * returns their IDs and row versions, so a re-scan cannot renew one between its archive copy
+     * and its delete.
+     *
+     * @param cutoff Certificates expiring before this date are selected.
+     * @return The expired certificates.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.devops.certtracker.entity.CertificateVersion(c.id, c.version) from Certificate c where c.validTo < :cutoff")
+    List<CertificateVersion> lockExpiredVersions(@Param("cutoff") Date cutoff);
+
+    /**
+     * Copies the given certificates into the archive table, with every column the certificates
+     * table has.
+     *
+     * @param ids        The IDs of the certificates to copy.
+     * @param archivedAt The archive timestamp recorded on the copied rows.
+     * @return The number of rows copied.
+     */
+    @Modifying
+    @Query(value = """
+            insert into certificates_archive (id, url, ip_address, domain, subject, issuer, valid_from, valid_to, owner,
+                                              revocation_status, tls_protocol, cipher_suite, key_algorithm, key_size,
+                                              signature_algorithm, fingerprint, version, archived_at)
+            select id, url, ip_address, domain, subject, issuer, valid_from, valid_to, owner,
+                   revocation_status, tls_protocol, cipher_suite, key_algorithm, key_size,
+                   signature_algorithm, fingerprint, version, :archivedAt
+            from certificates where id in (:ids)""", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") Date archivedAt);
+
+    /**
+     * Copies the tag names of the given certificates into the archive, before the certificates
+     * and their tag links are deleted.
+     *
+     * @param ids        The IDs of the archived certificates.
+     * @param archivedAt The archive timestamp used for the copy.
+     * @return The number of tag names copied.
+     */
+    @Modifying
+    @Query(value = """
+            insert into certificates_archive_tags (certificate_id, archived_at, name)
+            select ct.certificate_id, :archivedAt, t.name
+            from certificate_tags ct
+            join tags t on t.id = ct.tag_id
+            where ct.certificate_id in (:ids)""", nativeQuery = true)
+    int copyTagsToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") Date archivedAt);
 }
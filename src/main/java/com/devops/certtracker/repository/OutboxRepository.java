@@ -0,0 +1,74 @@
+package com.devops.certtracker.repository;
+
+import com.devops.certtracker.entity.OutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    /**
+     * Returns the oldest entries of the outbox.
+     *
+     * @param pageable The number of entries to load, from the first page.
+     * @return The entries, by ascending ID.
+     */
+    List<OutboxEntry> findByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Deletes relayed entries in one statement.
+     *
+     * @param ids The IDs of the entries.
+     * @return The number of entries deleted.
+     */
+    @Modifying
+    @Query("delete from OutboxEntry e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts a failed relay attempt against each entry.
+     *
+     * @param ids   The IDs of the entries.
+     * @param error The error of the attempt.
+     * @return The number of entries updated.
+     */
+    @Modifying
+    @Query("update OutboxEntry e set e.attempts = e.attempts + 1, e.lastError = :error where e.id in :ids")
+    int recordFailure(@Param("ids") Collection<Long> ids, @Param("error") String error);
+
+    /**
+     * Copies entries to the dead letter table; they are then deleted from the outbox.
+     *
+     * @param ids            The IDs of the entries.
+     * @param deadLetteredAt The time recorded on the copies.
+     * @return The number of entries copied.
+     */
+    @Modifying
+    @Query(value = """
+            insert into certificate_outbox_dead_letter (id, event_type, certificate_id, certificate_version, payload,
+                                                        created_at, attempts, last_error, dead_lettered_at)
+            select id, event_type, certificate_id, certificate_version, payload, created_at, attempts, last_error,
+                   :deadLetteredAt
+            from certificate_outbox where id in (:ids)""", nativeQuery = true)
+    int copyToDeadLetter(@Param("ids") Collection<Long> ids, @Param("deadLetteredAt") Date deadLetteredAt);
+
+    /**
+     * Takes or renews the relay lease for an owner, unless another owner holds it past now.
+     *
+     * @param owner       The relay instance.
+     * @param now         The current time.
+     * @param lockedUntil The end of the lease.
+     * @return 1 if the owner holds the lease, 0 if another owner does.
+     */
+    @Modifying
+    @Query(value = """
+            update certificate_outbox_lock set owner = :owner, locked_until = :lockedUntil
+            where id = 1 and (owner = :owner or locked_until < :now)""", nativeQuery = true)
+    int acquireLock(@Param("owner") String owner, @Param("now") Date now, @Param("lockedUntil") Date lockedUntil);
+}
@@ -0,0 +1,75 @@
+package com.devops.certtracker.repository;
+
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotEndpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ScanSnapshotRepository extends JpaRepository<ScanSnapshot, Long> {
+
+    /**
+     * Returns every snapshot, newest first.
+     *
+     * @return The snapshots.
+     */
+    List<ScanSnapshot> findAllByOrderByIdDesc();
+
+    /**
+     * Copies every tracked endpoint into a snapshot in one statement. When several rows share a
+     * URL and address, such as an imported chain, the oldest one is the endpoint's certificate,
+     * as it is the row /add and re-scans update.
+     *
+     * @param snapshotId The ID of the snapshot.
+     * @return The number of endpoints copied.
+     */
+    @Modifying
+    @Query(value = """
+            insert into scan_snapshot_entries (snapshot_id, url, ip_address, certificate_id, subject, issuer,
+                                               valid_from, valid_to, fingerprint)
+            select :snapshotId, c.url, coalesce(c.ip_address, ''), c.id, c.subject, c.issuer,
+                   c.valid_from, c.valid_to, c.fingerprint
+            from certificates c
+            join (select min(id) as id from certificates
+                  where url is not null
+                  group by url, coalesce(ip_address, '')) endpoint on endpoint.id = c.id""", nativeQuery = true)
+    int copyEndpoints(@Param("snapshotId") Long snapshotId);
+
+    /**
+     * Returns the first endpoints of a snapshot in key order.
+     *
+     * @param snapshotId The ID of the snapshot.
+     * @param pageable   The number of endpoints to return, from the first page.
+     * @return The endpoints, by URL then address.
+     */
+    @Query("""
+            select new com.devops.certtracker.entity.SnapshotEndpoint(e.url, e.ipAddress, e.certificateId, e.subject,
+                e.issuer, e.validFrom, e.validTo, e.fingerprint)
+            from ScanSnapshotEntry e where e.snapshotId = :snapshotId
+            order by e.snapshotId, e.url, e.ipAddress""")
+    List<SnapshotEndpoint> findFirstEndpoints(@Param("snapshotId") Long snapshotId, Pageable pageable);
+
+    /**
+     * Returns the endpoints of a snapshot that follow the given key (keyset pagination), so each
+     * chunk is a range scan of the primary key whatever its position. The redundant
+     * {@code url >= :url} bounds the scan on databases that do not turn the OR into a range.
+     *
+     * @param snapshotId The ID of the snapshot.
+     * @param url        The URL of the last endpoint returned.
+     * @param ipAddress  The address of the last endpoint returned.
+     * @param pageable   The number of endpoints to return, from the first page.
+     * @return The endpoints, by URL then address.
+     */
+    @Query("""
+            select new com.devops.certtracker.entity.SnapshotEndpoint(e.url, e.ipAddress, e.certificateId, e.subject,
+                e.issuer, e.validFrom, e.validTo, e.fingerprint)
+            from ScanSnapshotEntry e where e.snapshotId = :snapshotId
+              and e.url >= :url and (e.url > :url or e.ipAddress > :ipAddress)
+            order by e.snapshotId, e.url, e.ipAddress""")
+    List<SnapshotEndpoint> findEndpointsAfter(@Param("snapshotId") Long snapshotId, @Param("url") String url,
+                                              @Param("ipAddress") String ipAddress, Pageable pageable);
+}
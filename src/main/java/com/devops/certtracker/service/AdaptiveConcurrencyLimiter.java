@@ -0,0 +1,201 @@
+package com.devops.certtracker.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to the observed latency and error rate (AIMD).
+ * <p>
+ * Each successful call grows the limit by about one per window of calls (additive increase), as
+ * long as the limit is actually being used. When a call takes more than {@code latencyTolerance}
+ * times the best latency seen recently for its target, or the recent error rate goes over
+ * {@code errorRateThreshold}, the limit is multiplied by {@code backoffRatio} (multiplicative
+ * decrease), at most once per latency window so one congestion episode only counts once.
+ * <p>
+ * Latency baselines are kept per target, since targets far away or on slow hosts are not
+ * overloaded for being slower than the fastest one. The first call to a target only sets its
+ * baseline. Only the {@value #MAX_BASELINES} most recently called targets are remembered.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    private static final double DEFAULT_ERROR_RATE_THRESHOLD = 0.25;
+
+    // Weight of the latest sample in the error rate moving average
+    private static final double ERROR_RATE_SMOOTHING = 0.05;
+
+    // How fast a target's latency baseline drifts up, so a permanently slower target is eventually accepted
+    private static final double BASELINE_DRIFT = 0.05;
+
+    // Weight of the latest call in the latency ratio moving average
+    private static final double LATENCY_RATIO_SMOOTHING = 0.05;
+
+    static final int MAX_BASELINES = 10_000;
+
+    // Fair, so waiting callers get slots in arrival order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double errorRateThreshold;
+
+    private double limit;
+    private int inFlight;
+    // Latency baseline per target, least recently called first, guarded by lock
+    private final Map<String, Double> baselineLatencyNanos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_BASELINES;
+        }
+    };
+    private double latencyRatio = 1.0;
+    private double errorRate;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_TOLERANCE, DEFAULT_ERROR_RATE_THRESHOLD);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance, double errorRateThreshold) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits: min " + minLimit + ", max " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.errorRateThreshold = errorRateThreshold;
+    }
+
+    /**
+     * Waits until a call can start under the current limit.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                available.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the outcome of a call started with {@link #acquire()} and adjusts the limit, with
+     * every such call sharing one latency baseline.
+     *
+     * @param latencyNanos The duration of the call.
+     * @param success      Whether the call succeeded.
+     */
+    public void release(long latencyNanos, boolean success) {
+        release("", latencyNanos, success);
+    }
+
+    /**
+     * Records the outcome of a call started with {@link #acquire()} and adjusts the limit.
+     *
+     * @param target       The target called, such as its URL, whose latency baseline the call is
+     *                     compared against.
+     * @param latencyNanos The duration of the call.
+     * @param success      Whether the call succeeded.
+     */
+    public void release(String target, long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            int usedSlots = inFlight;
+            inFlight--;
+            errorRate += ((success ? 0.0 : 1.0) - errorRate) * ERROR_RATE_SMOOTHING;
+
+            boolean overloaded;
+            Double baseline = baselineLatencyNanos.get(target);
+            if (success) {
+                if (baseline == null || latencyNanos < baseline) {
+                    baselineLatencyNanos.put(target, (double) latencyNanos);
+                } else {
+                    baselineLatencyNanos.put(target, baseline + (latencyNanos - baseline) * BASELINE_DRIFT);
+                }
+                overloaded = baseline != null && latencyNanos > baseline * latencyTolerance;
+                if (baseline != null) {
+                    latencyRatio += (latencyNanos / baseline - latencyRatio) * LATENCY_RATIO_SMOOTHING;
+                }
+            } else {
+                overloaded = errorRate > errorRateThreshold;
+            }
+
+            long now = System.nanoTime();
+            if (overloaded) {
+                long window = baseline == null ? 0 : baseline.longValue();
+                if (now - lastDecreaseNanos > window) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (success && usedSlots * 2 >= (int) limit) {
+                // Only grow when at least half the limit is in use, otherwise it is not the bottleneck
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current concurrency limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of calls currently running.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The recent latency of successful calls relative to the baseline of their targets,
+     * 1 when targets answer as fast as usual.
+     */
+    public double getLatencyRatio() {
+        lock.lock();
+        try {
+            return latencyRatio;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of targets with a latency baseline.
+     */
+    public int getBaselineCount() {
+        lock.lock();
+        try {
+            return baselineLatencyNanos.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
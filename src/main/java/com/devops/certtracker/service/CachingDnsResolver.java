@@ -0,0 +1,114 @@
+package com.devops.certtracker.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous DNS cache in front of a {@link DnsResolver}. Concurrent lookups of the same host
+ * share one resolution, successful answers are kept for the positive TTL and failures for the
+ * (shorter) negative TTL.
+ * <p>
+ * The JDK resolver does not expose the TTL of the records it returns, so the TTLs are configured
+ * (certtracker.dns.*) and should be kept at or below the TTLs of the zones being scanned. Expired
+ * entries are dropped by a periodic sweep, so hosts that are no longer scanned do not stay cached.
+ */
+@Component
+public class CachingDnsResolver {
+
+    private record Entry(CompletableFuture<List<InetAddress>> addresses, long expiresAtNanos) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final DnsResolver delegate;
+    private final Executor executor;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+
+    @Autowired
+    public CachingDnsResolver(DnsResolver delegate,
+                              @Qualifier("dnsExecutor") Executor executor,
+                              @Value("${certtracker.dns.positive-ttl:60s}") Duration positiveTtl,
+                              @Value("${certtracker.dns.negative-ttl:10s}") Duration negativeTtl) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.positiveTtlNanos = positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    /**
+     * Resolves every address of the host, from the cache when the entry is still fresh.
+     *
+     * @param host The host name to resolve.
+     * @return A future completing with the addresses, or exceptionally with an
+     * {@link UnknownHostException}.
+     */
+    public CompletableFuture<List<InetAddress>> resolveAsync(String host) {
+        String key = host.toLowerCase(Locale.ROOT);
+        long now = System.nanoTime();
+        Entry entry = cache.compute(key, (k, existing) ->
+                existing != null && existing.expiresAtNanos() - now > 0 ? existing : lookup(k, now));
+        return entry.addresses();
+    }
+
+    /**
+     * Blocking variant of {@link #resolveAsync(String)}.
+     */
+    public List<InetAddress> resolve(String host) throws UnknownHostException {
+        try {
+            return resolveAsync(host).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnknownHostException unknownHostException) {
+                throw unknownHostException;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(String host) {
+        cache.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Drops the entries whose TTL has expired. Lookups still in progress are kept.
+     */
+    @Scheduled(fixedDelayString = "${certtracker.dns.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        cache.values().removeIf(entry -> entry.addresses().isDone() && entry.expiresAtNanos() - now <= 0);
+    }
+
+    private Entry lookup(String host, long now) {
+        CompletableFuture<List<InetAddress>> addresses = CompletableFuture.supplyAsync(() -> {
+            try {
+                return List.copyOf(delegate.resolve(host));
+            } catch (UnknownHostException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        // Failures expire sooner; the entry is replaced once the lookup completes
+        addresses.whenComplete((result, error) -> {
+            if (error != null) {
+                cache.computeIfPresent(host, (k, existing) -> existing.addresses() == addresses
+                        ? new Entry(addresses, System.nanoTime() + negativeTtlNanos) : existing);
+            }
+        });
+        return new Entry(addresses, now + positiveTtlNanos);
+    }
+}
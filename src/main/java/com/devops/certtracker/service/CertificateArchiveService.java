@@ -0,0 +1,138 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.CertificateVersion;
+import com.devops.certtracker.repository.CertificateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Moves certificates that expired long ago from the certificates table to certificates_archive,
+ * so expiry and URL queries keep running against a small hot table. On MySQL it also keeps a
+ * partition ready for each coming archive year.
+ */
+@Service
+@ConditionalOnProperty(name = "certtracker.archive.enabled", havingValue = "true")
+public class CertificateArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(CertificateArchiveService.class);
+
+    // Partitioned by year(archived_at) on MySQL, see V3 and V12
+    private static final List<String> PARTITIONED_TABLES = List.of("certificates_archive", "certificates_archive_tags");
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateEventBus certificateEventBus;
+
+    @Autowired
+    private CertificateOutbox certificateOutbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${certtracker.archive.retention-days:365}")
+    private long retentionDays;
+
+    @Value("${certtracker.archive.partitions-ahead:2}")
+    private int partitionsAhead;
+
+    /**
+     * Archives every certificate that expired more than the retention period ago. The expired
+     * rows are locked first and then copied and deleted by ID, in chunks of
+     * {@value CertificateService#DELETE_CHUNK_SIZE}, so the delete events name exactly the rows
+     * archived.
+     *
+     * @return The number of certificates archived.
+     */
+    @Scheduled(cron = "${certtracker.archive.cron:0 30 2 * * *}")
+    @Transactional
+    public int archiveExpiredCertificates() {
+        // Truncated so the timestamp compares equal once stored at the column precision
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Date cutoff = Date.from(now.minus(Duration.ofDays(retentionDays)));
+        Date archivedAt = Date.from(now);
+
+        List<CertificateVersion> rows = certificateRepository.lockExpiredVersions(cutoff);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(CertificateVersion::id).toList();
+        for (int from = 0; from < ids.size(); from += CertificateService.DELETE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CertificateService.DELETE_CHUNK_SIZE, ids.size()));
+            certificateRepository.copyToArchive(chunk, archivedAt);
+            certificateRepository.copyTagsToArchive(chunk, archivedAt);
+            certificateRepository.deleteByIdIn(chunk);
+        }
+        List<CertificateEvent> events = rows.stream().map(CertificateEvent::deleted).toList();
+        certificateOutbox.append(events);
+        certificateEventBus.publish(events);
+        logger.info("Archived {} certificates expired before {}", ids.size(), cutoff.toInstant());
+        return ids.size();
+    }
+
+    /**
+     * Splits a partition per archive year off pmax, up to the given number of years ahead, so
+     * each year of history can be dropped with its partition. Only MySQL partitions the archive;
+     * on other databases this does nothing. Runs outside a transaction, as MySQL commits around
+     * every partition change.
+     */
+    @Scheduled(cron = "${certtracker.archive.partition-cron:0 0 2 * * *}")
+    public void addArchivePartitions() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equals(database)) {
+            return;
+        }
+        int year = Year.now().getValue();
+        for (String table : PARTITIONED_TABLES) {
+            List<String> partitions = jdbcTemplate.queryForList("""
+                    select partition_name from information_schema.partitions
+                    where table_schema = database() and table_name = ? and partition_name is not null""",
+                    String.class, table);
+            for (int added : partitionsToAdd(partitions, year, partitionsAhead)) {
+                jdbcTemplate.execute("alter table " + table + " reorganize partition pmax into (partition p" + added
+                        + " values less than (" + (added + 1) + "), partition pmax values less than maxvalue)");
+                logger.info("Added partition p{} to {}", added, table);
+            }
+        }
+    }
+
+    /**
+     * Returns the years to split off pmax, in order: the years after the last yearly partition
+     * up to the given number of years ahead.
+     *
+     * @param partitions The names of the existing partitions, such as p2026 and pmax.
+     * @param year       The current year.
+     * @param ahead      How many years after the current one need a partition.
+     * @return The years of the partitions to add.
+     */
+    static List<Integer> partitionsToAdd(Collection<String> partitions, int year, int ahead) {
+        if (!partitions.contains("pmax")) {
+            return List.of();
+        }
+        int last = partitions.stream()
+                .filter(name -> name.matches("p\\d{4}"))
+                .mapToInt(name -> Integer.parseInt(name.substring(1)))
+                .max()
+                .orElse(year - 1);
+        return IntStream.rangeClosed(last + 1, year + ahead).boxed().toList();
+    }
+}
@@ -0,0 +1,205 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process bus for certificate changes. Publishers append to a lock-free queue, so saving or
+ * probing threads never contend on a lock; a single dispatcher thread drains the queue in batches
+ * and hands each batch to every listener, so listeners see events in publication order and pay
+ * the dispatch cost once per batch rather than once per event.
+ * <p>
+ * Events published inside a transaction are queued when it commits, and dropped if it rolls back.
+ * Two transactions changing the same certificate can queue their events in the opposite order to
+ * their commits, so listeners compare {@link CertificateEvent#version()}s rather than rely on the
+ * publication order across transactions.
+ * The queue is bounded: a publisher finding it full waits for the listeners to catch up, rather
+ * than losing events listeners rely on to stay in step with the database.
+ */
+public class CertificateEventBus implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CertificateEventBus.class);
+
+    // How long the idle dispatcher sleeps between checks when no publisher wakes it
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<CertificateEventListener> listeners;
+    private final int capacity;
+    private final int batchSize;
+    private final Queue<CertificateEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicBoolean dispatcherIdle = new AtomicBoolean();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * Starts the dispatcher thread.
+     *
+     * @param listeners The listeners, called in this order.
+     * @param capacity  The number of queued events beyond which publishers wait.
+     * @param batchSize The largest number of events handed to listeners at once.
+     */
+    public CertificateEventBus(List<CertificateEventListener> listeners, int capacity, int batchSize) {
+        this.listeners = List.copyOf(listeners);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.dispatcher = new Thread(this::dispatch, "certificate-events");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public void publish(CertificateEvent event) {
+        publish(List.of(event));
+    }
+
+    /**
+     * Publishes events, once the current transaction commits if there is one.
+     *
+     * @param events The events, in the order listeners should see them.
+     */
+    public void publish(List<CertificateEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(events);
+                }
+            });
+        } else {
+            enqueue(events);
+        }
+    }
+
+    private void enqueue(List<CertificateEvent> events) {
+        for (CertificateEvent event : events) {
+            while (!reserveSlot()) {
+                if (!running) {
+                    // Nobody will drain the queue any more, close() delivers what is left
+                    pending.incrementAndGet();
+                    break;
+                }
+                wakeDispatcher();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+            queue.offer(event);
+            wakeDispatcher();
+        }
+        published.addAndGet(events.size());
+    }
+
+    /**
+     * Counts one more pending event unless the queue is full, in a single atomic step so that
+     * concurrent publishers cannot together go past the capacity.
+     */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = pending.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!pending.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void wakeDispatcher() {
+        if (dispatcherIdle.get()) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private void dispatch() {
+        List<CertificateEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            CertificateEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                // Flag first, then check again, so an event offered in between is not missed
+                dispatcherIdle.set(true);
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                dispatcherIdle.set(false);
+                continue;
+            }
+            pending.addAndGet(-batch.size());
+            deliver(List.copyOf(batch));
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<CertificateEvent> batch) {
+        for (CertificateEventListener listener : listeners) {
+            try {
+                listener.onEvents(batch);
+            } catch (Throwable e) {
+                // One failing listener must not starve the others, nor an Error end the dispatcher
+                logger.error("Certificate event listener {} failed on {} events", listener, batch.size(), e);
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    /**
+     * Waits until every event published so far has been delivered.
+     *
+     * @param timeout How long to wait at most.
+     * @return Whether the events were delivered in time.
+     */
+    public boolean flush(Duration timeout) {
+        long target = published.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (delivered.get() < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            wakeDispatcher();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Delivers the events still queued, then stops the dispatcher.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,23 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+
+import java.util.List;
+
+/**
+ * Receives certificate changes from the {@link CertificateEventBus}. Every bean implementing it
+ * is subscribed.
+ */
+@FunctionalInterface
+public interface CertificateEventListener {
+
+    /**
+     * Handles a batch of events, in the order they were published. The events of one certificate
+     * may be published out of order, and an event whose version is lower than one already handled
+     * for the certificate is stale. Called on the bus's single dispatcher thread, so it must not
+     * block for long: every other listener waits meanwhile.
+     *
+     * @param events The events; never empty.
+     */
+    void onEvents(List<CertificateEvent> events);
+}
@@ -0,0 +1,149 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.exception.CertificateParseException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses certificates from uploaded files without contacting the endpoint they belong to.
+ * Supports PEM (single certificate or bundle), DER, PKCS12 and JKS keystores.
+ */
+@Component
+public class CertificateFileParser {
+
+    /**
+     * Bundles with at least this many PEM blocks are decoded in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private static final Pattern PEM_CERTIFICATE = Pattern.compile(
+            "-----BEGIN CERTIFICATE-----([A-Za-z0-9+/=\\s]+?)-----END CERTIFICATE-----");
+
+    private static final byte DER_SEQUENCE = 0x30;
+
+    // PFX ::= SEQUENCE { version INTEGER {v3(3)}, ... }, where a certificate opens with a SEQUENCE
+    private static final byte[] PFX_VERSION = {0x02, 0x01, 0x03};
+
+    private static final byte[] JKS_MAGIC = {(byte) 0xFE, (byte) 0xED, (byte) 0xFE, (byte) 0xED};
+
+    /**
+     * Parses every certificate contained in the given content.
+     *
+     * @param content  The raw bytes of the uploaded file.
+     * @param password The keystore password, or null for PEM and DER content.
+     * @return The certificates found, in file order.
+     */
+    public List<X509Certificate> parse(byte[] content, String password) {
+        if (content == null || content.length == 0) {
+            throw new CertificateParseException("Certificate content cannot be empty.");
+        }
+        if (isPem(content)) {
+            return parsePem(new String(content, StandardCharsets.US_ASCII));
+        }
+        if (startsWith(content, JKS_MAGIC)) {
+            return parseKeyStore(content, "JKS", password);
+        }
+        if (isPkcs12(content)) {
+            return parseKeyStore(content, "PKCS12", password);
+        }
+        return List.of(decode(content));
+    }
+
+    private List<X509Certificate> parsePem(String pem) {
+        List<byte[]> blocks = new ArrayList<>();
+        Matcher matcher = PEM_CERTIFICATE.matcher(pem);
+        while (matcher.find()) {
+            blocks.add(Base64.getMimeDecoder().decode(matcher.group(1)));
+        }
+        if (blocks.isEmpty()) {
+            throw new CertificateParseException("No certificate found in the PEM content.");
+        }
+        if (blocks.size() < PARALLEL_THRESHOLD) {
+            return blocks.stream().map(CertificateFileParser::decode).toList();
+        }
+        // parallel() on an ArrayList-backed stream keeps the encounter order in toList()
+        return blocks.parallelStream().map(CertificateFileParser::decode).toList();
+    }
+
+    private List<X509Certificate> parseKeyStore(byte[] content, String type, String password) {
+        char[] secret = password == null ? new char[0] : password.toCharArray();
+        try {
+            KeyStore keyStore = KeyStore.getInstance(type);
+            keyStore.load(new ByteArrayInputStream(content), secret);
+
+            List<X509Certificate> certificates = new ArrayList<>();
+            for (String alias : Collections.list(keyStore.aliases())) {
+                java.security.cert.Certificate certificate = keyStore.getCertificate(alias);
+                if (certificate instanceof X509Certificate x509Certificate) {
+                    certificates.add(x509Certificate);
+                }
+            }
+            if (certificates.isEmpty()) {
+                throw new CertificateParseException("No certificate found in the " + type + " keystore.");
+            }
+            return certificates;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new CertificateParseException("Unable to read the " + type + " keystore: " + e.getMessage(), e);
+        }
+    }
+
+    private static X509Certificate decode(byte[] der) {
+        try {
+            // CertificateFactory instances are not guaranteed to be thread-safe, so each call gets its own
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            return (X509Certificate) certificateFactory.generateCertificate(new ByteArrayInputStream(der));
+        } catch (CertificateException e) {
+            throw new CertificateParseException("Invalid certificate encoding: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isPem(byte[] content) {
+        // DER certificates and PKCS12 keystores both start with an ASN.1 SEQUENCE tag
+        return content[0] != DER_SEQUENCE && !startsWith(content, JKS_MAGIC);
+    }
+
+    /**
+     * Tells a PKCS12 keystore from a DER certificate by the version number that follows the
+     * header of the outer SEQUENCE, so a corrupt certificate is reported as such rather than as
+     * an unreadable keystore.
+     */
+    private static boolean isPkcs12(byte[] content) {
+        if (content.length < 2) {
+            return false;
+        }
+        int length = content[1] & 0xFF;
+        // Long form: the low bits give the number of length bytes that follow
+        int headerLength = length < 0x80 ? 2 : 2 + (length & 0x7F);
+        return startsWith(content, headerLength, PFX_VERSION);
+    }
+
+    private static boolean startsWith(byte[] content, byte[] prefix) {
+        return startsWith(content, 0, prefix);
+    }
+
+    private static boolean startsWith(byte[] content, int offset, byte[] prefix) {
+        if (content.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (content[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.OutboxEntry;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes certificate changes to the outbox table, from which the {@link OutboxRelay} forwards
+ * them to downstream systems. Entries must be written in the transaction of the change: both
+ * are committed or neither is, and the caller never waits on a downstream system.
+ */
+@Service
+public class CertificateOutbox {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Adds the changes to the outbox.
+     *
+     * @param events The changes, in the order they were made.
+     * @throws org.springframework.transaction.IllegalTransactionStateException If no transaction is active.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<CertificateEvent> events) {
+        outboxRepository.saveAll(events.stream().map(this::entry).toList());
+    }
+
+    private OutboxEntry entry(CertificateEvent event) {
+        String payload;
+        try {
+            payload = event.certificate() == null ? null : objectMapper.writeValueAsString(event.certificate());
+        } catch (JsonProcessingException e) {
+            throw new CertificateServiceException("Error serializing the change of certificate " + event.certificateId(), e);
+        }
+        return new OutboxEntry(event.type().name(), event.certificateId(), event.version(), payload,
+                Date.from(event.occurredAt()));
+    }
+}
@@ -1,126 +1,545 @@
 package com.devops.certtracker.service;
 
+import com.devops.certtracker.entity.BulkDeleteResult;
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.CertificateEvent.Type;
+import com.devops.certtracker.entity.CertificateFilter;
+import com.devops.certtracker.entity.CertificatePage;
+import com.devops.certtracker.entity.CertificateSummary;
+import com.devops.certtracker.entity.CertificateVersion;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.PostureSummary;
+import com.devops.certtracker.entity.RevocationStatus;
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.entity.Tag;
 import com.devops.certtracker.exception.CertificateDeleteException;
 import com.devops.certtracker.exception.CertificateNoContentException;
 import com.devops.certtracker.exception.CertificateServiceException;
 import com.devops.certtracker.exception.EntityNotFoundException;
 import com.devops.certtracker.repository.CertificateRepository;
+import com.devops.certtracker.repository.TagRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSession;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
+import javax.security.auth.x500.X500Principal;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.DSAKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.RSAKey;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CertificateService {
+    static final int MAX_PAGE_SIZE = 500;
+
+    static final int DELETE_CHUNK_SIZE = 1000;
+
+    static final int MAX_TAG_LENGTH = 100;
+
+    static final int SUMMARY_TOP_DOMAINS = 20;
+
     @Autowired
     private CertificateRepository certificateRepository;
 
-    public List<Certificate> getAllCertificates(){
-        List<Certificate> certificates = certificateRepository.findAll();
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private CertificateFileParser certificateFileParser;
+
+    @Autowired
+    private ScanEngine scanEngine;
+
+    @Autowired
+    private RevocationChecker revocationChecker;
+
+    @Autowired
+    private ProbeTracer probeTracer;
+
+    @Autowired
+    private CertificateEventBus certificateEventBus;
+
+    @Autowired
+    private CertificateOutbox certificateOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Transactional(readOnly = true)
+    public List<CertificateView> getAllCertificates(){
+        List<CertificateView> certificates = certificateRepository.findAllViews();
         if (certificates.isEmpty()){
             throw new CertificateNoContentException("No certificates found in the database");
         }
         return  certificates;
     }
 
+    /**
+     * Returns one page of certificates, ordered by ID, for clients that only display part of the
+     * inventory at a time. A client scrolling through the pages passes the last ID of the previous
+     * page, so the page is found through the primary key rather than by skipping an offset. The
+     * certificates are only counted for the first page.
+     *
+     * @param page    The zero-based page number.
+     * @param size    The page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @param afterId The last ID of the previous page, or null to load the page by number.
+     * @return The requested page, empty past the last one.
+     */
+    @Transactional(readOnly = true)
+    public CertificatePage getCertificatePage(int page, int size, Long afterId) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        List<CertificateView> views = afterId != null
+                ? certificateRepository.findViewsAfter(afterId, PageRequest.ofSize(pageSize))
+                : certificateRepository.findViews(PageRequest.of(pageNumber, pageSize, Sort.by("id")));
+        Long total = pageNumber == 0 ? certificateRepository.count() : null;
+        return new CertificatePage(views, pageNumber, pageSize, total);
+    }
+
+    /**
+     * Returns one page of the certificates of an owner and/or carrying every given tag. The
+     * filtering runs in the database, so a team dashboard only loads its own slice.
+     *
+     * @param owner The owner, or null for any owner.
+     * @param tags  The tags that must all be present, or an empty list.
+     * @param page  The zero-based page number.
+     * @param size  The page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @return The requested page, empty past the last one.
+     */
+    @Transactional(readOnly = true)
+    public CertificatePage searchCertificates(String owner, List<String> tags, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), pageSize, Sort.by("id"));
+        String ownerFilter = owner == null || owner.isBlank() ? null : owner.trim();
+        Set<String> tagNames = normalizeTags(tags);
+        Page<CertificateView> views = tagNames.isEmpty()
+                ? certificateRepository.findViewsByOwner(ownerFilter, pageRequest)
+                : certificateRepository.findViewsByTags(tagNames, tagNames.size(), ownerFilter, pageRequest);
+        return new CertificatePage(views.getContent(), views.getNumber(), pageSize, views.getTotalElements());
+    }
+
+    /**
+     * Returns one page of the certificates matching a TLS posture, for weak-configuration audits
+     * such as endpoints still negotiating TLSv1 or RSA keys under 2048 bits. Null criteria are
+     * ignored, the others must all match.
+     *
+     * @param tlsProtocol        The negotiated protocol, such as TLSv1.
+     * @param keyAlgorithm       The key algorithm, such as RSA.
+     * @param maxKeySize         The largest key size to include, in bits.
+     * @param signatureAlgorithm The signature algorithm, such as SHA1withRSA.
+     * @param page               The zero-based page number.
+     * @param size               The page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @return The requested page, empty past the last one.
+     */
+    @Transactional(readOnly = true)
+    public CertificatePage searchByPosture(String tlsProtocol, String keyAlgorithm, Integer maxKeySize,
+                                           String signatureAlgorithm, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Page<CertificateView> views = certificateRepository.findViewsByPosture(blankToNull(tlsProtocol),
+                blankToNull(keyAlgorithm), maxKeySize, blankToNull(signatureAlgorithm),
+                PageRequest.of(Math.max(0, page), pageSize, Sort.by("id")));
+        return new CertificatePage(views.getContent(), views.getNumber(), pageSize, views.getTotalElements());
+    }
+
+    /**
+     * Counts the certificates by negotiated protocol, cipher suite, key and signature algorithm.
+     *
+     * @return The posture summary.
+     */
+    @Transactional(readOnly = true)
+    public PostureSummary getPostureSummary() {
+        return new PostureSummary(
+                certificateRepository.countByTlsProtocol(),
+                certificateRepository.countByCipherSuite(),
+                certificateRepository.countByKey(),
+                certificateRepository.countBySignatureAlgorithm());
+    }
+
+    /**
+     * Replaces the tags of a certificate, creating the tags that do not exist yet.
+     *
+     * @param certificateId The ID of the certificate.
+     * @param tags          The new tag names; normalized to trimmed lower case.
+     * @return The updated certificate.
+     */
+    @Transactional
+    public Certificate setCertificateTags(Long certificateId, List<String> tags) {
+        Certificate certificate = certificateRepository.findById(certificateId)
+                .orElseThrow(() -> new EntityNotFoundException("Certificate with ID " + certificateId + " not found"));
+        Set<String> tagNames = normalizeTags(tags);
+
+        Set<Tag> resolved = new HashSet<>(tagRepository.findByNameIn(tagNames));
+        List<Tag> created = tagNames.stream()
+                .filter(name -> !resolved.contains(new Tag(name)))
+                .map(Tag::new)
+                .toList();
+        resolved.addAll(tagRepository.saveAll(created));
+
+        certificate.getTags().clear();
+        certificate.getTags().addAll(resolved);
+        return published(Type.SAVED, certificateRepository.save(certificate));
+    }
+
+    /**
+     * Assigns a certificate to an owner.
+     *
+     * @param certificateId The ID of the certificate.
+     * @param owner         The owning team, or null to unassign it.
+     * @return The updated certificate.
+     */
+    @Transactional
+    public Certificate setCertificateOwner(Long certificateId, String owner) {
+        Certificate certificate = certificateRepository.findById(certificateId)
+                .orElseThrow(() -> new EntityNotFoundException("Certificate with ID " + certificateId + " not found"));
+        certificate.setOwner(owner == null || owner.isBlank() ? null : owner.trim());
+        return published(Type.SAVED, certificateRepository.save(certificate));
+    }
+
+    /**
+     * Writes every stored certificate as CSV. Rows are streamed from the database, so memory use
+     * does not grow with the number of certificates.
+     *
+     * @param writer The destination of the CSV content.
+     */
+    @Transactional(readOnly = true)
+    public void exportCertificates(Writer writer) {
+        PrintWriter printWriter = new PrintWriter(writer);
+        printWriter.println("id,url,ipAddress,subject,issuer,validFrom,validTo,owner");
+        try (Stream<CertificateView> certificates = certificateRepository.streamAllViews()) {
+            certificates.forEach(certificate -> printWriter.println(String.join(",",
+                    String.valueOf(certificate.id()),
+                    csvField(certificate.url()),
+                    csvField(certificate.ipAddress()),
+                    csvField(certificate.subject()),
+                    csvField(certificate.issuer()),
+                    csvField(certificate.validFrom() == null ? null : certificate.validFrom().toInstant().toString()),
+                    csvField(certificate.validTo() == null ? null : certificate.validTo().toInstant().toString()),
+                    csvField(certificate.owner()))));
+        }
+        printWriter.flush();
+    }
+
+    /**
+     * Summarizes the stored certificates by expiry bucket, issuer, domain, owner and tag. The counts are
+     * aggregated by the database, so no certificate row is loaded. Only the largest domains are listed.
+     *
+     * @return The dashboard summary.
+     */
+    @Transactional(readOnly = true)
+    public CertificateSummary getCertificateSummary() {
+        Instant now = Instant.now();
+        return new CertificateSummary(
+                certificateRepository.countByExpiryBucket(Date.from(now),
+                        Date.from(now.plus(Duration.ofDays(14))),
+                        Date.from(now.plus(Duration.ofDays(42)))),
+                certificateRepository.countByIssuer(),
+                certificateRepository.countByDomain(PageRequest.of(0, SUMMARY_TOP_DOMAINS)),
+                certificateRepository.countByOwner(),
+                certificateRepository.countByTag());
+    }
+
     public void deleteCertificateById(Long certificateId){
         // Check if the certificate exists before attempting to delete
         if(!certificateRepository.existsById(certificateId)){
             throw new EntityNotFoundException("Certificate with ID "+ certificateId + " not found");
         }
         try{
-            certificateRepository.deleteById(certificateId);
+            transactionTemplate.executeWithoutResult(status -> deleteInChunks(List.of(certificateId)));
         }catch(Exception e){
             // Handle other exceptions
             throw new CertificateDeleteException("Error deleting the certificate");
         }
     }
 
+    /**
+     * Deletes the given certificates with set-based statements, instead of one lookup and one
+     * delete per ID. IDs are sent in chunks of {@value #DELETE_CHUNK_SIZE} to stay within the
+     * bind parameter limits of the database.
+     *
+     * @param certificateIds The IDs to delete; unknown IDs are ignored.
+     * @return The number of certificates deleted.
+     */
+    @Transactional
+    public BulkDeleteResult deleteCertificatesByIds(List<Long> certificateIds) {
+        if (certificateIds == null || certificateIds.isEmpty()) {
+            throw new CertificateServiceException("At least one certificate ID is required.");
+        }
+        return new BulkDeleteResult(deleteInChunks(certificateIds.stream().filter(Objects::nonNull).distinct().toList()));
+    }
+
+    /**
+     * Deletes every certificate matching the filter. The matching rows are selected and locked
+     * first, then deleted by ID in chunks of {@value #DELETE_CHUNK_SIZE}, so a row inserted
+     * meanwhile is left alone and the delete events name exactly the rows deleted.
+     *
+     * @param filter The criteria; at least one must be set.
+     * @return The number of certificates deleted.
+     */
+    @Transactional
+    public BulkDeleteResult deleteCertificatesByFilter(CertificateFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            throw new CertificateServiceException("A delete filter needs at least one criterion.");
+        }
+        String urlPattern = filter.urlPrefix() == null || filter.urlPrefix().isEmpty() ? null
+                : filter.urlPrefix().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        String issuer = filter.issuer() == null || filter.issuer().isEmpty() ? null : filter.issuer();
+        List<CertificateVersion> rows = certificateRepository.lockVersionsByFilter(urlPattern, issuer, filter.expiredBefore());
+        if (rows.isEmpty()) {
+            return new BulkDeleteResult(0);
+        }
+        List<Long> ids = rows.stream().map(CertificateVersion::id).toList();
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            certificateRepository.deleteByIdIn(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+        }
+        changed(rows.stream().map(CertificateEvent::deleted).toList());
+        return new BulkDeleteResult(rows.size());
+    }
+
+    /**
+     * Deletes the certificates chunk by chunk. The rows of each chunk are locked first, so delete
+     * events are only emitted for IDs that existed and that no concurrent delete removed.
+     */
+    private int deleteInChunks(List<Long> ids) {
+        List<CertificateVersion> deleted = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            List<CertificateVersion> existing = certificateRepository.lockVersions(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+            if (!existing.isEmpty()) {
+                certificateRepository.deleteByIdIn(existing.stream().map(CertificateVersion::id).toList());
+                deleted.addAll(existing);
+            }
+        }
+        changed(deleted.stream().map(CertificateEvent::deleted).toList());
+        return deleted.size();
+    }
+
+    /**
+     * Connects to an HTTPS URL and saves its certificate, updating the row already stored for the
+     * URL rather than adding another one, as re-scans do.
+     *
+     * @param url The HTTPS URL to probe.
+     * @return The saved certificate.
+     */
     public Certificate retrieveAndSaveCertificate(String url) {
+        Certificate probed = probeHttpsUrl(url, false);
+        return transactionTemplate.execute(status -> published(Type.SAVED,
+                certificateRepository.save(merge(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc(url), probed))));
+    }
+
+    public Certificate getCertificateInfo(String url) {
+        return getCertificateInfo(url, false);
+    }
+
+    /**
+     * Connects to an HTTPS URL and returns its certificate without saving it.
+     *
+     * @param url            The HTTPS URL to probe.
+     * @param includeTimings Whether to fill in the time spent resolving, connecting, handshaking
+     *                       and waiting for the HTTP response, to tell which one makes a probe slow.
+     * @return The certificate.
+     */
+    public Certificate getCertificateInfo(String url, boolean includeTimings) {
+        return probeHttpsUrl(url, includeTimings);
+    }
+
+    /**
+     * Probes the URL again and updates the certificate stored for it, or saves a new one if the
+     * URL is not tracked yet. Used by scan jobs, so re-scanning a URL does not duplicate rows.
+     * Every scheme, https included, goes through the scan engine so re-scans share its DNS cache
+     * and adaptive concurrency limit.
+     *
+     * @param url The URL to probe.
+     * @return The saved certificate.
+     */
+    public Certificate refreshCertificate(String url) {
         validateUrl(url);
 
-        try {
-            URL urlObject = new URL(url);
+        ScanTarget target = parseTarget(url);
+        Certificate probed = createCertificateInfo(url, scanEngine.probe(target));
+        return saveRescanned(url, probed);
+    }
 
-            if (!"https".equalsIgnoreCase(urlObject.getProtocol())) {
-                throw new CertificateServiceException("Only HTTPS URLs are supported.");
-            }
+    /**
+     * Probes a target, over direct TLS or STARTTLS, and saves its certificate under the target's
+     * URL (for example smtp://mail.example.com:25), updating the row already stored for it.
+     *
+     * @param target The target to probe.
+     * @return The saved certificate.
+     */
+    public Certificate retrieveAndSaveTargetCertificate(ScanTarget target) {
+        if (target.host() == null || target.host().isBlank()) {
+            throw new CertificateServiceException("Target host cannot be null or empty.");
+        }
+        String url = target.toUrl();
+        Certificate probed = createCertificateInfo(url, scanEngine.probe(target));
+        return saveRescanned(url, probed);
+    }
 
-            HttpsURLConnection httpsConnection = (HttpsURLConnection) urlObject.openConnection();
-            int responseCode = httpsConnection.getResponseCode();
+    private Certificate saveRescanned(String url, Certificate probed) {
+        return transactionTemplate.execute(status -> published(Type.RESCANNED,
+                certificateRepository.save(merge(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc(url), probed))));
+    }
 
-            if (responseCode != HttpsURLConnection.HTTP_OK) {
-                throw new CertificateServiceException("Failed to establish HTTPS connection. Response code: " + responseCode);
-            }
+    /**
+     * Resolves every address of the URL's host and probes them concurrently, saving one
+     * certificate per address. Behind a load balancer each backend can serve a different
+     * certificate, which a single connection through the host name would miss.
+     *
+     * @param url The HTTPS URL to probe.
+     * @return The saved certificates, one per address that answered.
+     */
+    public List<Certificate> retrieveAndSaveCertificatesForAllAddresses(String url) {
+        URL urlObject = parseHttpsUrl(url);
+        String host = urlObject.getHost();
+        int port = urlObject.getPort() != -1 ? urlObject.getPort() : urlObject.getDefaultPort();
+        List<CompletableFuture<ProbeResult>> probes =
+                scanEngine.probeAllAddresses(ScanTarget.of(host, port, host, ScanProtocol.TLS));
 
-            Optional<SSLSession> optionalSslSession = httpsConnection.getSSLSession();
-
-            if (optionalSslSession.isPresent()) {
-                SSLSession sslSession = optionalSslSession.get();
-                try {
-                    X509Certificate x509Certificate = extractCertificate(sslSession);
-                    return saveCertificate(url, x509Certificate);
-                } catch (CertificateException e) {
-                    throw new CertificateServiceException("Error while processing the SSL certificate: " + e.getMessage());
-                }
-            } else {
-                throw new CertificateServiceException("No SSL session established.");
+        List<Certificate> probed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (CompletableFuture<ProbeResult> probe : probes) {
+            try {
+                ProbeResult result = probe.join();
+                Certificate certificate = createCertificateInfo(url, result);
+                certificate.setIpAddress(result.address().getAddress().getHostAddress());
+                probed.add(certificate);
+            } catch (CompletionException e) {
+                errors.add(e.getCause().getMessage());
             }
-        } catch (MalformedURLException e) {
-            throw new CertificateServiceException("Invalid URL format - " + e.getMessage());
-        } catch (IOException e) {
-            throw new CertificateServiceException("Error while establishing the HTTPS connection: " + e.getMessage());
         }
+        if (probed.isEmpty()) {
+            throw new CertificateServiceException("No address of " + host + " could be probed: " + String.join("; ", errors));
+        }
+        return transactionTemplate.execute(status -> published(Type.RESCANNED, certificateRepository.saveAll(probed.stream()
+                .map(certificate -> merge(certificateRepository.findFirstByUrlAndIpAddressOrderByIdAsc(url, certificate.getIpAddress()), certificate))
+                .toList())));
     }
 
-    public Certificate getCertificateInfo(String url) {
+    /**
+     * Saves the certificate of an uploaded PEM, DER, PKCS12 or JKS file, without connecting to
+     * the endpoint. Useful for internal hosts unreachable from the tracker. Only the leaf of an
+     * uploaded chain is saved, updating the row already stored for the URL as /add does, so
+     * importing a renewed certificate under the same label replaces the old one.
+     *
+     * @param url      The URL or label the certificate is tracked under.
+     * @param content  The raw bytes of the uploaded file.
+     * @param password The keystore password, or null for PEM and DER content.
+     * @return The saved certificate.
+     */
+    public Certificate importCertificate(String url, byte[] content, String password) {
         validateUrl(url);
 
-        try {
-            URL urlObject = new URL(url);
+        Certificate imported = createCertificateInfo(url, leaf(certificateFileParser.parse(content, password)));
+        return transactionTemplate.execute(status -> published(Type.SAVED,
+                certificateRepository.save(merge(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc(url), imported))));
+    }
 
-            if (!"https".equalsIgnoreCase(urlObject.getProtocol())) {
-                throw new CertificateServiceException("Only HTTPS URLs are supported.");
-            }
+    /**
+     * Returns the end-entity certificate of an uploaded chain: the first certificate, in file
+     * order, that issued none of the others. Self-signed certificates are only their own issuer.
+     */
+    static X509Certificate leaf(List<X509Certificate> certificates) {
+        Set<X500Principal> issuers = certificates.stream()
+                .filter(certificate -> !certificate.getIssuerX500Principal().equals(certificate.getSubjectX500Principal()))
+                .map(X509Certificate::getIssuerX500Principal)
+                .collect(Collectors.toSet());
+        return certificates.stream()
+                .filter(certificate -> !issuers.contains(certificate.getSubjectX500Principal()))
+                .findFirst()
+                .orElse(certificates.get(0));
+    }
 
-            HttpsURLConnection httpsConnection = (HttpsURLConnection) urlObject.openConnection();
-            int responseCode = httpsConnection.getResponseCode();
+    private static Set<String> normalizeTags(List<String> tags) {
+        Set<String> names = new LinkedHashSet<>();
+        if (tags != null) {
+            tags.forEach(tag -> names.add(normalizeTag(tag)));
+        }
+        return names;
+    }
 
-            if (responseCode != HttpsURLConnection.HTTP_OK) {
-                throw new CertificateServiceException("Failed to establish HTTPS connection. Response code: " + responseCode);
-            }
+    /**
+     * Normalizes a tag name to trimmed lower case, so "Prod" and "prod " are the same tag.
+     */
+    static String normalizeTag(String tag) {
+        String name = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        if (name.isEmpty() || name.length() > MAX_TAG_LENGTH) {
+            throw new CertificateServiceException("Invalid tag '" + tag + "', tags must have 1 to " + MAX_TAG_LENGTH + " characters.");
+        }
+        return name;
+    }
 
-            Optional<SSLSession> optionalSslSession = httpsConnection.getSSLSession();
-
-            if (optionalSslSession.isPresent()) {
-                SSLSession sslSession = optionalSslSession.get();
-                try {
-                    X509Certificate x509Certificate = extractCertificate(sslSession);
-                    return createCertificateInfo(url, x509Certificate);
-                } catch (CertificateException e) {
-                    throw new CertificateServiceException("Error while processing the SSL certificate: " + e.getMessage());
-                }
-            } else {
-                throw new CertificateServiceException("No SSL session established.");
-            }
-        } catch (MalformedURLException e) {
-            throw new CertificateServiceException("Invalid URL format - " + e.getMessage());
-        } catch (IOException e) {
-            throw new CertificateServiceException("Error while establishing the HTTPS connection: " + e.getMessage());
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static ScanTarget parseTarget(String url) {
+        try {
+            return ScanTarget.fromUrl(url);
+        } catch (IllegalArgumentException e) {
+            throw new CertificateServiceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Copies freshly probed details onto the stored certificate, if any, so re-scans update rows
+     * rather than duplicating them.
+     */
+    private static Certificate merge(Optional<Certificate> stored, Certificate probed) {
+        if (stored.isEmpty()) {
+            return probed;
         }
+        Certificate certificate = stored.get();
+        certificate.setSubject(probed.getSubject());
+        certificate.setIssuer(probed.getIssuer());
+        certificate.setValidFrom(probed.getValidFrom());
+        certificate.setValidTo(probed.getValidTo());
+        certificate.setRevocationStatus(probed.getRevocationStatus());
+        certificate.setTlsProtocol(probed.getTlsProtocol());
+        certificate.setCipherSuite(probed.getCipherSuite());
+        certificate.setKeyAlgorithm(probed.getKeyAlgorithm());
+        certificate.setKeySize(probed.getKeySize());
+        certificate.setSignatureAlgorithm(probed.getSignatureAlgorithm());
+        certificate.setFingerprint(probed.getFingerprint());
+        return certificate;
     }
 
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
 
     private void validateUrl(String url) {
         if (url == null || url.isEmpty()) {
@@ -128,27 +547,97 @@ public class CertificateService {
         }
     }
 
-    private X509Certificate extractCertificate(SSLSession sslSession) throws CertificateException, IOException {
-        java.security.cert.Certificate[] serverCertificates = sslSession.getPeerCertificates();
+    /**
+     * Probes an HTTPS URL as a browser would, in one traced probe: the chain must be trusted and
+     * match the host, and the server must answer the GET request without an error status.
+     */
+    private Certificate probeHttpsUrl(String url, boolean includeTimings) {
+        URL urlObject = parseHttpsUrl(url);
+        int port = urlObject.getPort() != -1 ? urlObject.getPort() : urlObject.getDefaultPort();
+        String path = urlObject.getFile().isEmpty() ? "/" : urlObject.getFile();
+        ProbeTrace trace = probeTracer.start("https", Map.of("url", url));
+        try {
+            Certificate certificate = createCertificateInfo(url, scanEngine.probeHttps(urlObject.getHost(), port, path, trace), trace);
+            if (includeTimings) {
+                certificate.setTimings(trace.getTimings());
+            }
+            trace.end(null);
+            return certificate;
+        } catch (CertificateServiceException e) {
+            trace.end(e.getMessage());
+            throw e;
+        }
+    }
 
-        if (serverCertificates == null || serverCertificates.length == 0) {
-            throw new CertificateServiceException("No server certificates found.");
+    /**
+     * Records what was just saved in the outbox and tells the event listeners about it. The save
+     * is flushed first, so the events carry the row versions it gave the certificates.
+     */
+    private Certificate published(Type type, Certificate saved) {
+        certificateRepository.flush();
+        changed(List.of(CertificateEvent.saved(type, saved)));
+        return saved;
+    }
+
+    private List<Certificate> published(Type type, List<Certificate> saved) {
+        certificateRepository.flush();
+        changed(saved.stream().map(certificate -> CertificateEvent.saved(type, certificate)).toList());
+        return saved;
+    }
+
+    /**
+     * Must run in the transaction of the change, so the outbox entries are committed with it and
+     * the listeners only hear about it once it is.
+     */
+    private void changed(List<CertificateEvent> events) {
+        certificateOutbox.append(events);
+        certificateEventBus.publish(events);
+    }
+
+    private URL parseHttpsUrl(String url) {
+        validateUrl(url);
+
+        URL urlObject;
+        try {
+            urlObject = new URL(url);
+        } catch (MalformedURLException e) {
+            throw new CertificateServiceException("Invalid URL format - " + e.getMessage());
         }
+        if (!"https".equalsIgnoreCase(urlObject.getProtocol())) {
+            throw new CertificateServiceException("Only HTTPS URLs are supported.");
+        }
+        return urlObject;
+    }
 
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(serverCertificates[0].getEncoded())) {
-            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-            return (X509Certificate) certificateFactory.generateCertificate(inputStream);
+    /**
+     * Builds the certificate of a probe whose trace has already ended, tracing its revocation
+     * check on its own.
+     */
+    private Certificate createCertificateInfo(String url, ProbeResult result) {
+        ProbeTrace trace = probeTracer.start("revocation", Map.of("url", url));
+        try {
+            Certificate certificate = createCertificateInfo(url, result, trace);
+            trace.end(null);
+            return certificate;
+        } catch (RuntimeException e) {
+            trace.end(e.getMessage());
+            throw e;
         }
     }
 
-    private Certificate saveCertificate(String url, X509Certificate x509Certificate) {
-        Certificate certificate = new Certificate();
-        certificate.setUrl(url);
-        certificate.setSubject(x509Certificate.getSubjectX500Principal().getName());
-        certificate.setIssuer(x509Certificate.getIssuerX500Principal().getName());
-        certificate.setValidFrom(x509Certificate.getNotBefore());
-        certificate.setValidTo(x509Certificate.getNotAfter());
-        return certificateRepository.save(certificate);
+    /**
+     * Builds the certificate of a probe, with its revocation check as a span of the probe's trace:
+     * a cold cache can spend seconds fetching CRLs and OCSP responses.
+     */
+    private Certificate createCertificateInfo(String url, ProbeResult result, ProbeTrace trace) {
+        Certificate certificate = createCertificateInfo(url, result.leaf());
+        recordSession(certificate, result.session());
+        certificate.setRevocationStatus(trace.span("revocation", attributes -> {
+            RevocationStatus status = revocationChecker.check(result.chain(), result.stapledResponses());
+            attributes.put("revocation.status", String.valueOf(status));
+            return status;
+        }));
+        return certificate;
     }
 
     private Certificate createCertificateInfo(String url, X509Certificate x509Certificate){
@@ -158,6 +647,43 @@ public class CertificateService {
         certificate.setIssuer(x509Certificate.getIssuerX500Principal().getName());
         certificate.setValidFrom(x509Certificate.getNotBefore());
         certificate.setValidTo(x509Certificate.getNotAfter());
+        certificate.setKeyAlgorithm(x509Certificate.getPublicKey().getAlgorithm());
+        certificate.setKeySize(keySize(x509Certificate.getPublicKey()));
+        certificate.setSignatureAlgorithm(x509Certificate.getSigAlgName());
+        certificate.setFingerprint(fingerprint(x509Certificate));
         return certificate;
     }
+
+    private static String fingerprint(X509Certificate x509Certificate) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(x509Certificate.getEncoded()));
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            throw new CertificateServiceException("Error computing the certificate fingerprint", e);
+        }
+    }
+
+    /**
+     * Records the protocol and cipher suite negotiated in the handshake the certificate came from.
+     */
+    private static void recordSession(Certificate certificate, SSLSession sslSession) {
+        certificate.setTlsProtocol(sslSession.getProtocol());
+        certificate.setCipherSuite(sslSession.getCipherSuite());
+    }
+
+    /**
+     * Returns the size in bits of a public key: the modulus for RSA and DSA, the curve order for
+     * elliptic curves, or null for key types whose size is fixed by their name (EdDSA, XDH).
+     */
+    static Integer keySize(PublicKey publicKey) {
+        if (publicKey instanceof RSAKey rsaKey) {
+            return rsaKey.getModulus().bitLength();
+        }
+        if (publicKey instanceof ECKey ecKey) {
+            return ecKey.getParams().getOrder().bitLength();
+        }
+        if (publicKey instanceof DSAKey dsaKey && dsaKey.getParams() != null) {
+            return dsaKey.getParams().getP().bitLength();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,19 @@
+package com.devops.certtracker.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Resolves a host name to every address it has (A and AAAA records).
+ */
+@FunctionalInterface
+public interface DnsResolver {
+
+    /**
+     * @param host The host name to resolve.
+     * @return Every address of the host, never empty.
+     * @throws UnknownHostException If the host has no address.
+     */
+    List<InetAddress> resolve(String host) throws UnknownHostException;
+}
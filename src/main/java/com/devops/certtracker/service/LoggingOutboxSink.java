@@ -0,0 +1,25 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Writes each change as one key=value log line, for deployments without a downstream system yet.
+ */
+public class LoggingOutboxSink implements OutboxSink {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingOutboxSink.class);
+
+    @Override
+    public void send(List<OutboxMessage> messages) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        for (OutboxMessage message : messages) {
+            logger.info("certificate change id={} type={} certificate={} occurred_at={}",
+                    message.id(), message.type(), message.certificateId(), message.occurredAt());
+        }
+    }
+}
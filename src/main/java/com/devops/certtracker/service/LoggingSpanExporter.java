@@ -0,0 +1,36 @@
+package com.devops.certtracker.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes each span as one key=value log line, so probe phases can be searched and aggregated
+ * with the rest of the logs without a tracing backend.
+ */
+public class LoggingSpanExporter implements SpanExporter {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingSpanExporter.class);
+
+    @Override
+    public void export(List<ProbeSpan> spans) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        for (ProbeSpan span : spans) {
+            StringBuilder line = new StringBuilder(160)
+                    .append("span trace=").append(span.traceId())
+                    .append(" id=").append(span.spanId())
+                    .append(" parent=").append(span.parentSpanId() != null ? span.parentSpanId() : "-")
+                    .append(" name=").append(span.name())
+                    .append(" duration_ms=").append(String.format(Locale.ROOT, "%.3f", span.durationMillis()))
+                    .append(" status=").append(span.error() == null ? "OK" : "ERROR");
+            span.attributes().forEach((key, value) -> line.append(' ').append(key).append('=').append(value));
+            if (span.error() != null) {
+                line.append(" error=\"").append(span.error().replace("\"", "'")).append('"');
+            }
+            logger.info(line.toString());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxEntry;
+import com.devops.certtracker.entity.OutboxMessage;
+import com.devops.certtracker.repository.OutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Forwards the certificate changes written to the outbox to the configured {@link OutboxSink},
+ * by ascending ID, and removes them once the sink has accepted them.
+ * <p>
+ * Delivery is at least once: a crash between the sink accepting a batch and its removal sends the
+ * batch again. Entry IDs are allocated when a change is written, in blocks per instance, so they
+ * do not follow the commit order, and an entry committed late can be sent after entries with
+ * higher IDs. Each message therefore carries the row version of its certificate, which receivers
+ * use to drop stale changes. When the sink fails, the whole relay backs off exponentially rather
+ * than skipping the failed batch. After a failure the oldest entry is retried alone, and once it
+ * has failed the maximum number of attempts it is moved to the dead letter table, so an entry the
+ * sink keeps rejecting cannot block the outbox forever.
+ * <p>
+ * Only the instance holding the lease in certificate_outbox_lock relays, renewing it before every
+ * batch, so several instances never send the same entries. The lease must outlast the sending of
+ * one batch.
+ */
+@Service
+@ConditionalOnProperty(name = "certtracker.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * The longest error message stored on an entry, as per the column length.
+     */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+    private final Duration lockLease;
+    private final Clock clock;
+    private final String owner = UUID.randomUUID().toString();
+
+    private int failures;
+    private Instant retryAt = Instant.MIN;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, OutboxSink outboxSink, TransactionTemplate transactionTemplate,
+                       @Value("${certtracker.outbox.batch-size:100}") int batchSize,
+                       @Value("${certtracker.outbox.max-backoff:5m}") Duration maxBackoff,
+                       @Value("${certtracker.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${certtracker.outbox.lock-lease:1m}") Duration lockLease) {
+        this(outboxRepository, outboxSink, transactionTemplate, batchSize, maxBackoff, maxAttempts, lockLease, Clock.systemUTC());
+    }
+
+    OutboxRelay(OutboxRepository outboxRepository, OutboxSink outboxSink, TransactionTemplate transactionTemplate,
+                int batchSize, Duration maxBackoff, int maxAttempts, Duration lockLease, Clock clock) {
+        this.outboxRepository = outboxRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.lockLease = lockLease;
+        this.clock = clock;
+    }
+
+    /**
+     * Sends the outbox to the sink batch by batch until it is empty or the sink fails. Does
+     * nothing while backing off from a failure, or while another instance holds the lease.
+     *
+     * @return The number of changes delivered.
+     */
+    @Scheduled(fixedDelayString = "${certtracker.outbox.poll-interval-ms:1000}")
+    public synchronized int relay() {
+        if (clock.instant().isBefore(retryAt)) {
+            return 0;
+        }
+        int delivered = 0;
+        while (holdLease()) {
+            int size = failures > 0 ? 1 : batchSize;
+            List<OutboxEntry> batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, size));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = batch.stream().map(OutboxEntry::getId).toList();
+            try {
+                outboxSink.send(batch.stream().map(OutboxRelay::message).toList());
+            } catch (IOException | RuntimeException e) {
+                if (failures > 0 && batch.get(0).getAttempts() + 1 >= maxAttempts) {
+                    deadLetter(batch.get(0), e);
+                    continue;
+                }
+                backOff(ids, e);
+                return delivered;
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteByIdIn(ids));
+            delivered += ids.size();
+            failures = 0;
+            if (batch.size() < size) {
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    private boolean holdLease() {
+        Instant now = clock.instant();
+        Integer acquired = transactionTemplate.execute(status ->
+                outboxRepository.acquireLock(owner, Date.from(now), Date.from(now.plus(lockLease))));
+        return acquired != null && acquired > 0;
+    }
+
+    /**
+     * Moves an entry that failed its last attempt to the dead letter table, and resumes with the
+     * next entries.
+     */
+    private void deadLetter(OutboxEntry entry, Exception e) {
+        List<Long> ids = List.of(entry.getId());
+        String error = truncate(String.valueOf(e.getMessage()));
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.recordFailure(ids, error);
+            outboxRepository.copyToDeadLetter(ids, Date.from(clock.instant()));
+            outboxRepository.deleteByIdIn(ids);
+        });
+        failures = 0;
+        logger.error("Moved {} change {} of certificate {} to the dead letter table after {} failed attempts: {}",
+                entry.getEventType(), entry.getId(), entry.getCertificateId(), entry.getAttempts() + 1, error);
+    }
+
+    private void backOff(List<Long> ids, Exception e) {
+        failures++;
+        Duration backoff = INITIAL_BACKOFF.multipliedBy(1L << Math.min(failures - 1, 30));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        retryAt = clock.instant().plus(backoff);
+
+        String error = String.valueOf(e.getMessage());
+        String truncated = truncate(error);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.recordFailure(ids, truncated));
+        logger.warn("Relaying {} certificate changes failed {} time(s), retrying in {}: {}",
+                ids.size(), failures, backoff, error);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static OutboxMessage message(OutboxEntry entry) {
+        return new OutboxMessage(entry.getId(), entry.getEventType(), entry.getCertificateId(),
+                entry.getCertificateVersion(), entry.getCreatedAt().toInstant(), entry.getPayload());
+    }
+}
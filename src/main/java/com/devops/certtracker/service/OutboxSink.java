@@ -0,0 +1,24 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the certificate changes relayed from the outbox, such as a file read by the CMDB
+ * import or a webhook of the ticketing system.
+ */
+@FunctionalInterface
+public interface OutboxSink {
+
+    /**
+     * Sends a batch of changes. Returning normally means the destination has accepted all of them;
+     * they are then removed from the outbox. After a failure the whole batch is sent again, so the
+     * destination may see a change more than once.
+     *
+     * @param messages The changes, oldest first.
+     * @throws IOException If the destination did not accept the batch.
+     */
+    void send(List<OutboxMessage> messages) throws IOException;
+}
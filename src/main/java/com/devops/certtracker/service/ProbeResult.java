@@ -0,0 +1,32 @@
+package com.devops.certtracker.service;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Outcome of a TLS handshake with a single address.
+ *
+ * @param address The address that was probed.
+ * @param chain   The certificate chain presented by the server, leaf first.
+ * @param session The negotiated TLS session.
+ */
+public record ProbeResult(InetSocketAddress address, List<X509Certificate> chain, SSLSession session) {
+
+    /**
+     * @return The server (leaf) certificate.
+     */
+    public X509Certificate leaf() {
+        return chain.get(0);
+    }
+
+    /**
+     * @return The OCSP responses stapled to the handshake, leaf first, or an empty list when the
+     * server stapled none.
+     */
+    public List<byte[]> stapledResponses() {
+        return session instanceof ExtendedSSLSession extended ? extended.getStatusResponses() : List.of();
+    }
+}
@@ -0,0 +1,28 @@
+package com.devops.certtracker.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A finished span of a probe trace, in the OpenTelemetry data model: one timed phase such as
+ * the DNS lookup or the TLS handshake, linked to its trace and parent span.
+ *
+ * @param traceId       The 32 hex digit ID shared by every span of the trace.
+ * @param spanId        The 16 hex digit ID of the span.
+ * @param parentSpanId  The ID of the enclosing span, or null for the root span.
+ * @param name          The phase, such as dns, connect, tls.handshake or http.
+ * @param start         When the phase started.
+ * @param durationNanos How long the phase took.
+ * @param error         The error that ended the phase, or null if it succeeded.
+ * @param attributes    Details such as the peer address or the negotiated protocol.
+ */
+public record ProbeSpan(String traceId, String spanId, String parentSpanId, String name, Instant start,
+                        long durationNanos, String error, Map<String, String> attributes) {
+
+    /**
+     * @return The duration in milliseconds.
+     */
+    public double durationMillis() {
+        return durationNanos / 1e6;
+    }
+}
@@ -0,0 +1,128 @@
+package com.devops.certtracker.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The trace of one probe: a root span covering the whole probe and one child span per phase
+ * (DNS lookup, TCP connect, TLS handshake, HTTP request). Phases may run on different threads,
+ * as when every address of a host is probed at once. The spans are exported when the trace ends.
+ */
+public class ProbeTrace {
+
+    /**
+     * A phase of the probe, which may record attributes on its span.
+     */
+    @FunctionalInterface
+    public interface Phase<T, E extends Exception> {
+        T run(Map<String, String> attributes) throws E;
+    }
+
+    private static final ProbeTrace DISABLED = new ProbeTrace(null, Map.of(), null);
+
+    private final String traceId;
+    private final String rootSpanId;
+    private final String name;
+    private final Map<String, String> attributes;
+    private final SpanExporter exporter;
+    private final Instant start = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Queue<ProbeSpan> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    ProbeTrace(String name, Map<String, String> attributes, SpanExporter exporter) {
+        this.traceId = randomId(2);
+        this.rootSpanId = randomId(1);
+        this.name = name;
+        this.attributes = attributes;
+        this.exporter = exporter;
+    }
+
+    /**
+     * @return A trace that runs phases without recording them.
+     */
+    public static ProbeTrace disabled() {
+        return DISABLED;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Runs one phase of the probe in its own span. A phase that throws is recorded with its error
+     * before the exception propagates.
+     *
+     * @param name  The name of the phase.
+     * @param phase The work to time.
+     * @return What the phase returned.
+     */
+    public <T, E extends Exception> T span(String name, Phase<T, E> phase) throws E {
+        if (this == DISABLED) {
+            return phase.run(new HashMap<>());
+        }
+        Map<String, String> spanAttributes = new LinkedHashMap<>();
+        Instant spanStart = Instant.now();
+        long spanStartNanos = System.nanoTime();
+        try {
+            T result = phase.run(spanAttributes);
+            spans.add(new ProbeSpan(traceId, randomId(1), rootSpanId, name, spanStart, System.nanoTime() - spanStartNanos,
+                    null, spanAttributes));
+            return result;
+        } catch (Exception e) {
+            spans.add(new ProbeSpan(traceId, randomId(1), rootSpanId, name, spanStart, System.nanoTime() - spanStartNanos,
+                    String.valueOf(e.getMessage()), spanAttributes));
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the root span and exports the trace. Later calls do nothing.
+     *
+     * @param error The error that ended the probe, or null if it succeeded.
+     */
+    public void end(String error) {
+        if (this == DISABLED || !ended.compareAndSet(false, true)) {
+            return;
+        }
+        List<ProbeSpan> finished = new ArrayList<>(spans);
+        finished.add(new ProbeSpan(traceId, rootSpanId, null, name, start, System.nanoTime() - startNanos, error, attributes));
+        try {
+            exporter.export(finished);
+        } catch (RuntimeException e) {
+            // A failing exporter must not fail the probe it traced
+        }
+    }
+
+    /**
+     * Returns the time spent in each phase so far, in milliseconds and in the order the phases
+     * started. Phases run more than once, such as connecting to a second address after the first
+     * failed, are summed.
+     *
+     * @return The phase durations, followed by the total time since the trace started.
+     */
+    public Map<String, Double> getTimings() {
+        Map<String, Double> timings = new LinkedHashMap<>();
+        spans.stream()
+                .sorted((a, b) -> a.start().compareTo(b.start()))
+                .forEach(span -> timings.merge(span.name(), span.durationMillis(), Double::sum));
+        timings.put("total", (System.nanoTime() - startNanos) / 1e6);
+        return timings;
+    }
+
+    private static String randomId(int longs) {
+        StringBuilder id = new StringBuilder(16 * longs);
+        for (int i = 0; i < longs; i++) {
+            id.append(String.format("%016x", ThreadLocalRandom.current().nextLong()));
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.devops.certtracker.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Starts probe traces and hands their spans to the configured {@link SpanExporter}.
+ */
+@Component
+public class ProbeTracer {
+
+    private final SpanExporter exporter;
+
+    public ProbeTracer(SpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Starts the trace of one probe. The caller must end it.
+     *
+     * @param name       The name of the root span, such as probe or https.
+     * @param attributes Attributes of the root span, such as the target URL.
+     * @return The started trace.
+     */
+    public ProbeTrace start(String name, Map<String, String> attributes) {
+        return new ProbeTrace(name, attributes, exporter);
+    }
+}
@@ -0,0 +1,303 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.RenewalClaim;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.exception.RenewalClaimException;
+import com.devops.certtracker.repository.CertificateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * The renewal worklist: one certificate per tracked endpoint, kept in memory in a skip list
+ * ordered by {@code validTo}, so "what expires next" is read from the head of the list instead of
+ * sorting the table. The list is loaded once at startup and then kept in step with the
+ * certificate events of the {@link CertificateEventBus}, without reading the database again.
+ * Events can arrive in another order than their transactions committed in, so the last version
+ * applied is kept per certificate and older events are ignored; a deleted certificate keeps its
+ * version for {@link #DELETED_RETENTION}, long enough for any stale event about it to arrive.
+ * <p>
+ * An endpoint is a URL and address, as in scan snapshots. When several rows share one, such as
+ * an imported chain or rows added before /add updated in place, only the oldest is listed: it is
+ * the row /add and re-scans update, the others are superseded. Rows without a URL are endpoints
+ * of their own.
+ * <p>
+ * Workers claim certificates for a lease; a claimed certificate is skipped by other workers until
+ * it is released, its lease runs out, or it is renewed or deleted.
+ */
+@Service
+public class RenewalWorklist implements CertificateEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(RenewalWorklist.class);
+
+    static final int MAX_LIMIT = 500;
+
+    static final Duration DELETED_RETENTION = Duration.ofHours(1);
+
+    private static final Comparator<CertificateView> BY_EXPIRY =
+            Comparator.comparingLong((CertificateView certificate) -> certificate.validTo().getTime())
+                    .thenComparing(CertificateView::id);
+
+    private record Lease(String worker, Instant expiresAt) {
+    }
+
+    private record Endpoint(String url, String ipAddress, Long certificateId) {
+
+        static Endpoint of(CertificateView certificate) {
+            return certificate.url() == null
+                    ? new Endpoint(null, null, certificate.id())
+                    : new Endpoint(certificate.url(), certificate.ipAddress() == null ? "" : certificate.ipAddress(), null);
+        }
+    }
+
+    private final CertificateRepository certificateRepository;
+    private final Duration defaultLease;
+    private final Clock clock;
+    private final NavigableSet<CertificateView> queue = new ConcurrentSkipListSet<>(BY_EXPIRY);
+    // The certificate listed for each endpoint
+    private final Map<Endpoint, CertificateView> listed = new ConcurrentHashMap<>();
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    // Every row by ID and by endpoint, guarded by this, to find an endpoint's oldest row
+    private final Map<Long, CertificateView> rows = new HashMap<>();
+    private final Map<Endpoint, NavigableMap<Long, CertificateView>> endpoints = new HashMap<>();
+    // The last event version applied per ID, deleted IDs included, guarded by this
+    private final Map<Long, Long> versions = new HashMap<>();
+    // When each deleted ID was removed, oldest first, guarded by this
+    private final Map<Long, Instant> deleted = new LinkedHashMap<>();
+
+    @Autowired
+    public RenewalWorklist(CertificateRepository certificateRepository,
+                           @Value("${certtracker.renewal.lease:15m}") Duration defaultLease) {
+        this(certificateRepository, defaultLease, Clock.systemUTC());
+    }
+
+    RenewalWorklist(CertificateRepository certificateRepository, Duration defaultLease, Clock clock) {
+        this.certificateRepository = certificateRepository;
+        this.defaultLease = defaultLease;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads every stored certificate once the application has started. Certificates saved or
+     * deleted meanwhile are applied on top, as they are afterwards: a row already changed by an
+     * event is not loaded over it, as the event of any later change is still to come.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<CertificateView> certificates = certificateRepository.streamAllViews()) {
+            certificates.forEach(this::loaded);
+        }
+        logger.info("Renewal worklist loaded with {} endpoints", listed.size());
+    }
+
+    /**
+     * Adds, repositions and removes certificates as they change. A certificate whose expiry date
+     * changed has been renewed, so any claim on it is dropped, as is the claim on a certificate
+     * superseded by an older row of its endpoint. Events older than the last one applied to
+     * their certificate are ignored.
+     */
+    @Override
+    public void onEvents(List<CertificateEvent> events) {
+        events.forEach(this::apply);
+    }
+
+    /**
+     * Returns the next certificates to renew that no worker has claimed, soonest expiry first.
+     * Only the head of the list is visited, skipping the claimed certificates.
+     *
+     * @param limit The number of certificates, at most {@value #MAX_LIMIT}.
+     * @return The certificates.
+     */
+    public List<CertificateView> next(int limit) {
+        validateLimit(limit);
+        Instant now = clock.instant();
+        List<CertificateView> next = new ArrayList<>(limit);
+        for (CertificateView certificate : queue) {
+            if (next.size() == limit) {
+                break;
+            }
+            Lease lease = leases.get(certificate.id());
+            if (lease == null || !lease.expiresAt().isAfter(now)) {
+                next.add(certificate);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Claims the next unclaimed certificates for a worker. Concurrent workers never receive the
+     * same certificate while its lease runs.
+     *
+     * @param worker The name of the worker.
+     * @param limit  The number of certificates, at most {@value #MAX_LIMIT}.
+     * @param lease  How long the claims last, or null for the default lease.
+     * @return The claims made, possibly fewer than requested.
+     */
+    public List<RenewalClaim> claim(String worker, int limit, Duration lease) {
+        if (worker == null || worker.isBlank()) {
+            throw new CertificateServiceException("A worker name is required.");
+        }
+        validateLimit(limit);
+        Duration duration = lease == null ? defaultLease : lease;
+        if (duration.isNegative() || duration.isZero()) {
+            throw new CertificateServiceException("The lease must be positive.");
+        }
+        Instant now = clock.instant();
+        Lease claimed = new Lease(worker.trim(), now.plus(duration));
+        List<RenewalClaim> claims = new ArrayList<>(limit);
+        for (CertificateView certificate : queue) {
+            if (claims.size() == limit) {
+                break;
+            }
+            Lease current = leases.compute(certificate.id(), (id, existing) ->
+                    existing == null || !existing.expiresAt().isAfter(now) ? claimed : existing);
+            // Deleted or superseded while being claimed: drop the lease again rather than hand it out
+            if (current == claimed && !queue.contains(certificate)) {
+                leases.remove(certificate.id(), claimed);
+            } else if (current == claimed) {
+                claims.add(new RenewalClaim(certificate, claimed.worker(), claimed.expiresAt()));
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Releases a claim so the certificate is offered again.
+     *
+     * @param certificateId The ID of the claimed certificate.
+     * @param worker        The worker holding the claim.
+     * @throws RenewalClaimException If the certificate is not claimed by the worker.
+     */
+    public void release(Long certificateId, String worker) {
+        Lease lease = leases.get(certificateId);
+        if (lease == null || !lease.worker().equals(worker == null ? null : worker.trim())
+                || !lease.expiresAt().isAfter(clock.instant())) {
+            throw new RenewalClaimException("Certificate with ID " + certificateId + " is not claimed by " + worker);
+        }
+        leases.remove(certificateId, lease);
+    }
+
+    /**
+     * @return The number of endpoints listed.
+     */
+    public int size() {
+        return listed.size();
+    }
+
+    private synchronized void apply(CertificateEvent event) {
+        Long applied = versions.get(event.certificateId());
+        if (applied != null && event.version() < applied) {
+            return;
+        }
+        versions.put(event.certificateId(), event.version());
+        switch (event.type()) {
+            case SAVED, RESCANNED -> put(event.certificate());
+            case DELETED -> {
+                remove(event.certificateId());
+                deleted.put(event.certificateId(), clock.instant());
+                forgetDeleted();
+            }
+        }
+    }
+
+    private synchronized void loaded(CertificateView certificate) {
+        if (!versions.containsKey(certificate.id())) {
+            put(certificate);
+        }
+    }
+
+    /**
+     * Drops the versions of certificates deleted longer than {@link #DELETED_RETENTION} ago.
+     */
+    private void forgetDeleted() {
+        Instant cutoff = clock.instant().minus(DELETED_RETENTION);
+        Iterator<Map.Entry<Long, Instant>> iterator = deleted.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Instant> entry = iterator.next();
+            if (entry.getValue().isAfter(cutoff)) {
+                break;
+            }
+            versions.remove(entry.getKey());
+            iterator.remove();
+        }
+    }
+
+    private synchronized void remove(Long certificateId) {
+        CertificateView previous = rows.remove(certificateId);
+        if (previous != null) {
+            detach(previous);
+        }
+    }
+
+    private synchronized void put(CertificateView certificate) {
+        CertificateView previous = rows.put(certificate.id(), certificate);
+        Endpoint endpoint = Endpoint.of(certificate);
+        if (previous != null && !Endpoint.of(previous).equals(endpoint)) {
+            detach(previous);
+        }
+        endpoints.computeIfAbsent(endpoint, key -> new TreeMap<>()).put(certificate.id(), certificate);
+        relist(endpoint);
+    }
+
+    private void detach(CertificateView row) {
+        Endpoint endpoint = Endpoint.of(row);
+        NavigableMap<Long, CertificateView> endpointRows = endpoints.get(endpoint);
+        endpointRows.remove(row.id());
+        if (endpointRows.isEmpty()) {
+            endpoints.remove(endpoint);
+        }
+        relist(endpoint);
+    }
+
+    /**
+     * Lists the oldest row of the endpoint, if it has an expiry date, in place of the certificate
+     * listed so far.
+     */
+    private void relist(Endpoint endpoint) {
+        NavigableMap<Long, CertificateView> endpointRows = endpoints.get(endpoint);
+        CertificateView oldest = endpointRows == null ? null : endpointRows.firstEntry().getValue();
+        CertificateView next = oldest != null && oldest.validTo() != null ? oldest : null;
+        CertificateView previous = next == null ? listed.remove(endpoint) : listed.put(endpoint, next);
+        if (previous != null) {
+            queue.remove(previous);
+            // Compared as instants: entities loaded by JPA hold Timestamps, which never equal a Date
+            if (next == null || !previous.id().equals(next.id()) || previous.validTo().getTime() != next.validTo().getTime()) {
+                leases.remove(previous.id());
+            }
+        }
+        if (next != null) {
+            queue.add(next);
+        }
+    }
+
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new CertificateServiceException("The limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+    }
+}
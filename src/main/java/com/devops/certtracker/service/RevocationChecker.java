@@ -0,0 +1,439 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.RevocationStatus;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.ContentVerifierProvider;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Checks whether certificates are revoked. The cheapest source is used first: the OCSP response
+ * stapled to the handshake, then a cached OCSP response, then the issuer's CRL (fetched once per
+ * CA and shared by every certificate it issued), and finally an OCSP request to the responder.
+ * <p>
+ * Fetched OCSP responses and CRLs are cached until their nextUpdate (or for the default TTL when
+ * they have none), and concurrent checks needing the same fetch share it. Failed fetches are
+ * remembered for the negative TTL so an unreachable responder is not hammered. Expired entries
+ * are swept periodically, so the caches only hold what can still be reused.
+ * <p>
+ * Servers staple their OCSP response only when asked to, which needs
+ * {@code jdk.tls.client.enableStatusRequestExtension} on: the JDK default, set explicitly in the
+ * launch configuration of the Maven build so it cannot be lost.
+ */
+@Service
+public class RevocationChecker {
+    private static final Logger logger = LoggerFactory.getLogger(RevocationChecker.class);
+
+    // Tolerated clock difference with responders when checking thisUpdate and nextUpdate
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(5);
+
+    /**
+     * A fetched OCSP answer or CRL and the time until which it can be reused. A null value marks a
+     * failed fetch.
+     */
+    private record Fetched<T>(T value, Instant expiresAt) {
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<Fetched<SingleResp>>> ocspCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Fetched<X509CRL>>> crlCache = new ConcurrentHashMap<>();
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Duration defaultTtl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final DigestCalculatorProvider digestCalculatorProvider;
+
+    @Autowired
+    public RevocationChecker(@Value("${certtracker.revocation.timeout:5s}") Duration requestTimeout,
+                             @Value("${certtracker.revocation.default-ttl:1h}") Duration defaultTtl,
+                             @Value("${certtracker.revocation.negative-ttl:5m}") Duration negativeTtl) {
+        this(requestTimeout, defaultTtl, negativeTtl, Clock.systemUTC());
+    }
+
+    RevocationChecker(Duration requestTimeout, Duration defaultTtl, Duration negativeTtl, Clock clock) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.defaultTtl = defaultTtl;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        try {
+            this.digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (OperatorCreationException e) {
+            throw new IllegalStateException("No digest provider for OCSP certificate IDs", e);
+        }
+    }
+
+    /**
+     * Determines the revocation status of the leaf certificate of a chain.
+     *
+     * @param chain            The chain presented by the server, leaf first. It must contain the
+     *                         leaf's issuer, in any position, as it signs OCSP responses and CRLs.
+     * @param stapledResponses The OCSP responses stapled to the handshake, leaf first, possibly empty.
+     * @return The revocation status; never null.
+     */
+    public RevocationStatus check(List<X509Certificate> chain, List<byte[]> stapledResponses) {
+        X509Certificate leaf = chain.get(0);
+        X509Certificate issuer;
+        try {
+            issuer = findIssuer(leaf, chain);
+        } catch (IOException e) {
+            logger.warn("Unable to find the issuer of {}: {}", leaf.getSubjectX500Principal(), e.getMessage());
+            return RevocationStatus.UNKNOWN;
+        }
+        if (issuer == null) {
+            return RevocationStatus.UNKNOWN;
+        }
+        try {
+            CertificateID certificateId = new CertificateID(digestCalculatorProvider.get(CertificateID.HASH_SHA1),
+                    new X509CertificateHolder(issuer.getEncoded()), leaf.getSerialNumber());
+
+            if (!stapledResponses.isEmpty() && stapledResponses.get(0).length > 0) {
+                Fetched<SingleResp> stapled = parseOcspResponse(stapledResponses.get(0), certificateId, issuer);
+                if (stapled.value() != null) {
+                    ocspCache.put(ocspKey(certificateId), CompletableFuture.completedFuture(stapled));
+                    return toStatus(stapled.value());
+                }
+            }
+
+            String ocspKey = ocspKey(certificateId);
+            CompletableFuture<Fetched<SingleResp>> cachedOcsp = ocspCache.get(ocspKey);
+            if (cachedOcsp != null && cachedOcsp.isDone() && isFresh(cachedOcsp) && cachedOcsp.join().value() != null) {
+                return toStatus(cachedOcsp.join().value());
+            }
+
+            for (String crlUrl : crlUrls(leaf)) {
+                X509CRL crl = fetchShared(crlCache, crlUrl, () -> fetchCrl(crlUrl, issuer)).value();
+                if (crl != null) {
+                    return crl.isRevoked(leaf) ? RevocationStatus.REVOKED : RevocationStatus.GOOD;
+                }
+            }
+
+            for (String ocspUrl : ocspUrls(leaf)) {
+                SingleResp response = fetchShared(ocspCache, ocspKey, () -> fetchOcsp(ocspUrl, certificateId, issuer)).value();
+                if (response != null) {
+                    return toStatus(response);
+                }
+            }
+        } catch (OCSPException | OperatorCreationException | IOException | GeneralSecurityException e) {
+            logger.warn("Unable to check the revocation status of {}: {}", leaf.getSubjectX500Principal(), e.getMessage());
+        }
+        return RevocationStatus.UNKNOWN;
+    }
+
+    /**
+     * @return The number of OCSP responses and CRLs currently cached.
+     */
+    public int getCacheSize() {
+        return ocspCache.size() + crlCache.size();
+    }
+
+    /**
+     * Drops the cached OCSP responses and CRLs that have expired. Fetches still in progress are
+     * kept.
+     */
+    @Scheduled(fixedDelayString = "${certtracker.revocation.sweep-interval-ms:600000}")
+    public void evictExpired() {
+        Instant now = clock.instant();
+        ocspCache.values().removeIf(entry -> isExpired(entry, now));
+        crlCache.values().removeIf(entry -> isExpired(entry, now));
+    }
+
+    private static boolean isExpired(CompletableFuture<? extends Fetched<?>> entry, Instant now) {
+        return entry.isDone() && !entry.join().expiresAt().isAfter(now);
+    }
+
+    /**
+     * Returns the certificate of the chain that issued the leaf: its subject is the leaf's issuer
+     * and its subject key identifier is the leaf's authority key identifier, or, when either is
+     * missing, its key verifies the leaf's signature. Servers do not always send their chain in
+     * order.
+     *
+     * @return The issuer, or null when the chain does not contain it.
+     */
+    private static X509Certificate findIssuer(X509Certificate leaf, List<X509Certificate> chain) throws IOException {
+        byte[] authorityKeyId = authorityKeyIdentifier(leaf);
+        for (X509Certificate candidate : chain.subList(1, chain.size())) {
+            if (!candidate.getSubjectX500Principal().equals(leaf.getIssuerX500Principal())) {
+                continue;
+            }
+            byte[] subjectKeyId = subjectKeyIdentifier(candidate);
+            if (authorityKeyId != null && subjectKeyId != null
+                    ? Arrays.equals(authorityKeyId, subjectKeyId) : isSignedBy(leaf, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSignedBy(X509Certificate certificate, X509Certificate issuer) {
+        try {
+            certificate.verify(issuer.getPublicKey());
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static byte[] authorityKeyIdentifier(X509Certificate certificate) throws IOException {
+        ASN1Primitive extension = extension(certificate, Extension.authorityKeyIdentifier);
+        return extension == null ? null : AuthorityKeyIdentifier.getInstance(extension).getKeyIdentifier();
+    }
+
+    private static byte[] subjectKeyIdentifier(X509Certificate certificate) throws IOException {
+        ASN1Primitive extension = extension(certificate, Extension.subjectKeyIdentifier);
+        return extension == null ? null : SubjectKeyIdentifier.getInstance(extension).getKeyIdentifier();
+    }
+
+    /**
+     * Returns the cached value for the key if still fresh, otherwise fetches it on the calling
+     * thread while concurrent callers for the same key wait for that fetch.
+     */
+    private <T> Fetched<T> fetchShared(ConcurrentHashMap<String, CompletableFuture<Fetched<T>>> cache, String key,
+                                       Supplier<Fetched<T>> fetch) {
+        CompletableFuture<Fetched<T>> mine = new CompletableFuture<>();
+        CompletableFuture<Fetched<T>> current = cache.compute(key, (k, existing) ->
+                existing != null && isFresh(existing) ? existing : mine);
+        if (current == mine) {
+            try {
+                mine.complete(fetch.get());
+            } catch (RuntimeException e) {
+                mine.complete(new Fetched<>(null, clock.instant().plus(negativeTtl)));
+                throw e;
+            }
+        }
+        return current.join();
+    }
+
+    private boolean isFresh(CompletableFuture<? extends Fetched<?>> entry) {
+        // A fetch still in progress is shared rather than repeated
+        return !entry.isDone() || entry.join().expiresAt().isAfter(clock.instant());
+    }
+
+    private Fetched<SingleResp> fetchOcsp(String url, CertificateID certificateId, X509Certificate issuer) {
+        try {
+            byte[] request = new OCSPReqBuilder().addRequest(certificateId).build().getEncoded();
+            HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                            .timeout(requestTimeout)
+                            .header("Content-Type", "application/ocsp-request")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(request))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            return parseOcspResponse(response.body(), certificateId, issuer);
+        } catch (IOException | OCSPException e) {
+            logger.warn("OCSP request to {} failed: {}", url, e.getMessage());
+            return new Fetched<>(null, clock.instant().plus(negativeTtl));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Fetched<>(null, clock.instant().plus(negativeTtl));
+        }
+    }
+
+    private Fetched<X509CRL> fetchCrl(String url, X509Certificate issuer) {
+        try {
+            HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                            .timeout(requestTimeout)
+                            .GET()
+                            .build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            X509CRL crl = (X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(response.body()));
+            crl.verify(issuer.getPublicKey());
+            Instant now = clock.instant();
+            if (crl.getNextUpdate() != null && crl.getNextUpdate().toInstant().plus(CLOCK_SKEW).isBefore(now)) {
+                throw new IOException("CRL expired at " + crl.getNextUpdate().toInstant());
+            }
+            return new Fetched<>(crl, expiry(crl.getNextUpdate(), now));
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("CRL download from {} failed: {}", url, e.getMessage());
+            return new Fetched<>(null, clock.instant().plus(negativeTtl));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Fetched<>(null, clock.instant().plus(negativeTtl));
+        }
+    }
+
+    /**
+     * Extracts the answer about one certificate from an OCSP response, provided the response is
+     * successful, current, and signed by the issuer or by a responder the issuer delegated to.
+     */
+    private Fetched<SingleResp> parseOcspResponse(byte[] encoded, CertificateID certificateId, X509Certificate issuer)
+            throws IOException, OCSPException {
+        Instant now = clock.instant();
+        Fetched<SingleResp> unusable = new Fetched<>(null, now.plus(negativeTtl));
+        OCSPResp ocspResponse = new OCSPResp(encoded);
+        if (ocspResponse.getStatus() != OCSPResp.SUCCESSFUL
+                || !(ocspResponse.getResponseObject() instanceof BasicOCSPResp basicResponse)
+                || !isSignedByIssuer(basicResponse, issuer)) {
+            return unusable;
+        }
+        for (SingleResp single : basicResponse.getResponses()) {
+            if (!single.getCertID().getSerialNumber().equals(certificateId.getSerialNumber())
+                    || !matchesIssuer(single.getCertID(), certificateId)) {
+                continue;
+            }
+            if (single.getThisUpdate().toInstant().minus(CLOCK_SKEW).isAfter(now)
+                    || single.getNextUpdate() != null && single.getNextUpdate().toInstant().plus(CLOCK_SKEW).isBefore(now)) {
+                return unusable;
+            }
+            return new Fetched<>(single, expiry(single.getNextUpdate(), now));
+        }
+        return unusable;
+    }
+
+    private static boolean matchesIssuer(CertificateID responseId, CertificateID requestId) {
+        if (!responseId.getHashAlgOID().equals(requestId.getHashAlgOID())) {
+            // Responders may answer with another hash algorithm, the serial number and signature then have to do
+            return true;
+        }
+        return Arrays.equals(responseId.getIssuerKeyHash(), requestId.getIssuerKeyHash())
+                && Arrays.equals(responseId.getIssuerNameHash(), requestId.getIssuerNameHash());
+    }
+
+    private boolean isSignedByIssuer(BasicOCSPResp response, X509Certificate issuer) {
+        try {
+            if (response.isSignatureValid(verifier(issuer.getPublicKey()))) {
+                return true;
+            }
+            // Delegated responder: its certificate is issued by the CA for OCSP signing only
+            for (X509CertificateHolder responder : response.getCerts()) {
+                ExtendedKeyUsage usage = responder.getExtensions() != null
+                        ? ExtendedKeyUsage.fromExtensions(responder.getExtensions()) : null;
+                if (usage != null && usage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning)
+                        && responder.isSignatureValid(verifier(issuer.getPublicKey()))
+                        && response.isSignatureValid(new JcaContentVerifierProviderBuilder().build(responder))) {
+                    return true;
+                }
+            }
+        } catch (OperatorCreationException | OCSPException | CertException | GeneralSecurityException e) {
+            logger.warn("Unable to verify an OCSP response signature: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private static ContentVerifierProvider verifier(PublicKey key) throws OperatorCreationException {
+        return new JcaContentVerifierProviderBuilder().build(key);
+    }
+
+    private Instant expiry(Date nextUpdate, Instant now) {
+        return nextUpdate == null ? now.plus(defaultTtl) : nextUpdate.toInstant();
+    }
+
+    private static RevocationStatus toStatus(SingleResp response) {
+        Object status = response.getCertStatus();
+        if (status == CertificateStatus.GOOD) {
+            return RevocationStatus.GOOD;
+        }
+        return status instanceof RevokedStatus ? RevocationStatus.REVOKED : RevocationStatus.UNKNOWN;
+    }
+
+    private static String ocspKey(CertificateID certificateId) {
+        return HexFormat.of().formatHex(certificateId.getIssuerKeyHash()) + ":" + certificateId.getSerialNumber().toString(16);
+    }
+
+    private static List<String> ocspUrls(X509Certificate certificate) throws IOException {
+        List<String> urls = new ArrayList<>();
+        ASN1Primitive extension = extension(certificate, Extension.authorityInfoAccess);
+        if (extension != null) {
+            for (AccessDescription description : AuthorityInformationAccess.getInstance(extension).getAccessDescriptions()) {
+                if (AccessDescription.id_ad_ocsp.equals(description.getAccessMethod())) {
+                    addHttpUrl(urls, description.getAccessLocation());
+                }
+            }
+        }
+        return urls;
+    }
+
+    private static List<String> crlUrls(X509Certificate certificate) throws IOException {
+        List<String> urls = new ArrayList<>();
+        ASN1Primitive extension = extension(certificate, Extension.cRLDistributionPoints);
+        if (extension != null) {
+            for (DistributionPoint point : CRLDistPoint.getInstance(extension).getDistributionPoints()) {
+                DistributionPointName name = point.getDistributionPoint();
+                if (name != null && name.getType() == DistributionPointName.FULL_NAME) {
+                    for (GeneralName generalName : GeneralNames.getInstance(name.getName()).getNames()) {
+                        addHttpUrl(urls, generalName);
+                    }
+                }
+            }
+        }
+        return urls;
+    }
+
+    private static void addHttpUrl(List<String> urls, GeneralName name) {
+        if (name.getTagNo() == GeneralName.uniformResourceIdentifier) {
+            String url = name.getName().toString();
+            // LDAP locations are left out, only HTTP is fetched
+            if (url.startsWith("http://") || url.startsWith("https://")) {
+                urls.add(url);
+            }
+        }
+    }
+
+    private static ASN1Primitive extension(X509Certificate certificate, ASN1ObjectIdentifier oid) throws IOException {
+        byte[] value = certificate.getExtensionValue(oid.getId());
+        return value == null ? null : JcaX509ExtensionUtils.parseExtensionValue(value);
+    }
+}
@@ -0,0 +1,206 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.exception.CertificateServiceException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for probing scan targets, whatever their protocol. Host names go through
+ * the DNS cache, concurrent probes run on the probe executor of scan jobs or on the one of API
+ * requests, and the number of handshakes in flight is capped by the adaptive concurrency limiter.
+ * Every probe is traced, with one span per phase.
+ */
+@Service
+public class ScanEngine {
+
+    // As many as HttpsURLConnection follows
+    private static final int MAX_REDIRECTS = 20;
+
+    private final CachingDnsResolver dnsResolver;
+    private final TlsProbe tlsProbe;
+    private final Executor probeExecutor;
+    private final Executor interactiveProbeExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ProbeTracer tracer;
+
+    public ScanEngine(CachingDnsResolver dnsResolver, TlsProbe tlsProbe, @Qualifier("probeExecutor") Executor probeExecutor,
+                      @Qualifier("interactiveProbeExecutor") Executor interactiveProbeExecutor,
+                      AdaptiveConcurrencyLimiter concurrencyLimiter, ProbeTracer tracer) {
+        this.dnsResolver = dnsResolver;
+        this.tlsProbe = tlsProbe;
+        this.probeExecutor = probeExecutor;
+        this.interactiveProbeExecutor = interactiveProbeExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Probes the target through the first of its addresses that completes a handshake.
+     *
+     * @param target The target to probe.
+     * @return The presented chain and negotiated session.
+     * @throws CertificateServiceException If no address could be probed.
+     */
+    public ProbeResult probe(ScanTarget target) {
+        ProbeTrace trace = tracer.start("probe", Map.of("url", target.toUrl()));
+        try {
+            CertificateServiceException lastError = null;
+            for (InetAddress address : resolve(target.host(), trace)) {
+                try {
+                    ProbeResult result = limited(target.toUrl(), () ->
+                            tlsProbe.probe(new InetSocketAddress(address, target.port()), target.sniName(), target.protocol(), trace));
+                    trace.end(null);
+                    return result;
+                } catch (CertificateServiceException e) {
+                    lastError = e;
+                }
+            }
+            throw lastError;
+        } catch (CertificateServiceException e) {
+            trace.end(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Probes an HTTPS URL through the first of its addresses that answers, validating the chain
+     * and host name and sending a GET request as a browser would: through the JVM's proxy if one
+     * is configured for the URL, and following up to {@value #MAX_REDIRECTS} redirects to other
+     * HTTPS URLs. The chain returned is the one of the URL that finally answered.
+     *
+     * @param host  The host name of the URL.
+     * @param port  The port of the URL.
+     * @param path  The path and query of the URL.
+     * @param trace The trace recording the DNS, connect, handshake and HTTP phases; the caller
+     *              ends it.
+     * @return The presented chain and negotiated session.
+     * @throws CertificateServiceException If no address could be probed, or the redirects lead
+     *                                     nowhere.
+     */
+    public ProbeResult probeHttps(String host, int port, String path, ProbeTrace trace) {
+        for (int redirects = 0; ; redirects++) {
+            TlsProbe.HttpsResponse response = probeHttpsOnce(host, port, path, trace);
+            if (!response.isRedirect()) {
+                return response.result();
+            }
+            URI target;
+            try {
+                target = new URI("https", null, host, port, null, null, null).resolve(new URI(path)).resolve(response.location());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                throw new CertificateServiceException("Invalid redirect from https://" + host + ":" + port + path + ": " + response.location());
+            }
+            if (!"https".equalsIgnoreCase(target.getScheme()) || target.getHost() == null || redirects == MAX_REDIRECTS) {
+                // Not followed, as HttpsURLConnection would not either
+                throw new CertificateServiceException("Failed to establish HTTPS connection. Response code: " + response.status());
+            }
+            host = target.getHost().startsWith("[") ? target.getHost().substring(1, target.getHost().length() - 1) : target.getHost();
+            port = target.getPort() != -1 ? target.getPort() : 443;
+            path = target.getRawPath() == null || target.getRawPath().isEmpty() ? "/" : target.getRawPath();
+            if (target.getRawQuery() != null) {
+                path += "?" + target.getRawQuery();
+            }
+        }
+    }
+
+    /**
+     * Probes one HTTPS URL without following redirects. Only the connect and handshake count
+     * against the concurrency limit: the server's response time says nothing about handshake load.
+     */
+    private TlsProbe.HttpsResponse probeHttpsOnce(String host, int port, String path, ProbeTrace trace) {
+        Proxy proxy = tlsProbe.proxyFor(host, port);
+        List<InetSocketAddress> addresses = proxy.type() == Proxy.Type.DIRECT
+                ? resolve(host, trace).stream().map(address -> new InetSocketAddress(address, port)).toList()
+                // The proxy resolves the host name
+                : List.of(InetSocketAddress.createUnresolved(host, port));
+        CertificateServiceException lastError = null;
+        for (InetSocketAddress address : addresses) {
+            try (TlsProbe.HttpsConnection connection = limited("https://" + host + ":" + port, () ->
+                    tlsProbe.connectHttps(address, host, proxy, trace))) {
+                return tlsProbe.get(connection, path, trace);
+            } catch (CertificateServiceException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Asynchronous variant of {@link #probe(ScanTarget)}, run on the probe executor.
+     */
+    public CompletableFuture<ProbeResult> probeAsync(ScanTarget target) {
+        return CompletableFuture.supplyAsync(() -> probe(target), probeExecutor);
+    }
+
+    /**
+     * Probes every address of the target concurrently, on the executor of API requests.
+     *
+     * @param target The target to probe.
+     * @return One future per address, completing with that address's result or exceptionally
+     * with a {@link CertificateServiceException}.
+     */
+    public List<CompletableFuture<ProbeResult>> probeAllAddresses(ScanTarget target) {
+        ProbeTrace trace = tracer.start("probe.all-addresses", Map.of("url", target.toUrl()));
+        List<InetAddress> addresses;
+        try {
+            addresses = resolve(target.host(), trace);
+        } catch (CertificateServiceException e) {
+            trace.end(e.getMessage());
+            throw e;
+        }
+        List<CompletableFuture<ProbeResult>> probes = addresses.stream()
+                .map(address -> CompletableFuture.supplyAsync(() -> limited(target.toUrl(), () ->
+                        tlsProbe.probe(new InetSocketAddress(address, target.port()), target.sniName(), target.protocol(), trace)),
+                        interactiveProbeExecutor))
+                .toList();
+        CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> trace.end(null));
+        return probes;
+    }
+
+    /**
+     * Runs one handshake within the adaptive concurrency limit, feeding its latency back to the
+     * limiter, which compares it with earlier handshakes with the same URL.
+     */
+    private <T> T limited(String url, Supplier<T> handshake) {
+        try {
+            concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertificateServiceException("Interrupted while waiting to probe " + url);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = handshake.get();
+            success = true;
+            return result;
+        } finally {
+            concurrencyLimiter.release(url, System.nanoTime() - start, success);
+        }
+    }
+
+    private List<InetAddress> resolve(String host, ProbeTrace trace) {
+        try {
+            return trace.span("dns", attributes -> {
+                attributes.put("net.peer.name", host);
+                List<InetAddress> addresses = dnsResolver.resolve(host);
+                attributes.put("dns.answers", String.valueOf(addresses.size()));
+                return addresses;
+            });
+        } catch (UnknownHostException e) {
+            throw new CertificateServiceException("Unable to resolve " + host + ": " + e.getMessage());
+        }
+    }
+}
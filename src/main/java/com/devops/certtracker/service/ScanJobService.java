@@ -0,0 +1,161 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.ScanJob;
+import com.devops.certtracker.entity.ScanJobRequest;
+import com.devops.certtracker.entity.ScanResult;
+import com.devops.certtracker.entity.ScanResultPage;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.exception.ScanJobNotFoundException;
+import com.devops.certtracker.exception.ScanJobRejectedException;
+import com.devops.certtracker.repository.CertificateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs certificate scans as background jobs. Submitting returns immediately with a job ID that
+ * can be polled; each job runs on the bounded scan job executor and hands its URLs to the scan
+ * scheduler, which paces them per domain, while the scan engine's adaptive limiter decides how
+ * many handshakes run at once.
+ */
+@Service
+public class ScanJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ScanJobService.class);
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    @Qualifier("scanJobExecutor")
+    private ThreadPoolTaskExecutor scanJobExecutor;
+
+    @Autowired
+    private ScanScheduler scanScheduler;
+
+    @Value("${certtracker.jobs.retained:200}")
+    private int retainedJobs;
+
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+
+    // Submission order, used to evict the oldest finished jobs
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Queues a scan job.
+     *
+     * @param request The URLs to scan, a tag whose URLs to re-scan, or "all" to re-scan every stored URL.
+     * @return The queued job.
+     * @throws ScanJobRejectedException If the job queue is full.
+     */
+    public ScanJob submit(ScanJobRequest request) {
+        List<String> urls;
+        if (request.isAll()) {
+            urls = certificateRepository.findDistinctUrls();
+        } else if (request.getTag() != null) {
+            urls = certificateRepository.findDistinctUrlsByTag(CertificateService.normalizeTag(request.getTag()));
+        } else {
+            urls = request.getUrls();
+        }
+        if (urls == null || urls.isEmpty()) {
+            throw new CertificateServiceException("A scan job needs at least one URL.");
+        }
+
+        ScanJob job = new ScanJob(urls);
+        try {
+            scanJobExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            throw new ScanJobRejectedException("Too many scan jobs queued, try again later.", e);
+        }
+        jobs.put(job.getId(), job);
+        jobOrder.add(job.getId());
+        evictFinishedJobs();
+        return job;
+    }
+
+    public ScanJob getJob(String jobId) {
+        ScanJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ScanJobNotFoundException("Scan job with ID " + jobId + " not found");
+        }
+        return job;
+    }
+
+    /**
+     * Returns one page of the results of a job. While the job runs every result is kept; once it
+     * has finished only the failures are.
+     *
+     * @param jobId The job ID.
+     * @param after The cursor returned with the previous page, or 0 for the first page.
+     * @param size  The page size, capped at {@value CertificateService#MAX_PAGE_SIZE}.
+     * @return The page.
+     * @throws ScanJobNotFoundException If the job is unknown or has been evicted.
+     */
+    public ScanResultPage getResults(String jobId, int after, int size) {
+        return getJob(jobId).getResults(after, Math.max(1, Math.min(size, CertificateService.MAX_PAGE_SIZE)));
+    }
+
+    public List<ScanJob> getJobs() {
+        List<ScanJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(ScanJob::getSubmittedAt).reversed());
+        return list;
+    }
+
+    /**
+     * @return The number of jobs waiting for a worker thread.
+     */
+    public int getQueueDepth() {
+        return scanJobExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    private void run(ScanJob job) {
+        job.start();
+        try {
+            scanScheduler.submitAll(job.getUrls(), url -> job.addResult(scan(url))).join();
+            job.complete();
+        } catch (RuntimeException e) {
+            logger.error("Scan job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private ScanResult scan(String url) {
+        try {
+            Certificate certificate = certificateService.refreshCertificate(url);
+            return ScanResult.success(url, certificate);
+        } catch (CertificateServiceException e) {
+            return ScanResult.failure(url, e.getMessage());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        int excess = jobOrder.size() - retainedJobs;
+        for (String jobId : jobOrder) {
+            if (excess <= 0) {
+                return;
+            }
+            ScanJob job = jobs.get(jobId);
+            if (job == null || job.isFinished()) {
+                jobs.remove(jobId);
+                jobOrder.remove(jobId);
+                excess--;
+            }
+        }
+    }
+}
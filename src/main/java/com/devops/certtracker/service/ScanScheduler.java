@@ -0,0 +1,146 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches scan work politely: URLs are grouped by registrable domain (or IP address), each
+ * group draws from its own token bucket, and dispatch rotates across groups so a large group is
+ * paced without holding back the others. Buckets are shared by all jobs, so two jobs scanning the
+ * same organization do not add up to twice the rate.
+ * <p>
+ * Work is only dispatched while fewer URLs are running than the adaptive concurrency limit
+ * allows, and the token is taken at that moment: each URL starts as soon as it has its token,
+ * instead of waiting in the executor's queue and then running back-to-back with the rest of its
+ * group.
+ */
+@Component
+public class ScanScheduler {
+
+    // Upper bound of a wait for a free slot, so a raised concurrency limit is noticed
+    private static final long SLOT_WAIT_MILLIS = 10;
+
+    private final Executor probeExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // URLs dispatched by every job and not completed yet, guarded by this
+    private int running;
+
+    @Autowired
+    public ScanScheduler(@Qualifier("probeExecutor") Executor probeExecutor, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                         @Value("${certtracker.scan.rate-per-domain:5}") double permitsPerSecond,
+                         @Value("${certtracker.scan.burst-per-domain:5}") int burst) {
+        this.probeExecutor = probeExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Runs the work for every URL on the probe executor, at the per-group rate and within the
+     * concurrency limit. Blocks the calling thread while pacing the dispatch, so the caller should
+     * be a background worker.
+     *
+     * @param urls The URLs to process.
+     * @param work The work to run for each URL.
+     * @return A future completing once the work for every URL has completed.
+     */
+    public CompletableFuture<Void> submitAll(List<String> urls, Consumer<String> work) {
+        Map<String, Queue<String>> groups = new LinkedHashMap<>();
+        for (String url : urls) {
+            groups.computeIfAbsent(groupKey(url), key -> new ArrayDeque<>()).add(url);
+        }
+
+        List<CompletableFuture<Void>> dispatched = new ArrayList<>(urls.size());
+        while (!groups.isEmpty()) {
+            long shortestWait = Long.MAX_VALUE;
+            boolean progress = false;
+            for (Iterator<Map.Entry<String, Queue<String>>> it = groups.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Queue<String>> group = it.next();
+                acquireSlot();
+                long wait = buckets.computeIfAbsent(group.getKey(), key -> new TokenBucket(permitsPerSecond, burst)).tryAcquire();
+                if (wait > 0) {
+                    releaseSlot();
+                    shortestWait = Math.min(shortestWait, wait);
+                    continue;
+                }
+                String url = group.getValue().poll();
+                dispatched.add(dispatch(() -> work.accept(url)));
+                progress = true;
+                if (group.getValue().isEmpty()) {
+                    it.remove();
+                }
+            }
+            if (!progress) {
+                LockSupport.parkNanos(shortestWait);
+            }
+        }
+        buckets.values().removeIf(TokenBucket::isIdle);
+        return CompletableFuture.allOf(dispatched.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> dispatch(Runnable task) {
+        try {
+            return CompletableFuture.runAsync(task, probeExecutor).whenComplete((ignored, error) -> releaseSlot());
+        } catch (RuntimeException e) {
+            releaseSlot();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until fewer URLs are running than the concurrency limit allows, then takes a slot.
+     */
+    private synchronized void acquireSlot() {
+        while (running >= concurrencyLimiter.getLimit()) {
+            try {
+                wait(SLOT_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while dispatching scan work");
+            }
+        }
+        running++;
+    }
+
+    private synchronized void releaseSlot() {
+        running--;
+        notifyAll();
+    }
+
+    /**
+     * @return The number of groups with a bucket that has not refilled yet.
+     */
+    public int getActiveGroups() {
+        return buckets.size();
+    }
+
+    /**
+     * Returns the rate-limiting group of a URL: its registrable domain or IP address.
+     *
+     * @see ScanTarget#domainOf(String)
+     */
+    static String groupKey(String url) {
+        return ScanTarget.domainOf(url);
+    }
+}
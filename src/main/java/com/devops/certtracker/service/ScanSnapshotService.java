@@ -0,0 +1,237 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.EndpointChange;
+import com.devops.certtracker.entity.EndpointDiff;
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotDiffSummary;
+import com.devops.certtracker.entity.SnapshotEndpoint;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.exception.EntityNotFoundException;
+import com.devops.certtracker.repository.ScanSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Takes snapshots of the tracked endpoints and compares two of them, to see which endpoints a
+ * mass renewal rotated, which it missed and which now serve a certificate from another issuer.
+ * <p>
+ * A comparison never loads a whole snapshot: both are read in endpoint order, a chunk at a time
+ * with keyset pagination, and merged like two sorted files. Memory stays at two chunks whatever
+ * the size of the fleet.
+ */
+@Service
+public class ScanSnapshotService {
+    static final int MAX_LABEL_LENGTH = 100;
+
+    @Autowired
+    private ScanSnapshotRepository scanSnapshotRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${certtracker.snapshots.diff-chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Copies every tracked endpoint and its current certificate into a new snapshot.
+     *
+     * @param label A free-form label, or null.
+     * @return The snapshot.
+     */
+    @Transactional
+    public ScanSnapshot createSnapshot(String label) {
+        String trimmed = label == null || label.isBlank() ? null : label.trim();
+        if (trimmed != null && trimmed.length() > MAX_LABEL_LENGTH) {
+            throw new CertificateServiceException("Snapshot labels are limited to " + MAX_LABEL_LENGTH + " characters.");
+        }
+        ScanSnapshot snapshot = scanSnapshotRepository.saveAndFlush(new ScanSnapshot(trimmed, new Date()));
+        snapshot.setEndpoints(scanSnapshotRepository.copyEndpoints(snapshot.getId()));
+        return snapshot;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScanSnapshot> getSnapshots() {
+        return scanSnapshotRepository.findAllByOrderByIdDesc();
+    }
+
+    @Transactional(readOnly = true)
+    public ScanSnapshot getSnapshot(Long snapshotId) {
+        return scanSnapshotRepository.findById(snapshotId)
+                .orElseThrow(() -> new EntityNotFoundException("Snapshot with ID " + snapshotId + " not found"));
+    }
+
+    /**
+     * Deletes a snapshot; its endpoints are removed by the foreign key cascade.
+     *
+     * @param snapshotId The ID of the snapshot.
+     */
+    @Transactional
+    public void deleteSnapshot(Long snapshotId) {
+        scanSnapshotRepository.delete(getSnapshot(snapshotId));
+    }
+
+    /**
+     * Compares two snapshots and writes the differing endpoints as newline-delimited JSON, one
+     * {@link EndpointDiff} per line in endpoint order, as they are found.
+     *
+     * @param fromSnapshotId The ID of the earlier snapshot.
+     * @param toSnapshotId   The ID of the later snapshot.
+     * @param changes        The kinds of change to write, or null or empty for all of them.
+     * @param writer         The destination of the lines.
+     * @return The counts of every kind of change, written or not.
+     */
+    @Transactional(readOnly = true)
+    public SnapshotDiffSummary writeDiff(Long fromSnapshotId, Long toSnapshotId, Set<EndpointChange> changes,
+                                         Writer writer) {
+        SnapshotDiffSummary summary = diff(fromSnapshotId, toSnapshotId, changes, endpointDiff -> {
+            try {
+                writer.write(objectMapper.writeValueAsString(endpointDiff));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summary;
+    }
+
+    /**
+     * Compares two snapshots.
+     *
+     * @param fromSnapshotId The ID of the earlier snapshot.
+     * @param toSnapshotId   The ID of the later snapshot.
+     * @param changes        The kinds of change to hand to the consumer, or null or empty for all.
+     * @param consumer       Receives the matching endpoints in endpoint order.
+     * @return The counts of every kind of change.
+     */
+    @Transactional(readOnly = true)
+    public SnapshotDiffSummary diff(Long fromSnapshotId, Long toSnapshotId, Set<EndpointChange> changes,
+                                    Consumer<EndpointDiff> consumer) {
+        getSnapshot(fromSnapshotId);
+        getSnapshot(toSnapshotId);
+        Set<EndpointChange> wanted = changes == null || changes.isEmpty() ? EnumSet.allOf(EndpointChange.class) : changes;
+        Map<EndpointChange, Long> counts = new EnumMap<>(EndpointChange.class);
+
+        Iterator<SnapshotEndpoint> before = new EndpointCursor(fromSnapshotId);
+        Iterator<SnapshotEndpoint> after = new EndpointCursor(toSnapshotId);
+        SnapshotEndpoint left = before.hasNext() ? before.next() : null;
+        SnapshotEndpoint right = after.hasNext() ? after.next() : null;
+        while (left != null || right != null) {
+            int order = left == null ? 1 : right == null ? -1 : compareKeys(left, right);
+            EndpointDiff endpointDiff;
+            if (order < 0) {
+                endpointDiff = endpointDiff(EndpointChange.REMOVED, left, null);
+                left = before.hasNext() ? before.next() : null;
+            } else if (order > 0) {
+                endpointDiff = endpointDiff(EndpointChange.ADDED, null, right);
+                right = after.hasNext() ? after.next() : null;
+            } else {
+                endpointDiff = endpointDiff(compare(left, right), left, right);
+                left = before.hasNext() ? before.next() : null;
+                right = after.hasNext() ? after.next() : null;
+            }
+            counts.merge(endpointDiff.change(), 1L, Long::sum);
+            if (wanted.contains(endpointDiff.change())) {
+                consumer.accept(endpointDiff);
+            }
+        }
+        return new SnapshotDiffSummary(fromSnapshotId, toSnapshotId,
+                counts.getOrDefault(EndpointChange.ADDED, 0L),
+                counts.getOrDefault(EndpointChange.REMOVED, 0L),
+                counts.getOrDefault(EndpointChange.ROTATED, 0L),
+                counts.getOrDefault(EndpointChange.ISSUER_CHANGED, 0L),
+                counts.getOrDefault(EndpointChange.UNCHANGED, 0L));
+    }
+
+    /**
+     * Orders endpoints the way the primary key of the snapshot entries sorts them.
+     */
+    static int compareKeys(SnapshotEndpoint a, SnapshotEndpoint b) {
+        int order = a.url().compareTo(b.url());
+        return order != 0 ? order : a.ipAddress().compareTo(b.ipAddress());
+    }
+
+    /**
+     * Tells how the certificate of an endpoint present in both snapshots changed. Fingerprints are
+     * compared when both are known; rows saved before fingerprints were recorded fall back to the
+     * subject, issuer and validity, which a renewal always changes.
+     */
+    static EndpointChange compare(SnapshotEndpoint before, SnapshotEndpoint after) {
+        boolean same = before.fingerprint() != null && after.fingerprint() != null
+                ? before.fingerprint().equals(after.fingerprint())
+                : Objects.equals(before.subject(), after.subject()) && Objects.equals(before.issuer(), after.issuer())
+                        && sameInstant(before.validFrom(), after.validFrom()) && sameInstant(before.validTo(), after.validTo());
+        if (same) {
+            return EndpointChange.UNCHANGED;
+        }
+        return Objects.equals(before.issuer(), after.issuer()) ? EndpointChange.ROTATED : EndpointChange.ISSUER_CHANGED;
+    }
+
+    private static boolean sameInstant(Date a, Date b) {
+        return a == null ? b == null : b != null && a.getTime() == b.getTime();
+    }
+
+    private static EndpointDiff endpointDiff(EndpointChange change, SnapshotEndpoint before, SnapshotEndpoint after) {
+        SnapshotEndpoint endpoint = before != null ? before : after;
+        return new EndpointDiff(change, endpoint.url(), endpoint.ipAddress().isEmpty() ? null : endpoint.ipAddress(),
+                before, after);
+    }
+
+    /**
+     * Reads the endpoints of a snapshot in key order, one chunk at a time.
+     */
+    private class EndpointCursor implements Iterator<SnapshotEndpoint> {
+        private final Long snapshotId;
+        private List<SnapshotEndpoint> chunk;
+        private int position;
+        private SnapshotEndpoint last;
+
+        EndpointCursor(Long snapshotId) {
+            this.snapshotId = snapshotId;
+            this.chunk = scanSnapshotRepository.findFirstEndpoints(snapshotId, PageRequest.of(0, chunkSize));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position == chunk.size() && chunk.size() == chunkSize) {
+                chunk = scanSnapshotRepository.findEndpointsAfter(snapshotId, last.url(), last.ipAddress(),
+                        PageRequest.of(0, chunkSize));
+                position = 0;
+            }
+            return position < chunk.size();
+        }
+
+        @Override
+        public SnapshotEndpoint next() {
+            SnapshotEndpoint endpoint = chunk.get(position++);
+            // The merge is only correct if the database sorts keys as compareKeys does
+            if (last != null && compareKeys(last, endpoint) >= 0) {
+                throw new IllegalStateException("Snapshot " + snapshotId + " endpoints are not in key order after "
+                        + last.url() + " " + last.ipAddress());
+            }
+            last = endpoint;
+            return endpoint;
+        }
+    }
+}
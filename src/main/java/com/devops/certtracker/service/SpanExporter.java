@@ -0,0 +1,16 @@
+package com.devops.certtracker.service;
+
+import java.util.List;
+
+/**
+ * Receives the spans of each finished probe trace, for example to log them or ship them to a
+ * tracing backend.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    /**
+     * @param spans The spans of one trace, the root span last.
+     */
+    void export(List<ProbeSpan> spans);
+}
@@ -0,0 +1,454 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.exception.CertificateServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Performs a TLS handshake with one address and captures the certificate chain it presents.
+ * Plain-text protocols are upgraded first with their STARTTLS exchange.
+ * <p>
+ * The probe records certificates, it does not trust them: expired, self-signed or otherwise
+ * invalid certificates must still be tracked, so the chain is not validated here.
+ * <p>
+ * Sessions are never resumed: a resumed session, by TLS 1.2 session ID or TLS 1.3 ticket, reports
+ * the chain of the handshake it was created by, so a re-scan after a rotation would still see the
+ * old certificate. Each session is invalidated once its chain is captured, which keeps it out of
+ * the client session cache.
+ * <p>
+ * HTTPS probes go through the proxy the JVM is configured with, as HttpsURLConnection would, and
+ * connect and handshake separately from the HTTP exchange, so callers can tell the two apart.
+ * <p>
+ * Direct probes offer TLSv1 and TLSv1.1 too, so endpoints that speak nothing newer are still
+ * recorded with their legacy posture. The JDK disables both versions by default: the JVM must be
+ * started with the override of {@code config/tls-probe.security}, as the Maven build does.
+ */
+@Component
+public class TlsProbe {
+
+    // SSLRequest message code from the PostgreSQL frontend/backend protocol
+    private static final int POSTGRES_SSL_REQUEST = 80877103;
+
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private static final int MAX_HEADERS = 100;
+
+    // Newest first, the handshake settles on the highest version both sides allow
+    private static final String[] PROBE_PROTOCOLS = {"TLSv1.3", "TLSv1.2", "TLSv1.1", "TLSv1"};
+
+    private final SSLSocketFactory socketFactory;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public TlsProbe(@Value("${certtracker.probe.connect-timeout-ms:5000}") int connectTimeoutMillis,
+                    @Value("${certtracker.probe.read-timeout-ms:10000}") int readTimeoutMillis) {
+        this.socketFactory = capturingContext().getSocketFactory();
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Connects to the address and completes a direct TLS handshake.
+     *
+     * @param address    The address to connect to.
+     * @param serverName The host name sent as SNI, or null to send none.
+     * @return The presented chain and negotiated session.
+     * @throws CertificateServiceException If the connection or handshake fails.
+     */
+    public ProbeResult probe(InetSocketAddress address, String serverName) {
+        return probe(address, serverName, ScanProtocol.TLS);
+    }
+
+    /**
+     * Connects to the address, upgrades the connection when the protocol needs it and completes
+     * the TLS handshake.
+     *
+     * @param address    The address to connect to.
+     * @param serverName The host name sent as SNI, or null to send none.
+     * @param protocol   How the TLS session is established.
+     * @return The presented chain and negotiated session.
+     * @throws CertificateServiceException If the connection, upgrade or handshake fails.
+     */
+    public ProbeResult probe(InetSocketAddress address, String serverName, ScanProtocol protocol) {
+        return probe(address, serverName, protocol, ProbeTrace.disabled());
+    }
+
+    /**
+     * Variant of {@link #probe(InetSocketAddress, String, ScanProtocol)} recording the connect,
+     * STARTTLS and handshake phases in the trace.
+     */
+    public ProbeResult probe(InetSocketAddress address, String serverName, ScanProtocol protocol, ProbeTrace trace) {
+        try (Socket socket = connect(address, trace)) {
+            if (protocol != ScanProtocol.TLS) {
+                trace.span("starttls", attributes -> {
+                    attributes.put("protocol", protocol.name());
+                    startTls(socket, protocol);
+                    return null;
+                });
+            }
+            String host = serverName != null ? serverName : address.getHostString();
+            try (SSLSocket sslSocket = (SSLSocket) socketFactory.createSocket(socket, host, address.getPort(), false)) {
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setProtocols(PROBE_PROTOCOLS);
+                if (serverName != null && !ScanTarget.isIpLiteral(serverName)) {
+                    parameters.setServerNames(List.of(new SNIHostName(serverName)));
+                }
+                sslSocket.setSSLParameters(parameters);
+                return handshake(sslSocket, address, trace);
+            }
+        } catch (SSLHandshakeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("protocol_version")) {
+                // Only legacy versions on the server side, and this JVM was started without the override
+                throw new CertificateServiceException("Error during the TLS handshake with " + describe(address)
+                        + ": the server only accepts protocol versions disabled in this JVM (" + e.getMessage() + ")");
+            }
+            throw new CertificateServiceException("Error during the TLS handshake with " + describe(address) + ": " + e.getMessage());
+        } catch (IOException e) {
+            throw new CertificateServiceException("Error during the TLS handshake with " + describe(address) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the proxy the JVM is configured to use for an HTTPS URL, through the default
+     * {@link ProxySelector}, so {@code https.proxyHost}, {@code https.proxyPort} and
+     * {@code http.nonProxyHosts} apply as they do for HttpsURLConnection.
+     *
+     * @param host The host name of the URL.
+     * @param port The port of the URL.
+     * @return The first proxy selected, or {@link Proxy#NO_PROXY} for a direct connection.
+     */
+    public Proxy proxyFor(String host, int port) {
+        ProxySelector selector = ProxySelector.getDefault();
+        if (selector == null) {
+            return Proxy.NO_PROXY;
+        }
+        try {
+            List<Proxy> proxies = selector.select(new URI("https", null, host, port, "/", null, null));
+            return proxies.isEmpty() ? Proxy.NO_PROXY : proxies.get(0);
+        } catch (URISyntaxException e) {
+            return Proxy.NO_PROXY;
+        }
+    }
+
+    /**
+     * Connects to an HTTPS server the way a browser would, directly or through a proxy, and
+     * completes the handshake: the chain must be trusted by the JVM and match the host name. The
+     * connect and handshake phases are recorded in the trace.
+     *
+     * @param address The address to connect to; unresolved when the proxy resolves the host name.
+     * @param host    The host name, sent as SNI and checked against the certificate.
+     * @param proxy   The proxy to tunnel through, or {@link Proxy#NO_PROXY}.
+     * @param trace   The trace recording the connect and handshake phases.
+     * @return The open connection, to send the request on.
+     * @throws CertificateServiceException If the connection or handshake fails.
+     */
+    public HttpsConnection connectHttps(InetSocketAddress address, String host, Proxy proxy, ProbeTrace trace) {
+        Socket socket = null;
+        try {
+            socket = connect(address, proxy, trace);
+            // Read at call time, so JVM-wide trust settings apply as they do for HttpsURLConnection
+            SSLSocket sslSocket = (SSLSocket) HttpsURLConnection.getDefaultSSLSocketFactory()
+                    .createSocket(socket, host, address.getPort(), true);
+            SSLParameters parameters = sslSocket.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            if (!ScanTarget.isIpLiteral(host)) {
+                parameters.setServerNames(List.of(new SNIHostName(host)));
+            }
+            sslSocket.setSSLParameters(parameters);
+            socket = sslSocket;
+            return new HttpsConnection(sslSocket, host, address.getPort(), handshake(sslSocket, address, trace));
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw new CertificateServiceException("Error while establishing the HTTPS connection with " + describe(address) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a GET request for the path on the connection and reads the status line and headers
+     * of the answer, recording the phase in the trace.
+     *
+     * @param connection The connection opened by {@link #connectHttps}.
+     * @param path       The path and query to request.
+     * @param trace      The trace recording the HTTP phase.
+     * @return The answer; a redirect carries the Location it points to.
+     * @throws CertificateServiceException If the exchange fails, or the server answers with a
+     *                                     4xx or 5xx status.
+     */
+    public HttpsResponse get(HttpsConnection connection, String path, ProbeTrace trace) {
+        SSLSocket sslSocket = connection.socket;
+        String hostHeader = connection.port == 443 ? connection.host : connection.host + ":" + connection.port;
+        try {
+            return trace.span("http", attributes -> {
+                attributes.put("http.method", "GET");
+                send(sslSocket.getOutputStream(), "GET " + path + " HTTP/1.1\r\nHost: " + hostHeader
+                        + "\r\nUser-Agent: cert-tracker\r\nAccept: */*\r\nConnection: close\r\n");
+                InputStream in = sslSocket.getInputStream();
+                String statusLine = readLine(in);
+                String[] parts = statusLine.split(" ", 3);
+                if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                    throw new IOException("Invalid HTTP status line: " + statusLine);
+                }
+                attributes.put("http.status_code", parts[1]);
+                int status = Integer.parseInt(parts[1]);
+                if (status >= 400) {
+                    throw new CertificateServiceException("Failed to establish HTTPS connection. Response code: " + status);
+                }
+                String location = null;
+                String header;
+                for (int headers = 0; !(header = readLine(in)).isEmpty(); headers++) {
+                    if (headers == MAX_HEADERS) {
+                        throw new IOException("Too many response headers");
+                    }
+                    if (header.regionMatches(true, 0, "Location:", 0, "Location:".length())) {
+                        location = header.substring("Location:".length()).trim();
+                    }
+                }
+                return new HttpsResponse(connection.result, status, location);
+            });
+        } catch (IOException | NumberFormatException e) {
+            throw new CertificateServiceException("Error while establishing the HTTPS connection with "
+                    + describe(connection.result.address()) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * An HTTPS connection whose handshake completed, waiting for its request.
+     */
+    public static final class HttpsConnection implements AutoCloseable {
+        private final SSLSocket socket;
+        private final String host;
+        private final int port;
+        private final ProbeResult result;
+
+        private HttpsConnection(SSLSocket socket, String host, int port, ProbeResult result) {
+            this.socket = socket;
+            this.host = host;
+            this.port = port;
+            this.result = result;
+        }
+
+        /**
+         * @return The chain and session of the handshake.
+         */
+        public ProbeResult result() {
+            return result;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * The answer of an HTTPS server to the probe's GET request.
+     *
+     * @param result   The chain and session of the connection the request was sent on.
+     * @param status   The HTTP status code, below 400.
+     * @param location The Location header, or null.
+     */
+    public record HttpsResponse(ProbeResult result, int status, String location) {
+
+        /**
+         * @return Whether the server redirects the request elsewhere.
+         */
+        public boolean isRedirect() {
+            return status >= 300 && status < 400 && location != null;
+        }
+    }
+
+    private Socket connect(InetSocketAddress address, ProbeTrace trace) throws IOException {
+        return connect(address, Proxy.NO_PROXY, trace);
+    }
+
+    /**
+     * Connects to the address, or through a SOCKS proxy or an HTTP proxy's CONNECT tunnel to it.
+     */
+    private Socket connect(InetSocketAddress address, Proxy proxy, ProbeTrace trace) throws IOException {
+        Socket socket = proxy.type() == Proxy.Type.DIRECT ? new Socket() : new Socket(proxy);
+        try {
+            trace.span("connect", attributes -> {
+                attributes.put("net.sock.peer.addr", describe(address));
+                if (proxy.type() != Proxy.Type.DIRECT) {
+                    attributes.put("net.proxy", proxy.toString());
+                }
+                socket.connect(address, connectTimeoutMillis);
+                return null;
+            });
+            socket.setSoTimeout(readTimeoutMillis);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing more to release
+            }
+        }
+    }
+
+    private static ProbeResult handshake(SSLSocket sslSocket, InetSocketAddress address, ProbeTrace trace) throws IOException {
+        return trace.span("tls.handshake", attributes -> {
+            sslSocket.startHandshake();
+            SSLSession session = sslSocket.getSession();
+            attributes.put("tls.protocol", session.getProtocol());
+            attributes.put("tls.cipher", session.getCipherSuite());
+            ProbeResult result = new ProbeResult(address, peerChain(session), session);
+            // Never offered for resumption, nor are tickets received for it later
+            session.invalidate();
+            return result;
+        });
+    }
+
+    private static void startTls(Socket socket, ScanProtocol protocol) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+        switch (protocol) {
+            case TLS -> {
+                // Nothing to negotiate
+            }
+            case SMTP -> {
+                expectSmtpReply(in, "220");
+                send(out, "EHLO cert-tracker");
+                expectSmtpReply(in, "250");
+                send(out, "STARTTLS");
+                expectSmtpReply(in, "220");
+            }
+            case IMAP -> {
+                String greeting = readLine(in);
+                if (!greeting.startsWith("* OK")) {
+                    throw new IOException("Unexpected IMAP greeting: " + greeting);
+                }
+                send(out, "a1 STARTTLS");
+                String line;
+                do {
+                    line = readLine(in);
+                } while (!line.startsWith("a1 "));
+                if (!line.startsWith("a1 OK")) {
+                    throw new IOException("STARTTLS refused: " + line);
+                }
+            }
+            case POSTGRES -> {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(8);
+                data.writeInt(POSTGRES_SSL_REQUEST);
+                data.flush();
+                int answer = in.read();
+                if (answer != 'S') {
+                    throw new IOException("Server does not accept SSL connections");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an SMTP reply, following continuation lines ("250-...") up to the last one ("250 ...").
+     */
+    private static void expectSmtpReply(InputStream in, String code) throws IOException {
+        String line;
+        do {
+            line = readLine(in);
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        if (!line.startsWith(code)) {
+            throw new IOException("Unexpected SMTP reply: " + line);
+        }
+    }
+
+    /**
+     * Reads one CRLF-terminated line byte by byte, so no byte of the following TLS handshake is
+     * consumed by a buffer.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int length = line.length();
+                return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Line too long");
+            }
+            line.append((char) b);
+        }
+        throw new IOException("Connection closed by the server");
+    }
+
+    private static void send(OutputStream out, String command) throws IOException {
+        out.write((command + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static List<X509Certificate> peerChain(SSLSession session) throws IOException {
+        java.security.cert.Certificate[] certificates = session.getPeerCertificates();
+        if (certificates == null || certificates.length == 0) {
+            throw new CertificateServiceException("No server certificates found.");
+        }
+        return Arrays.stream(certificates).map(X509Certificate.class::cast).toList();
+    }
+
+    private static String describe(InetSocketAddress address) {
+        String ip = address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+        return ip + ":" + address.getPort();
+    }
+
+    private static SSLContext capturingContext() {
+        TrustManager capturing = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+                // Never used, the probe is a client
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+                // Accept any chain, it is recorded rather than trusted
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{capturing}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create the TLS probe context", e);
+        }
+    }
+}
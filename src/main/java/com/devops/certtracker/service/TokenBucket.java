@@ -0,0 +1,56 @@
+package com.devops.certtracker.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill timestamp, the whole state is
+ * the time at which the bucket will be full again, kept in a single {@link AtomicLong}, so
+ * taking a token is one compare-and-set and never blocks.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param permitsPerSecond The refill rate.
+     * @param burst            The bucket size, i.e. how many tokens can be taken at once after a pause.
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate " + permitsPerSecond + "/s with burst " + burst);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.capacityNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the number of nanoseconds until the next one.
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return Whether the bucket is full, so dropping it and starting a new one changes nothing.
+     */
+    public boolean isIdle() {
+        return fullAt.get() - System.nanoTime() <= 0;
+    }
+}
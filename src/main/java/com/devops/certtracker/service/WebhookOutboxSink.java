@@ -0,0 +1,50 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts each batch of changes as a JSON array to a webhook. Any 2xx answer accepts the batch.
+ */
+public class WebhookOutboxSink implements OutboxSink {
+
+    private final URI uri;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public WebhookOutboxSink(URI uri, Duration timeout, ObjectMapper objectMapper) {
+        this.uri = uri;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void send(List<OutboxMessage> messages) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(messages)))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while posting to " + uri);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook " + uri + " answered " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package db.migration.common;
+
+import com.devops.certtracker.entity.ScanTarget;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Fills in the domain of the certificates saved before V11. The registrable domain cannot be
+ * derived in portable SQL, so it is computed with the same rule the application applies on save.
+ */
+public class V11_1__Backfill_certificate_domain extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement select = context.getConnection().createStatement();
+             ResultSet rows = select.executeQuery("select id, url from certificates where domain is null and url is not null");
+             PreparedStatement update = context.getConnection().prepareStatement("update certificates set domain = ? where id = ?")) {
+            int pending = 0;
+            while (rows.next()) {
+                update.setString(1, ScanTarget.domainOf(rows.getString("url")));
+                update.setLong(2, rows.getLong("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Outbox entries the sink kept rejecting, set aside so the relay can move on. An operator
+-- inspects them and, once the cause is fixed, copies them back to certificate_outbox.
+create table if not exists certificate_outbox_dead_letter (
+    id               bigint      not null,
+    event_type       varchar(20) not null,
+    certificate_id   bigint      not null,
+    payload          varchar(4000),
+    created_at       timestamp(6) not null,
+    attempts         int         not null,
+    last_error       varchar(1000),
+    dead_lettered_at timestamp(6) not null,
+    primary key (id)
+);
+
+-- Lease on the relay: only the instance holding it sends the outbox, so two instances never
+-- send the same entries or reorder them.
+create table if not exists certificate_outbox_lock (
+    id           int          not null,
+    owner        varchar(100),
+    locked_until timestamp(6) not null,
+    primary key (id)
+);
+
+insert into certificate_outbox_lock (id, owner, locked_until) values (1, null, timestamp '1970-01-01 00:00:00');
@@ -0,0 +1,5 @@
+-- Registrable domain of the URL, so the dashboard counts certificates per domain through an index
+-- instead of one group per URL. Existing rows are filled in by V11_1 (db/migration/common).
+alter table certificates add column domain varchar(255);
+
+create index idx_certificates_domain on certificates (domain);
@@ -0,0 +1,19 @@
+-- Archived certificates keep everything the hot table records about them
+alter table certificates_archive add column ip_address varchar(45);
+alter table certificates_archive add column domain varchar(255);
+alter table certificates_archive add column owner varchar(255);
+alter table certificates_archive add column revocation_status varchar(16);
+alter table certificates_archive add column tls_protocol varchar(16);
+alter table certificates_archive add column cipher_suite varchar(100);
+alter table certificates_archive add column key_algorithm varchar(16);
+alter table certificates_archive add column key_size int;
+alter table certificates_archive add column signature_algorithm varchar(64);
+alter table certificates_archive add column fingerprint varchar(64);
+
+-- Tag names of the archived certificates, as the tags themselves may be renamed or deleted later
+create table if not exists certificates_archive_tags (
+    certificate_id bigint       not null,
+    archived_at    timestamp(6) not null,
+    name           varchar(100) not null,
+    primary key (certificate_id, archived_at, name)
+);
@@ -0,0 +1,6 @@
+-- Row version, incremented by every update, so receivers of certificate changes can tell which
+-- of two changes is the newer one whatever order they arrive in
+alter table certificates add column version bigint default 0 not null;
+alter table certificates_archive add column version bigint;
+alter table certificate_outbox add column certificate_version bigint default 0 not null;
+alter table certificate_outbox_dead_letter add column certificate_version bigint default 0 not null;
@@ -0,0 +1,16 @@
+-- Certificates table, with IDs allocated from a sequence in blocks of 50 (pooled optimizer)
+create sequence if not exists certificates_seq start with 1 increment by 50;
+
+create table if not exists certificates (
+    id         bigint not null,
+    url        varchar(255),
+    subject    varchar(255),
+    issuer     varchar(255),
+    valid_from timestamp(6),
+    valid_to   timestamp(6),
+    primary key (id)
+);
+
+-- Rows of a database created before Flyway keep their IDs: the pooled optimizer takes the first
+-- value as the top of its block, so the first block starts right after them
+alter sequence certificates_seq restart with (select coalesce(max(id), 0) + 50 from certificates);
@@ -0,0 +1,4 @@
+-- Indexes for URL lookups, expiry range scans and the per-issuer summary
+create index idx_certificates_url on certificates (url);
+create index idx_certificates_valid_to on certificates (valid_to);
+create index idx_certificates_issuer on certificates (issuer);
@@ -0,0 +1,14 @@
+-- Long-expired certificates are moved here so the hot table stays small
+create table certificates_archive (
+    id          bigint not null,
+    url         varchar(255),
+    subject     varchar(255),
+    issuer      varchar(255),
+    valid_from  timestamp(6),
+    valid_to    timestamp(6),
+    archived_at timestamp(6) not null,
+    primary key (id, archived_at)
+);
+
+create index idx_certificates_archive_url on certificates_archive (url);
+create index idx_certificates_archive_valid_to on certificates_archive (valid_to);
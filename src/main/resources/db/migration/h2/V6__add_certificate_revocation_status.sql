@@ -0,0 +1,4 @@
+-- Revocation status from OCSP or the CRL (GOOD, REVOKED, UNKNOWN), null when not checked
+alter table certificates add column revocation_status varchar(16);
+
+create index idx_certificates_revocation_status on certificates (revocation_status);
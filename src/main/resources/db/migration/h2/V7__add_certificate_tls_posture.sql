@@ -0,0 +1,11 @@
+-- TLS posture captured during the scan handshake, for weak-configuration audits
+alter table certificates add column tls_protocol varchar(16);
+alter table certificates add column cipher_suite varchar(100);
+alter table certificates add column key_algorithm varchar(16);
+alter table certificates add column key_size int;
+alter table certificates add column signature_algorithm varchar(64);
+
+-- "Still on TLS 1.0", "RSA keys under 2048 bits" and "SHA-1 signatures" each resolve through an index
+create index idx_certificates_tls_protocol on certificates (tls_protocol);
+create index idx_certificates_key on certificates (key_algorithm, key_size);
+create index idx_certificates_signature_algorithm on certificates (signature_algorithm);
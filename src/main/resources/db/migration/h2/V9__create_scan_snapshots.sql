@@ -0,0 +1,29 @@
+-- SHA-256 of the DER encoding, so a renewed certificate is told apart from a re-scan of the same one
+alter table certificates add column fingerprint varchar(64);
+
+-- Point-in-time copies of the tracked endpoints, compared to see what a mass renewal changed
+create sequence if not exists scan_snapshots_seq start with 1 increment by 50;
+
+create table if not exists scan_snapshots (
+    id         bigint       not null,
+    label      varchar(100),
+    created_at timestamp(6) not null,
+    endpoints  int          not null,
+    primary key (id)
+);
+
+-- One row per endpoint (URL and address, '' when probed through the host name). The primary key
+-- returns the rows of a snapshot in endpoint order, which the diff merges chunk by chunk.
+create table if not exists scan_snapshot_entries (
+    snapshot_id    bigint       not null,
+    url            varchar(255) not null,
+    ip_address     varchar(45)  not null,
+    certificate_id bigint       not null,
+    subject        varchar(255),
+    issuer         varchar(255),
+    valid_from     timestamp(6),
+    valid_to       timestamp(6),
+    fingerprint    varchar(64),
+    primary key (snapshot_id, url, ip_address),
+    constraint fk_scan_snapshot_entries_snapshot foreign key (snapshot_id) references scan_snapshots (id) on delete cascade
+);
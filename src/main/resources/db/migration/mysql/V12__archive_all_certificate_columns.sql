@@ -0,0 +1,25 @@
+-- Archived certificates keep everything the hot table records about them
+alter table certificates_archive
+    add column ip_address varchar(45),
+    add column domain varchar(255),
+    add column owner varchar(255),
+    add column revocation_status varchar(16),
+    add column tls_protocol varchar(16),
+    add column cipher_suite varchar(100),
+    add column key_algorithm varchar(16),
+    add column key_size int,
+    add column signature_algorithm varchar(64),
+    add column fingerprint varchar(64);
+
+-- Tag names of the archived certificates, as the tags themselves may be renamed or deleted later.
+-- Partitioned by archive year like certificates_archive; the archive job splits a partition per
+-- year off pmax ahead of time.
+create table if not exists certificates_archive_tags (
+    certificate_id bigint       not null,
+    archived_at    datetime(6)  not null,
+    name           varchar(100) not null,
+    primary key (certificate_id, archived_at, name)
+) engine = InnoDB
+partition by range (year(archived_at)) (
+    partition pmax values less than maxvalue
+);
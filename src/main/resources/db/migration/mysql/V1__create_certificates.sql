@@ -0,0 +1,20 @@
+-- Certificates table. Existing databases created by Hibernate keep their table and rows.
+create table if not exists certificates (
+    id         bigint not null auto_increment,
+    url        varchar(255),
+    subject    varchar(255),
+    issuer     varchar(255),
+    valid_from datetime(6),
+    valid_to   datetime(6),
+    primary key (id)
+) engine = InnoDB;
+
+-- MySQL has no sequences, Hibernate emulates certificates_seq with a single-row table.
+-- IDs are allocated in blocks of 50 (pooled optimizer), which takes the value read as the top of
+-- its block: seeding with max(id) + 50 makes the first block start right after the existing rows.
+create table if not exists certificates_seq (
+    next_val bigint
+) engine = InnoDB;
+
+insert into certificates_seq (next_val)
+select coalesce(max(id), 0) + 50 from certificates;
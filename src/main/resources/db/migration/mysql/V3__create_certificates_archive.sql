@@ -0,0 +1,21 @@
+-- Long-expired certificates are moved here so the hot table stays small.
+-- Partitioned by archive year, so old history can be dropped with a partition instead of a delete.
+create table certificates_archive (
+    id          bigint not null,
+    url         varchar(255),
+    subject     varchar(255),
+    issuer      varchar(255),
+    valid_from  datetime(6),
+    valid_to    datetime(6),
+    archived_at datetime(6) not null,
+    primary key (id, archived_at)
+) engine = InnoDB
+partition by range (year(archived_at)) (
+    partition p2025 values less than (2026),
+    partition p2026 values less than (2027),
+    partition p2027 values less than (2028),
+    partition pmax values less than maxvalue
+);
+
+create index idx_certificates_archive_url on certificates_archive (url);
+create index idx_certificates_archive_valid_to on certificates_archive (valid_to);
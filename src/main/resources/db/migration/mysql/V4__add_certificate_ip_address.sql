@@ -0,0 +1,4 @@
+-- One row per resolved address when an endpoint is probed on every A/AAAA record
+alter table certificates add column ip_address varchar(45);
+
+create index idx_certificates_url_ip_address on certificates (url, ip_address);
@@ -0,0 +1,31 @@
+-- Owning team of each certificate, filtered on by team dashboards
+alter table certificates add column owner varchar(255);
+
+create index idx_certificates_owner on certificates (owner);
+
+-- Tags such as environments or services, shared between certificates.
+-- Hibernate emulates tags_seq with a single-row table, as for certificates_seq.
+create table if not exists tags_seq (
+    next_val bigint
+) engine = InnoDB;
+
+insert into tags_seq (next_val) values (1);
+
+create table if not exists tags (
+    id   bigint       not null,
+    name varchar(100) not null,
+    primary key (id),
+    constraint uk_tags_name unique (name)
+) engine = InnoDB;
+
+-- Links go away with their certificate or tag, including on bulk and archive deletes that
+-- bypass JPA. The primary key serves lookups by certificate, the index lookups by tag.
+create table if not exists certificate_tags (
+    certificate_id bigint not null,
+    tag_id         bigint not null,
+    primary key (certificate_id, tag_id),
+    constraint fk_certificate_tags_certificate foreign key (certificate_id) references certificates (id) on delete cascade,
+    constraint fk_certificate_tags_tag foreign key (tag_id) references tags (id) on delete cascade
+) engine = InnoDB;
+
+create index idx_certificate_tags_tag on certificate_tags (tag_id, certificate_id);
@@ -0,0 +1,19 @@
+-- Certificate changes waiting to be relayed to downstream systems (CMDB, ticketing). Rows are
+-- written in the transaction of the change and deleted once the sink has accepted them.
+-- Hibernate emulates certificate_outbox_seq with a single-row table, as for certificates_seq.
+create table if not exists certificate_outbox_seq (
+    next_val bigint
+) engine = InnoDB;
+
+insert into certificate_outbox_seq (next_val) values (1);
+
+create table if not exists certificate_outbox (
+    id             bigint      not null,
+    event_type     varchar(20) not null,
+    certificate_id bigint      not null,
+    payload        varchar(4000),
+    created_at     datetime(6) not null,
+    attempts       int         not null default 0,
+    last_error     varchar(1000),
+    primary key (id)
+) engine = InnoDB;
@@ -1,79 +1,171 @@
-function fetchTableData() {
-    apiUrl = "/api/certificates/all"
+// Virtualized certificate table: only the rows in view (plus a small margin) exist in the DOM,
+// and rows are fetched page by page from /api/certificates/page as the user scrolls. At most
+// MAX_CACHED_PAGES pages are kept, so memory and render time do not grow with the inventory.
+// A page following a cached one is requested after that page's last ID, which the server finds
+// through the primary key; only a jump far ahead falls back to the page number.
+const ROW_HEIGHT = 37;
+const PAGE_SIZE = 200;
+const OVERSCAN_ROWS = 10;
+const MAX_CACHED_PAGES = 10;
+
+const viewport = document.querySelector('#certTableViewport');
+const tableBody = document.querySelector('#certTable tbody');
+const cachedPages = new Map();
+const pendingPages = new Set();
+let totalRows = 0;
+let renderScheduled = false;
+
+// Fetch one page of certificates and re-render once it arrives
+function fetchPage(page) {
+  if (cachedPages.has(page) || pendingPages.has(page)) {
+    return;
+  }
+  pendingPages.add(page);
+  const previous = cachedPages.get(page - 1);
+  const after = previous !== undefined && previous.length > 0 ? `&after=${previous[previous.length - 1].id}` : '';
+  fetch(`/api/certificates/page?page=${page}&size=${PAGE_SIZE}${after}`)
+    .then(response => response.json())
+    .then(data => {
+      // Only counted with the first page
+      if (data.total !== null) {
+        totalRows = data.total;
+      }
+      cachedPages.set(page, data.items);
+      evictPages(page);
+      scheduleRender();
+    })
+    .catch(error => {
+      console.error('Error fetching JSON data:', error);
+    })
+    .finally(() => pendingPages.delete(page));
+}
 
-    const response = fetch(apiUrl)
-     .then(response => response.json())
-     .then(data => {
-     console.log(data);
-       populateTable(data);
-     })
-     .catch(error => {
-       console.error('Error fetching JSON data:', error);
-     });
- }
+// Drop the cached pages furthest from the one just loaded
+function evictPages(currentPage) {
+  while (cachedPages.size > MAX_CACHED_PAGES) {
+    let furthest = currentPage;
+    cachedPages.forEach((rows, page) => {
+      if (Math.abs(page - currentPage) > Math.abs(furthest - currentPage)) {
+        furthest = page;
+      }
+    });
+    cachedPages.delete(furthest);
+  }
+}
 
- // Function to dynamically populate the table body with json data
- function populateTable(data) {
-   const tableBody = document.querySelector('#certTable tbody');
-
-   data.forEach(certificate => {
-     const addRow = tableBody.insertRow();
-     const url = addRow.insertCell(0);
-     const expiryDate = addRow.insertCell(1);
-     //const status = addRow.insertCell(2);
-     const deleteRow = addRow.insertCell(2);
-
-     const today = new Date();
-     const expiryDateData = new Date(certificate.validTo);
-     // dateString = expiryDateData.getFullYear() + " - " + expiryDateData.getMonth() + " - " + expiryDateData.getDate();
-
-     // add cell content with json data
-     url.textContent = certificate.url;
-     expiryDate.textContent = certificate.validTo.substring(0,10);
-    //  status.textContent = certificate.status;
-     addRow.setAttribute('certificateId', certificate.id);
-
-     // Expiration date calculation for visual notification
-     const dateCalculate = Math.floor((expiryDateData - today) / (1000 * 60 * 60 * 24));
-
-     // Visual notification based on the expiry date
-     if (expiryDateData < today) {
-       // Certificate has expired
-       addRow.setAttribute('id', 'expired');
-     } else if (dateCalculate < 14) {
-       // Expiring within 2 weeks (less than 14 days)
-       addRow.setAttribute('id', 'expiringInTwoWeeks');
-     } else if (dateCalculate < 42) {
-       // Expiring within 6 weeks (less than 42 days)
-       addRow.setAttribute('id', 'expiringInSixWeeks');
-     } else {
-       // else (more than 6 weeks remaining)
-       addRow.setAttribute('id', 'expiringGood');
-     }
+function scheduleRender() {
+  if (!renderScheduled) {
+    renderScheduled = true;
+    requestAnimationFrame(renderVisibleRows);
+  }
+}
+
+// Render the rows in view between two spacer rows that keep the scroll height of the full table
+function renderVisibleRows() {
+  renderScheduled = false;
+  const first = Math.max(0, Math.floor(viewport.scrollTop / ROW_HEIGHT) - OVERSCAN_ROWS);
+  const last = Math.min(totalRows, Math.ceil((viewport.scrollTop + viewport.clientHeight) / ROW_HEIGHT) + OVERSCAN_ROWS);
+
+  const rows = document.createDocumentFragment();
+  rows.appendChild(spacerRow(first * ROW_HEIGHT));
+  for (let index = first; index < last; index++) {
+    const page = Math.floor(index / PAGE_SIZE);
+    const certificates = cachedPages.get(page);
+    if (certificates === undefined) {
+      fetchPage(page);
+      rows.appendChild(loadingRow());
+    } else if (index % PAGE_SIZE < certificates.length) {
+      rows.appendChild(certificateRow(certificates[index % PAGE_SIZE]));
+    }
+  }
+  rows.appendChild(spacerRow((totalRows - last) * ROW_HEIGHT));
+  tableBody.replaceChildren(rows);
+}
+
+function spacerRow(height) {
+  const row = document.createElement('tr');
+  row.classList.add('spacer');
+  row.style.height = `${height}px`;
+  return row;
+}
+
+function loadingRow() {
+  const row = document.createElement('tr');
+  const cell = row.insertCell(0);
+  cell.colSpan = 3;
+  cell.textContent = 'Loading...';
+  return row;
+}
+
+function certificateRow(certificate) {
+  const addRow = document.createElement('tr');
+  const url = addRow.insertCell(0);
+  const expiryDate = addRow.insertCell(1);
+  const deleteRow = addRow.insertCell(2);
+
+  const today = new Date();
+  const expiryDateData = new Date(certificate.validTo);
+
+  // add cell content with json data
+  url.textContent = certificate.url;
+  expiryDate.textContent = certificate.validTo.substring(0,10);
+  addRow.setAttribute('certificateId', certificate.id);
+
+  // Expiration date calculation for visual notification
+  const dateCalculate = Math.floor((expiryDateData - today) / (1000 * 60 * 60 * 24));
+
+  // Visual notification based on the expiry date
+  if (expiryDateData < today) {
+    // Certificate has expired
+    addRow.setAttribute('id', 'expired');
+  } else if (dateCalculate < 14) {
+    // Expiring within 2 weeks (less than 14 days)
+    addRow.setAttribute('id', 'expiringInTwoWeeks');
+  } else if (dateCalculate < 42) {
+    // Expiring within 6 weeks (less than 42 days)
+    addRow.setAttribute('id', 'expiringInSixWeeks');
+  } else {
+    // else (more than 6 weeks remaining)
+    addRow.setAttribute('id', 'expiringGood');
+  }
 
-     // Deletion handling
+  // Delete button, handled by the delegated listener on the table body
+  const deleteButton = document.createElement("span");
+  deleteButton.classList.add('glyphicon');
+  deleteButton.classList.add('glyphicon-trash');
+  deleteButton.setAttribute('aria-hidden', 'True');
+  deleteRow.appendChild(deleteButton);
+  return addRow;
+}
 
-     // Create button element for deleting the certificate
-     const deleteButton = document.createElement("span");
-     // deleteButton.textContent = 'DELETE';
+// One click listener for every delete button, present or future
+tableBody.addEventListener('click', event => {
+  const deleteButton = event.target.closest('.glyphicon-trash');
+  if (deleteButton) {
+    deleteFetch(deleteButton.closest('tr').getAttribute('certificateId'));
+  }
+});
 
-     // Adding class to style the delete button
-     deleteButton.classList.add('glyphicon');
-     deleteButton.classList.add('glyphicon-trash');
-     deleteButton.setAttribute('aria-hidden', 'True');
+viewport.addEventListener('scroll', scheduleRender, { passive: true });
 
-     // Append the element into the appropriate cell in the table
-     deleteRow.appendChild(deleteButton);
+// Load the first page, which also gives the total number of rows
+fetchPage(0);
 
-     deleteButton.addEventListener('click', () => {
-       const certificateId = addRow.getAttribute('certificateId');
-       deleteFetch(certificateId);
+ // Fetch the expiry bucket counts, aggregated by the backend
+ function fetchSummary() {
+   fetch("/api/certificates/summary")
+     .then(response => response.json())
+     .then(summary => {
+       document.querySelectorAll('#certSummary [data-bucket]').forEach(cell => {
+         cell.textContent = summary.expiry[cell.dataset.bucket];
+       });
+     })
+     .catch(error => {
+       console.error('Error fetching the certificate summary:', error);
      });
-   });
  }
 
- // Function call to fetch all the list of certificates in the database
- fetchTableData();
+ fetchSummary();
 
 // handling form submission (fetching POST request)
 let submissionInProgress = false;
@@ -1,7 +1,17 @@
 package com.devops.certtracker.controller;
 
+import com.devops.certtracker.entity.BulkDeleteResult;
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateFilter;
+import com.devops.certtracker.entity.CertificatePage;
+import com.devops.certtracker.entity.CertificateSummary;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.entity.Tag;
+import com.devops.certtracker.entity.ExpiryBucketCounts;
 import com.devops.certtracker.exception.CertificateNoContentException;
+import com.devops.certtracker.exception.CertificateParseException;
 import com.devops.certtracker.exception.CertificateServiceException;
 import com.devops.certtracker.exception.EntityNotFoundException;
 import com.devops.certtracker.service.CertificateService;
@@ -12,20 +22,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest
+@WebMvcTest(CertificateController.class)
 public class CertificateControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -123,7 +140,7 @@ public class CertificateControllerTest {
         String url = "https://www.google.com";
         String request = "{\"url\": \"" + url + "\"}";
 
-        when(certificateService.getCertificateInfo(url)).thenReturn(certificate1);
+        when(certificateService.getCertificateInfo(url, false)).thenReturn(certificate1);
 
         this.mockMvc.perform(post("/api/certificates/info")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -140,7 +157,7 @@ public class CertificateControllerTest {
     public void testGetCertificateInfoEndpoint_InvalidUrl() throws Exception{
         String invalidUrl = "invalid url";
         String request = "{\"url\": \""+ invalidUrl + "\"}";
-        when(certificateService.getCertificateInfo(invalidUrl))
+        when(certificateService.getCertificateInfo(invalidUrl, false))
                 .thenThrow(new CertificateServiceException("Invalid URL format"));
         this.mockMvc.perform(post("/api/certificates/info")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -154,7 +171,7 @@ public class CertificateControllerTest {
     public void testGetCertificateInfoEndpoint_NotSecureURL() throws Exception{
         String unsecureUrl = "http://www.google.com";
         String request = "{\"url\": \""+ unsecureUrl + "\"}";
-        when(certificateService.getCertificateInfo(unsecureUrl))
+        when(certificateService.getCertificateInfo(unsecureUrl, false))
                 .thenThrow(new CertificateServiceException("Only HTTPS URLs are supported."));
         this.mockMvc.perform(post("/api/certificates/info")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -168,7 +185,7 @@ public class CertificateControllerTest {
     public void testGetCertificateInfoEndpoint_HTTPError() throws Exception{
         String fakeUrl = "http://www.my-fake-web-site.com";
         String request = "{\"url\": \""+ fakeUrl + "\"}";
-        when(certificateService.getCertificateInfo(fakeUrl))
+        when(certificateService.getCertificateInfo(fakeUrl, false))
                 .thenThrow(new CertificateServiceException("Error while establishing the HTTPS connection"));
         this.mockMvc.perform(post("/api/certificates/info")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -180,21 +197,21 @@ public class CertificateControllerTest {
 
     @Test
     public void testGetAllCertificates() throws Exception {
-        List<Certificate> list = new ArrayList<>();
-        list.add(certificate1);
-        list.add(certificate2);
+        List<CertificateView> list = new ArrayList<>();
+        list.add(new CertificateView(1L, "https://www.google.com", null, "CN=google.com", "CN=issuer.com", new Date(), new Date(), null));
+        list.add(new CertificateView(2L, "https://www.github.com", null, "CN=github.com", "CN=issuer.com", new Date(), new Date(), null));
 
         when(certificateService.getAllCertificates()).thenReturn(list);
 
         this.mockMvc.perform(get("/api/certificates/all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()", is(list.size())));
+                .andExpect(jsonPath("$.size()", is(list.size())))
+                .andExpect(jsonPath("$[0].url").value("https://www.google.com"))
+                .andExpect(jsonPath("$[0].validTo").exists());
     }
 
     @Test
     public void testGetAllCertificates_EmptyList() throws Exception {
-        List<Certificate> list = new ArrayList<>();
-
         when(certificateService.getAllCertificates())
                 .thenThrow(new CertificateNoContentException("No certificates found in the database"));
 
@@ -218,6 +235,29 @@ public class CertificateControllerTest {
         verify(certificateService, times(1)).deleteCertificateById(certificateId);
     }
 
+    @Test
+    void testDeleteCertificatesByIds() throws Exception {
+        when(certificateService.deleteCertificatesByIds(List.of(1L, 2L, 3L))).thenReturn(new BulkDeleteResult(2));
+
+        mockMvc.perform(post("/api/certificates/delete/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+    }
+
+    @Test
+    void testDeleteCertificatesByFilter() throws Exception {
+        when(certificateService.deleteCertificatesByFilter(new CertificateFilter("https://old.example.com", null, null)))
+                .thenReturn(new BulkDeleteResult(40));
+
+        mockMvc.perform(post("/api/certificates/delete/filter")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"urlPrefix\": \"https://old.example.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(40));
+    }
+
     @Test
     void testDeleteCertificateById_NonExistingId() throws Exception {
         Long nonExistingId = 999L;
@@ -231,4 +271,150 @@ public class CertificateControllerTest {
                 .andExpect(jsonPath("$.error").value("Certificate not Found"))
                 .andExpect(jsonPath("$.message").value("Certificate with ID " + nonExistingId + " not found"));
     }
+
+    @Test
+    public void testImportCertificate() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "bundle.pem",
+                "application/x-pem-file", "-----BEGIN CERTIFICATE-----".getBytes());
+
+        when(certificateService.importCertificate(eq("https://internal.example.com"), any(byte[].class), isNull()))
+                .thenReturn(certificate1);
+
+        this.mockMvc.perform(multipart("/api/certificates/import")
+                        .file(file)
+                        .param("url", "https://internal.example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subject").value(certificate1.getSubject()));
+    }
+
+    @Test
+    public void testImportCertificate_InvalidFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.txt", "text/plain", "hello".getBytes());
+
+        when(certificateService.importCertificate(eq("notes.txt"), any(byte[].class), isNull()))
+                .thenThrow(new CertificateParseException("No certificate found in the PEM content."));
+
+        this.mockMvc.perform(multipart("/api/certificates/import").file(file))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid certificate file"))
+                .andExpect(jsonPath("$.message").value("No certificate found in the PEM content."));
+    }
+
+    @Test
+    public void testGetCertificatePage() throws Exception {
+        CertificateView view = new CertificateView(201L, "https://www.google.com", null, "CN=www.google.com",
+                "CN=GTS CA 1C3", new Date(), new Date(), "team-a");
+        when(certificateService.getCertificatePage(1, 200, 200L)).thenReturn(new CertificatePage(List.of(view), 1, 200, null));
+
+        this.mockMvc.perform(get("/api/certificates/page").param("page", "1").param("size", "200").param("after", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()", is(1)))
+                .andExpect(jsonPath("$.items[0].id").value(201))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.total").doesNotExist());
+    }
+
+    @Test
+    public void testSearchCertificates() throws Exception {
+        when(certificateService.searchCertificates("team-a", List.of("prod", "payments"), 0, 100))
+                .thenReturn(new CertificatePage(List.of(), 0, 100, 0L));
+
+        this.mockMvc.perform(get("/api/certificates/search")
+                        .param("owner", "team-a").param("tag", "prod").param("tag", "payments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+
+    @Test
+    public void testSetCertificateTagsAndOwner() throws Exception {
+        certificate1.setOwner("team-a");
+        certificate1.getTags().add(new Tag("prod"));
+        when(certificateService.setCertificateTags(1L, List.of("prod"))).thenReturn(certificate1);
+        when(certificateService.setCertificateOwner(1L, "team-a")).thenReturn(certificate1);
+
+        this.mockMvc.perform(put("/api/certificates/1/tags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"prod\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[0]").value("prod"));
+        this.mockMvc.perform(put("/api/certificates/1/owner")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"owner\": \"team-a\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner").value("team-a"));
+    }
+
+    @Test
+    public void testGetCertificateSummary() throws Exception {
+        ExpiryBucketCounts counts = new ExpiryBucketCounts() {
+            public long getExpired() { return 3; }
+            public long getExpiringInTwoWeeks() { return 0; }
+            public long getExpiringInSixWeeks() { return 1; }
+            public long getGood() { return 5; }
+        };
+        when(certificateService.getCertificateSummary())
+                .thenReturn(new CertificateSummary(counts, List.of(), List.of(), List.of(), List.of()));
+
+        this.mockMvc.perform(get("/api/certificates/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expiry.expired").value(3))
+                .andExpect(jsonPath("$.expiry.good").value(5))
+                .andExpect(jsonPath("$.byIssuer.size()", is(0)));
+    }
+
+    @Test
+    public void testExportCertificates() throws Exception {
+        doAnswer(invocation -> {
+            java.io.Writer writer = invocation.getArgument(0);
+            writer.write("id,url,subject,issuer,validFrom,validTo\n");
+            writer.flush();
+            return null;
+        }).when(certificateService).exportCertificates(any());
+
+        MvcResult result = this.mockMvc.perform(get("/api/certificates/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,url,subject,issuer,validFrom,validTo\n"));
+    }
+
+    @Test
+    public void testAddCertificatesForAllAddresses() throws Exception {
+        String url = "https://www.google.com";
+        certificate1.setIpAddress("192.0.2.10");
+        certificate2.setIpAddress("192.0.2.11");
+        when(certificateService.retrieveAndSaveCertificatesForAllAddresses(url)).thenReturn(List.of(certificate1, certificate2));
+
+        this.mockMvc.perform(post("/api/certificates/add/addresses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"url\": \"" + url + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[1].ipAddress").value("192.0.2.11"));
+    }
+
+    @Test
+    public void testAddTargetCertificate() throws Exception {
+        certificate1.setUrl("smtp://mail.example.com:587");
+        when(certificateService.retrieveAndSaveTargetCertificate(
+                new ScanTarget("mail.example.com", 587, "mail.example.com", ScanProtocol.SMTP)))
+                .thenReturn(certificate1);
+
+        this.mockMvc.perform(post("/api/certificates/targets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"host\": \"mail.example.com\", \"port\": 587, \"protocol\": \"smtp\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value("smtp://mail.example.com:587"));
+    }
+
+    @Test
+    public void testAddTargetCertificate_InvalidProtocol() throws Exception {
+        this.mockMvc.perform(post("/api/certificates/targets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"host\": \"mail.example.com\", \"protocol\": \"gopher\"}"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("Error processing certificate"));
+    }
 }
@@ -0,0 +1,74 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.RenewalClaim;
+import com.devops.certtracker.exception.RenewalClaimException;
+import com.devops.certtracker.service.RenewalWorklist;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RenewalController.class)
+public class RenewalControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RenewalWorklist renewalWorklist;
+
+    private final CertificateView certificate = new CertificateView(7L, "https://www.google.com", null, "CN=google.com",
+            "CN=issuer.com", new Date(), new Date(), "platform");
+
+    @Test
+    public void testGetNextRenewals() throws Exception {
+        when(renewalWorklist.next(10)).thenReturn(List.of(certificate));
+
+        this.mockMvc.perform(get("/api/renewals/next"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].owner").value("platform"));
+    }
+
+    @Test
+    public void testClaimRenewals() throws Exception {
+        Instant leaseExpiresAt = Instant.parse("2026-01-01T00:30:00Z");
+        when(renewalWorklist.claim("alice", 5, Duration.ofMinutes(30)))
+                .thenReturn(List.of(new RenewalClaim(certificate, "alice", leaseExpiresAt)));
+
+        this.mockMvc.perform(post("/api/renewals/claim?worker=alice&limit=5&lease=PT30M"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].certificate.id").value(7))
+                .andExpect(jsonPath("$[0].worker").value("alice"));
+    }
+
+    @Test
+    public void testReleaseRenewal() throws Exception {
+        this.mockMvc.perform(post("/api/renewals/7/release?worker=alice"))
+                .andExpect(status().isNoContent());
+        verify(renewalWorklist).release(7L, "alice");
+    }
+
+    @Test
+    public void testReleaseRenewal_NotClaimed() throws Exception {
+        doThrow(new RenewalClaimException("Certificate with ID 7 is not claimed by bob"))
+                .when(renewalWorklist).release(7L, "bob");
+
+        this.mockMvc.perform(post("/api/renewals/7/release?worker=bob"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Renewal claim conflict"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.ScanJob;
+import com.devops.certtracker.entity.ScanResult;
+import com.devops.certtracker.entity.ScanResultPage;
+import com.devops.certtracker.exception.ScanJobNotFoundException;
+import com.devops.certtracker.exception.ScanJobRejectedException;
+import com.devops.certtracker.service.ScanJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ScanJobController.class)
+public class ScanJobControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ScanJobService scanJobService;
+
+    @Test
+    public void testSubmitScanJob() throws Exception {
+        ScanJob job = new ScanJob(List.of("https://www.google.com"));
+        when(scanJobService.submit(any())).thenReturn(job);
+
+        this.mockMvc.perform(post("/api/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"urls\": [\"https://www.google.com\"]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/jobs/" + job.getId()))
+                .andExpect(jsonPath("$.id").value(job.getId()))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.total").value(1));
+    }
+
+    @Test
+    public void testSubmitScanJob_QueueFull() throws Exception {
+        when(scanJobService.submit(any())).thenThrow(new ScanJobRejectedException("Too many scan jobs queued, try again later."));
+
+        this.mockMvc.perform(post("/api/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"all\": true}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.error").value("Scan job rejected"));
+    }
+
+    @Test
+    public void testGetScanJobResults() throws Exception {
+        ScanResultPage page = new ScanResultPage(List.of(ScanResult.failure("https://a.example.com", "down")), 3);
+        when(scanJobService.getResults("job", 2, 100)).thenReturn(page);
+
+        this.mockMvc.perform(get("/api/jobs/{id}/results", "job").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].url").value("https://a.example.com"))
+                .andExpect(jsonPath("$.items[0].error").value("down"))
+                .andExpect(jsonPath("$.next").value(3));
+    }
+
+    @Test
+    public void testGetScanJob_CountsOnly() throws Exception {
+        ScanJob job = new ScanJob(List.of("https://a.example.com"));
+        job.addResult(ScanResult.failure("https://a.example.com", "down"));
+        when(scanJobService.getJob(job.getId())).thenReturn(job);
+
+        this.mockMvc.perform(get("/api/jobs/{id}", job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.urls").doesNotExist())
+                .andExpect(jsonPath("$.results").doesNotExist());
+    }
+
+    @Test
+    public void testGetScanJob_NotFound() throws Exception {
+        when(scanJobService.getJob("missing")).thenThrow(new ScanJobNotFoundException("Scan job with ID missing not found"));
+
+        this.mockMvc.perform(get("/api/jobs/{id}", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Scan job not Found"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.devops.certtracker.controller;
+
+import com.devops.certtracker.entity.EndpointChange;
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotDiffSummary;
+import com.devops.certtracker.exception.EntityNotFoundException;
+import com.devops.certtracker.service.ScanSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.Writer;
+import java.util.Date;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SnapshotController.class)
+public class SnapshotControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ScanSnapshotService scanSnapshotService;
+
+    @Test
+    public void testCreateSnapshot() throws Exception {
+        when(scanSnapshotService.createSnapshot("before")).thenReturn(new ScanSnapshot("before", new Date()));
+
+        this.mockMvc.perform(post("/api/snapshots?label=before"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.label").value("before"));
+    }
+
+    @Test
+    public void testDiffSnapshots() throws Exception {
+        when(scanSnapshotService.writeDiff(eq(1L), eq(2L), eq(Set.of(EndpointChange.ROTATED, EndpointChange.UNCHANGED)), any()))
+                .thenAnswer(invocation -> {
+                    Writer writer = invocation.getArgument(3);
+                    writer.write("{\"change\":\"ROTATED\"}\n");
+                    writer.flush();
+                    return new SnapshotDiffSummary(1L, 2L, 0, 0, 1, 0, 0);
+                });
+
+        MvcResult result = this.mockMvc.perform(get("/api/snapshots/1/diff/2?change=ROTATED,UNCHANGED"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"change\":\"ROTATED\"}\n"));
+    }
+
+    @Test
+    public void testDiffUnknownSnapshot() throws Exception {
+        when(scanSnapshotService.getSnapshot(2L)).thenThrow(new EntityNotFoundException("Snapshot with ID 2 not found"));
+
+        this.mockMvc.perform(get("/api/snapshots/1/diff/2"))
+                .andExpect(status().isNotFound());
+        verify(scanSnapshotService, never()).writeDiff(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testSummarizeDiff() throws Exception {
+        when(scanSnapshotService.diff(eq(1L), eq(2L), eq(Set.of()), any()))
+                .thenReturn(new SnapshotDiffSummary(1L, 2L, 3, 0, 95, 2, 10));
+
+        this.mockMvc.perform(get("/api/snapshots/1/diff/2/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rotated").value(95))
+                .andExpect(jsonPath("$.issuerChanged").value(2));
+    }
+}
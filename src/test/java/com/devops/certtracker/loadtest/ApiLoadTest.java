@@ -0,0 +1,224 @@
+package com.devops.certtracker.loadtest;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.repository.CertificateRepository;
+import com.devops.certtracker.support.TestTlsServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives /add, /info and /all of a running application at a fixed rate against a farm of local
+ * HTTPS servers with injected latency and failures, and reports throughput and p50/p99/p999
+ * latency per endpoint. Every run is appended to {@code load-test-results/results.csv} and compared
+ * with the previous run of the same configuration.
+ * <p>
+ * Run with {@code mvn test -Ploadtest}, tuning the run with system properties:
+ * {@code -Dloadtest.rate=30} (requests per second), {@code -Dloadtest.duration=120} (seconds),
+ * {@code -Dloadtest.servers=8}, {@code -Dloadtest.latency-ms=20},
+ * {@code -Dloadtest.failure-rate=0.02} (connections dropped before the handshake),
+ * {@code -Dloadtest.http-error-rate=0.02} (requests answered with a 503),
+ * {@code -Dloadtest.rows=1000} (certificates in the table) and {@code -Dloadtest.results-dir}.
+ * The table is reset to the same number of rows before every run, one of them per target, so that
+ * /add only updates rows and /all lists the same table in every run. The p999 is only meaningful
+ * with at least 1000 requests per endpoint, which the default rate and duration give.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.com.devops.certtracker=WARN"})
+public class ApiLoadTest {
+
+    private static final String CSV_HEADER =
+            "timestamp,endpoint,rate,servers,latency_ms,failure_rate,http_error_rate,requests,errors,throughput,p50_ms,p99_ms,p999_ms,max_ms";
+
+    private static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "30"));
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 120);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 5);
+    private static final int SERVERS = Integer.getInteger("loadtest.servers", 8);
+    private static final int LATENCY_MILLIS = Integer.getInteger("loadtest.latency-ms", 20);
+    private static final double FAILURE_RATE = Double.parseDouble(System.getProperty("loadtest.failure-rate", "0.02"));
+    private static final double HTTP_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.http-error-rate", "0.02"));
+    private static final int ROWS = Math.max(Integer.getInteger("loadtest.rows", 1000), SERVERS);
+    private static final Path RESULTS_DIR = Path.of(System.getProperty("loadtest.results-dir", "load-test-results"));
+
+    private static final List<TestTlsServer> targets = new ArrayList<>();
+
+    private static SSLSocketFactory defaultSocketFactory;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @BeforeAll
+    public static void startTargets() throws Exception {
+        for (int i = 0; i < SERVERS; i++) {
+            TestTlsServer target = new TestTlsServer("server.p12");
+            target.setHttp(true);
+            target.setLatency(Duration.ofMillis(LATENCY_MILLIS));
+            target.setFailureRate(FAILURE_RATE);
+            target.setHttpErrorRate(HTTP_ERROR_RATE);
+            targets.add(target);
+        }
+        // /add and /info connect with the JVM's default HTTPS settings, which must trust the targets
+        defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        HttpsURLConnection.setDefaultSSLSocketFactory(trustingTestCertificate().getSocketFactory());
+    }
+
+    @AfterAll
+    public static void stopTargets() throws IOException {
+        HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        for (TestTlsServer target : targets) {
+            target.close();
+        }
+        targets.clear();
+    }
+
+    @BeforeEach
+    public void seedTable() {
+        certificateRepository.deleteAll();
+        Date validFrom = new Date();
+        Date validTo = Date.from(Instant.now().plus(Duration.ofDays(90)));
+        certificateRepository.saveAll(IntStream.range(0, ROWS)
+                .mapToObj(i -> i < SERVERS ? targetUrl(i) : "https://host" + i + ".example.com")
+                .map(url -> new Certificate(url, "CN=" + URI.create(url).getHost(), "CN=Example CA", validFrom, validTo))
+                .toList());
+    }
+
+    @Test
+    public void loadTestApi() throws IOException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String api = "http://localhost:" + port + "/api/certificates";
+        LoadGenerator generator = new LoadGenerator(client, List.of(
+                new LoadGenerator.Operation("/add", i -> post(api + "/add", targetUrl(i))),
+                new LoadGenerator.Operation("/info", i -> post(api + "/info", targetUrl(i + 1))),
+                new LoadGenerator.Operation("/all", i -> HttpRequest.newBuilder(URI.create(api + "/all"))
+                        .timeout(Duration.ofSeconds(30)).GET().build())));
+
+        generator.run(RATE, Duration.ofSeconds(WARMUP_SECONDS));
+        List<LoadGenerator.Result> results = generator.run(RATE, Duration.ofSeconds(DURATION_SECONDS));
+
+        report(results);
+        for (LoadGenerator.Result result : results) {
+            assertTrue(result.requests() > 0, "No response for " + result.name());
+        }
+        // Listing does not touch the targets, so injected failures must not reach it
+        assertEquals(0, results.get(2).errors(), "/all failed under load");
+        // /add updates the row of its target, so every run measures a table of the same size
+        assertEquals(ROWS, certificateRepository.count(), "/add changed the size of the table");
+    }
+
+    private String targetUrl(int i) {
+        return "https://localhost:" + targets.get(i % targets.size()).getPort();
+    }
+
+    private static HttpRequest post(String uri, String url) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + url + "\"}"))
+                .build();
+    }
+
+    private static void report(List<LoadGenerator.Result> results) throws IOException {
+        Files.createDirectories(RESULTS_DIR);
+        Path csv = RESULTS_DIR.resolve("results.csv");
+        Map<String, String[]> previous = previousRuns(csv);
+        String timestamp = Instant.now().toString();
+
+        List<String> rows = new ArrayList<>();
+        if (!Files.exists(csv)) {
+            rows.add(CSV_HEADER);
+        }
+        for (LoadGenerator.Result result : results) {
+            String configuration = String.format(Locale.ROOT, "%s,%.1f,%d,%d,%.3f,%.3f", result.name(), RATE, SERVERS,
+                    LATENCY_MILLIS, FAILURE_RATE, HTTP_ERROR_RATE);
+            rows.add(String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f", timestamp, configuration,
+                    result.requests(), result.errors(), result.throughput(), result.p50Millis(), result.p99Millis(),
+                    result.p999Millis(), result.maxMillis()));
+
+            System.out.printf(Locale.ROOT, "[loadtest] %-5s requests=%d errors=%d throughput=%.1f req/s p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms%n",
+                    result.name(), result.requests(), result.errors(), result.throughput(), result.p50Millis(),
+                    result.p99Millis(), result.p999Millis(), result.maxMillis());
+            if (result.firstError() != null) {
+                System.out.printf("[loadtest] %-5s first error: %s%n", result.name(), result.firstError());
+            }
+            String[] last = previous.get(configuration);
+            if (last != null) {
+                System.out.printf(Locale.ROOT, "[loadtest] %-5s vs %s: p50 %+.1fms p99 %+.1fms p999 %+.1fms%n",
+                        result.name(), last[0], result.p50Millis() - Double.parseDouble(last[10]),
+                        result.p99Millis() - Double.parseDouble(last[11]), result.p999Millis() - Double.parseDouble(last[12]));
+            }
+        }
+        Files.write(csv, rows, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("[loadtest] results appended to " + csv.toAbsolutePath());
+    }
+
+    /**
+     * Returns the last recorded run of each endpoint and configuration, keyed like the
+     * configuration columns of the CSV.
+     */
+    private static Map<String, String[]> previousRuns(Path csv) throws IOException {
+        Map<String, String[]> runs = new HashMap<>();
+        if (Files.exists(csv)) {
+            for (String line : Files.readAllLines(csv, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length == 14 && !line.equals(CSV_HEADER)) {
+                    runs.put(String.join(",", List.of(fields).subList(1, 7)), fields);
+                }
+            }
+        }
+        return runs;
+    }
+
+    private static SSLContext trustingTestCertificate() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = ApiLoadTest.class.getResourceAsStream("/certs/server.p12")) {
+            keyStore.load(inputStream, TestTlsServer.PASSWORD.toCharArray());
+        }
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("target", keyStore.getCertificate(keyStore.aliases().nextElement()));
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagerFactory.getTrustManagers(), null);
+        return context;
+    }
+}
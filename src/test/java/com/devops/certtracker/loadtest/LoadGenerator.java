@@ -0,0 +1,134 @@
+package com.devops.certtracker.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Open-loop load generator: requests are sent on a fixed schedule whatever the response times,
+ * the way independent users would send them. Latency is measured from the time each request was
+ * scheduled rather than sent, so a stalled server is charged for the requests queued behind it
+ * (no coordinated omission).
+ */
+public class LoadGenerator {
+
+    /**
+     * One kind of request in the mix.
+     *
+     * @param name    The label results are reported under, such as /add.
+     * @param request Builds the i-th request of this kind.
+     */
+    public record Operation(String name, IntFunction<HttpRequest> request) {
+    }
+
+    /**
+     * Latency and throughput of one operation over a run.
+     *
+     * @param firstError The first failure seen, such as "HTTP 500" or an exception, or null.
+     */
+    public record Result(String name, int requests, int errors, double throughput,
+                         double p50Millis, double p99Millis, double p999Millis, double maxMillis, String firstError) {
+    }
+
+    private final HttpClient client;
+    private final List<Operation> operations;
+
+    public LoadGenerator(HttpClient client, List<Operation> operations) {
+        this.client = client;
+        this.operations = operations;
+    }
+
+    /**
+     * Sends requests at the given total rate, cycling through the operations, then waits for the
+     * outstanding responses.
+     *
+     * @param ratePerSecond The total number of requests per second.
+     * @param duration      How long to send requests for.
+     * @return The results per operation, in the order of the operations.
+     */
+    public List<Result> run(double ratePerSecond, Duration duration) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        int total = (int) (duration.toNanos() / intervalNanos);
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        operations.forEach(operation -> recorders.put(operation.name(), new Recorder()));
+
+        List<CompletableFuture<?>> inFlight = new ArrayList<>(total);
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = operations.get(i % operations.size());
+            Recorder recorder = recorders.get(operation.name());
+            inFlight.add(client.sendAsync(operation.request().apply(i / operations.size()), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> recorder.record(System.nanoTime() - scheduled,
+                            error != null ? error.toString()
+                                    : response.statusCode() >= 400 ? "HTTP " + response.statusCode() : null)));
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                    .exceptionally(error -> null)
+                    .get(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Requests still outstanding are reported as missing from the counts
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        List<Result> results = new ArrayList<>();
+        recorders.forEach((name, recorder) -> results.add(recorder.result(name, elapsedSeconds)));
+        return results;
+    }
+
+    /**
+     * Collects the latencies of one operation. Every sample is kept, so the tail percentiles are
+     * exact rather than bucketed.
+     */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private String firstError;
+
+        synchronized void record(long latencyNanos, String error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (error != null && errors++ == 0) {
+                firstError = error;
+            }
+        }
+
+        synchronized Result result(String name, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(name, count, errors, count / elapsedSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    count == 0 ? 0 : sorted[count - 1] / 1e6, firstError);
+        }
+
+        // Nearest-rank percentile, in milliseconds
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.devops.certtracker.repository;
+
+import com.devops.certtracker.entity.Certificate;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the insert throughput of the bulk save path for 100k certificates.
+ * Run with {@code mvn test -Pbenchmark}.
+ * <p>
+ * The IDENTITY baseline predates this benchmark's entity and schema. To measure it, check out the
+ * commit that introduced the benchmark, set the ID back to
+ * {@code @GeneratedValue(strategy = GenerationType.IDENTITY)}, declare the id column of the H2 V1
+ * migration {@code generated by default as identity} and remove the
+ * {@code hibernate.jdbc.batch_size} and {@code order_*} properties. An insert that must return
+ * its generated key cannot be batched, so every row is a round trip.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class CertificateInsertBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        certificateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void benchmarkInsert() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Date validFrom = Date.from(Instant.now());
+        Date validTo = Date.from(Instant.now().plusSeconds(90L * 24 * 3600));
+
+        long start = System.nanoTime();
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            List<Certificate> chunk = new ArrayList<>(CHUNK);
+            for (int i = offset; i < offset + CHUNK; i++) {
+                chunk.add(new Certificate("https://host" + i + ".example.com", "CN=host" + i + ".example.com",
+                        "CN=Example CA", validFrom, validTo));
+            }
+            transaction.executeWithoutResult(status -> {
+                certificateRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(ROWS, certificateRepository.count());
+        System.out.printf("[benchmark] insert rows=%d elapsed=%dms throughput=%d rows/s%n",
+                ROWS, elapsedMillis, ROWS * 1000L / Math.max(1, elapsedMillis));
+    }
+}
@@ -0,0 +1,98 @@
+package com.devops.certtracker.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares listing 100k certificates as managed entities against read-only views.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class CertificateListingBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        certificateRepository.deleteAllInBatch();
+        Timestamp validFrom = Timestamp.from(Instant.now());
+        Timestamp validTo = Timestamp.from(Instant.now().plusSeconds(90L * 24 * 3600));
+        jdbcTemplate.batchUpdate(
+                "insert into certificates (id, url, subject, issuer, valid_from, valid_to) "
+                        + "values (next value for certificates_seq, ?, ?, ?, ?, ?)",
+                java.util.stream.IntStream.range(0, ROWS)
+                        .mapToObj(i -> new Object[]{"https://host" + i + ".example.com",
+                                "CN=host" + i + ".example.com", "CN=Example CA", validFrom, validTo})
+                        .toList());
+    }
+
+    @Test
+    public void benchmarkListing() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            readWrite.execute(status -> certificateRepository.findAll().size());
+            readOnly.execute(status -> certificateRepository.findAllViews().size());
+        }
+
+        report("entities (findAll)", () -> readWrite.execute(status -> measure(certificateRepository::findAll)));
+        report("views (findAllViews, read-only)", () -> readOnly.execute(status -> measure(certificateRepository::findAllViews)));
+    }
+
+    private static Measurement measure(Supplier<List<?>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeapAfterGc();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        List<?> rows = query.get();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        // Measured while the transaction, and so the persistence context, is still open
+        long retained = usedHeapAfterGc() - heapBefore;
+        assertEquals(ROWS, rows.size());
+        return new Measurement(elapsedNanos / 1_000_000, allocated, retained);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void report(String label, Supplier<Measurement> run) {
+        Measurement measurement = run.get();
+        System.out.printf("[benchmark] %-32s rows=%d latency=%dms allocated=%dMB retained=%dMB%n",
+                label, ROWS, measurement.millis(), measurement.allocated() >> 20, measurement.retained() >> 20);
+    }
+
+    private record Measurement(long millis, long allocated, long retained) {
+    }
+}
@@ -4,11 +4,21 @@
 package com.devops.certtracker.repository;
 
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateVersion;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.ExpiryBucketCounts;
+import com.devops.certtracker.entity.GroupCount;
+import com.devops.certtracker.entity.Tag;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +35,9 @@ public class CertificateRepositoryTest {
     @Autowired
     private CertificateRepository certificateRepository;
 
+    @Autowired
+    private TagRepository tagRepository;
+
     private Certificate certificate1;
     private Certificate certificate2;
 
@@ -84,9 +97,120 @@ public class CertificateRepositoryTest {
         assertEquals(2, list.size());
     }
 
+    /**
+     * Test retrieving certificate views one page at a time, in ID order, by offset and after an ID.
+     */
+    @Test
+    @DisplayName("Should return certificate views one page at a time")
+    public void testFindViews() {
+        Certificate first = certificateRepository.save(certificate1);
+        Certificate second = certificateRepository.save(certificate2);
+
+        List<CertificateView> firstPage = certificateRepository.findViews(PageRequest.of(0, 1, Sort.by("id")));
+        List<CertificateView> secondPage = certificateRepository.findViews(PageRequest.of(1, 1, Sort.by("id")));
+
+        assertEquals(List.of(first.getId()), firstPage.stream().map(CertificateView::id).toList());
+        assertEquals(List.of(second.getId()), secondPage.stream().map(CertificateView::id).toList());
+        assertTrue(certificateRepository.findViews(PageRequest.of(2, 1)).isEmpty());
+
+        assertEquals(List.of(second.getId()), certificateRepository.findViewsAfter(first.getId(), PageRequest.ofSize(1))
+                .stream().map(CertificateView::id).toList());
+        assertEquals(List.of(first.getId(), second.getId()), certificateRepository.findViewsAfter(0, PageRequest.ofSize(5))
+                .stream().map(CertificateView::id).toList());
+        assertTrue(certificateRepository.findViewsAfter(second.getId(), PageRequest.ofSize(1)).isEmpty());
+    }
+
+    /**
+     * Test that every update of a certificate increments its row version.
+     */
+    @Test
+    @DisplayName("Should increment the row version on every update")
+    public void testVersion() {
+        Certificate saved = certificateRepository.saveAndFlush(certificate1);
+        long created = saved.getVersion();
+
+        saved.setOwner("team-a");
+        certificateRepository.saveAndFlush(saved);
+
+        assertEquals(created + 1, saved.getVersion());
+        assertEquals(List.of(new CertificateVersion(saved.getId(), created + 1)),
+                certificateRepository.lockVersions(List.of(saved.getId())));
+    }
+
+    /**
+     * Test deleting several certificates by ID in one statement.
+     */
+    @Test
+    @DisplayName("Should delete certificates by ID list and ignore unknown IDs")
+    public void testDeleteByIdIn() {
+        Certificate first = certificateRepository.save(certificate1);
+        Certificate second = certificateRepository.save(certificate2);
+
+        assertEquals(List.of(new CertificateVersion(first.getId(), first.getVersion())),
+                certificateRepository.lockVersions(List.of(first.getId(), -1L)));
+        int deleted = certificateRepository.deleteByIdIn(List.of(first.getId(), -1L));
+
+        assertEquals(1, deleted);
+        assertFalse(certificateRepository.existsById(first.getId()));
+        assertTrue(certificateRepository.existsById(second.getId()));
+    }
+
+    /**
+     * Test selecting and deleting certificates by URL pattern, issuer and expiry.
+     */
+    @Test
+    @DisplayName("Should select and delete only the certificates matching every filter criterion")
+    public void testLockAndDeleteByFilter() {
+        Date yesterday = Date.from(Instant.now().minus(Duration.ofDays(1)));
+        Date nextYear = Date.from(Instant.now().plus(Duration.ofDays(365)));
+        certificate1.setUrl("https://a_b.example.com");
+        certificate1.setValidTo(yesterday);
+        certificate2.setUrl("https://axb.example.com");
+        certificate2.setValidTo(yesterday);
+        Certificate other = new Certificate("https://a_b.example.com/valid", "CN=a_b.example.com", "CN=issuer.com", new Date(), nextYear);
+        certificateRepository.saveAll(List.of(certificate1, certificate2, other));
+
+        // "_" is escaped, so it does not match the "x" of axb.example.com
+        assertEquals(List.of(), certificateRepository.lockVersionsByFilter("https://a!_b.%", "CN=other.com", null));
+        List<Long> ids = certificateRepository.lockVersionsByFilter("https://a!_b.%", null, Date.from(Instant.now()))
+                .stream().map(CertificateVersion::id).toList();
+        assertEquals(List.of(certificate1.getId()), ids);
+        assertEquals(1, certificateRepository.deleteByIdIn(ids));
+
+        assertEquals(List.of("https://axb.example.com", "https://a_b.example.com/valid"),
+                certificateRepository.findAllViews().stream().map(CertificateView::url).toList());
+        assertEquals(2, certificateRepository.lockVersionsByFilter(null, "CN=issuer.com", null).size());
+    }
+
     /**
      * Test retrieving a certificate by its ID from the database.
      */
+    @Test
+    @DisplayName("Should find weak TLS configurations and count certificates by key")
+    public void testFindViewsByPosture() {
+        certificate1.setTlsProtocol("TLSv1");
+        certificate1.setKeyAlgorithm("RSA");
+        certificate1.setKeySize(1024);
+        certificate1.setSignatureAlgorithm("SHA1withRSA");
+        certificate2.setTlsProtocol("TLSv1.3");
+        certificate2.setKeyAlgorithm("RSA");
+        certificate2.setKeySize(2048);
+        certificate2.setSignatureAlgorithm("SHA256withRSA");
+        Certificate weak = certificateRepository.save(certificate1);
+        certificateRepository.save(certificate2);
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("id"));
+
+        Page<CertificateView> oldProtocol = certificateRepository.findViewsByPosture("TLSv1", null, null, null, pageRequest);
+        Page<CertificateView> smallRsa = certificateRepository.findViewsByPosture(null, "RSA", 2047, null, pageRequest);
+        Page<CertificateView> any = certificateRepository.findViewsByPosture(null, null, null, null, pageRequest);
+        List<GroupCount> byKey = certificateRepository.countByKey();
+
+        assertEquals(List.of(weak.getId()), oldProtocol.getContent().stream().map(CertificateView::id).toList());
+        assertEquals(List.of(weak.getId()), smallRsa.getContent().stream().map(CertificateView::id).toList());
+        assertEquals(2, any.getTotalElements());
+        assertEquals(List.of("RSA-1024", "RSA-2048"), byKey.stream().map(GroupCount::getName).sorted().toList());
+    }
+
     @Test
     @DisplayName("Should return certificate by its id")
     public void testFindById() {
@@ -148,4 +272,139 @@ public class CertificateRepositoryTest {
         // Check if certificate1 is not present in the database
         assertFalse(existingCertificate.isPresent());
     }
+
+    /**
+     * Test counting certificates per expiry bucket with a single aggregate query.
+     */
+    @Test
+    @DisplayName("Should count certificates in each expiry bucket")
+    public void testCountByExpiryBucket() {
+        Instant now = Instant.now();
+        certificate1.setValidTo(Date.from(now.minus(Duration.ofDays(1))));
+        certificate2.setValidTo(Date.from(now.plus(Duration.ofDays(20))));
+        certificateRepository.save(certificate1);
+        certificateRepository.save(certificate2);
+
+        ExpiryBucketCounts counts = certificateRepository.countByExpiryBucket(Date.from(now),
+                Date.from(now.plus(Duration.ofDays(14))), Date.from(now.plus(Duration.ofDays(42))));
+
+        assertEquals(1, counts.getExpired());
+        assertEquals(0, counts.getExpiringInTwoWeeks());
+        assertEquals(1, counts.getExpiringInSixWeeks());
+        assertEquals(0, counts.getGood());
+    }
+
+    /**
+     * Test that the expiry buckets are all zero on an empty table.
+     */
+    @Test
+    @DisplayName("Should return zero counts when there is no certificate")
+    public void testCountByExpiryBucketEmpty() {
+        Date now = new Date();
+
+        ExpiryBucketCounts counts = certificateRepository.countByExpiryBucket(now, now, now);
+
+        assertEquals(0, counts.getExpired());
+        assertEquals(0, counts.getGood());
+    }
+
+    /**
+     * Test grouping certificates by issuer.
+     */
+    @Test
+    @DisplayName("Should count certificates per issuer")
+    public void testCountByIssuer() {
+        certificateRepository.save(certificate1);
+        certificateRepository.save(certificate2);
+
+        List<GroupCount> counts = certificateRepository.countByIssuer();
+
+        assertEquals(1, counts.size());
+        assertEquals("CN=issuer.com", counts.get(0).getName());
+        assertEquals(2, counts.get(0).getCount());
+    }
+
+    /**
+     * Test counting certificates per registrable domain, largest first and capped.
+     */
+    @Test
+    @DisplayName("Should count certificates per registrable domain")
+    public void testCountByDomain() {
+        for (String url : List.of("https://a.example.com", "https://b.example.com:8443", "https://www.Example.com.",
+                "https://shop.example.co.uk", "https://example.co.uk", "https://10.0.0.5")) {
+            certificateRepository.save(new Certificate(url, "CN=" + url, "CN=issuer.com", new Date(), new Date()));
+        }
+
+        List<GroupCount> counts = certificateRepository.countByDomain(PageRequest.of(0, 2));
+
+        assertEquals(2, counts.size());
+        assertEquals("example.com", counts.get(0).getName());
+        assertEquals(3, counts.get(0).getCount());
+        assertEquals("example.co.uk", counts.get(1).getName());
+        assertEquals(2, counts.get(1).getCount());
+        assertEquals(3, certificateRepository.countByDomain(PageRequest.of(0, 20)).size());
+    }
+
+    /**
+     * Test filtering certificates by owner and tags, and counting them per owner and tag.
+     */
+    @Test
+    @DisplayName("Should filter and count certificates by owner and tags")
+    public void testOwnerAndTags() {
+        List<Tag> tags = tagRepository.saveAll(List.of(new Tag("prod"), new Tag("payments")));
+        certificate1.setOwner("team-a");
+        certificate1.getTags().addAll(tags);
+        certificate2.setOwner("team-b");
+        certificate2.getTags().add(tags.get(0));
+        Certificate first = certificateRepository.save(certificate1);
+        certificateRepository.save(certificate2);
+        PageRequest page = PageRequest.of(0, 10, Sort.by("id"));
+
+        assertEquals(List.of(first.getId()),
+                certificateRepository.findViewsByOwner("team-a", page).map(CertificateView::id).getContent());
+        assertEquals(2, certificateRepository.findViewsByOwner(null, page).getTotalElements());
+        assertEquals(2, certificateRepository.findViewsByTags(List.of("prod"), 1, null, page).getTotalElements());
+        assertEquals(List.of(first.getId()), certificateRepository.findViewsByTags(List.of("prod", "payments"), 2, null, page)
+                .map(CertificateView::id).getContent());
+        assertTrue(certificateRepository.findViewsByTags(List.of("prod"), 1, "team-c", page).isEmpty());
+        assertEquals(List.of("https://www.google.com"), certificateRepository.findDistinctUrlsByTag("payments"));
+
+        List<GroupCount> byTag = certificateRepository.countByTag();
+        assertEquals("prod", byTag.get(0).getName());
+        assertEquals(2, byTag.get(0).getCount());
+        assertEquals(2, certificateRepository.countByOwner().size());
+    }
+
+    /**
+     * Test that bulk deletes also remove the tag links, through the foreign key cascade.
+     */
+    @Test
+    @DisplayName("Should delete tagged certificates in bulk and keep their tags")
+    public void testDeleteTaggedCertificates() {
+        Tag prod = tagRepository.save(new Tag("prod"));
+        certificate1.getTags().add(prod);
+        Certificate saved = certificateRepository.save(certificate1);
+
+        assertEquals(1, certificateRepository.deleteByIdIn(List.of(saved.getId())));
+
+        assertTrue(certificateRepository.countByTag().isEmpty());
+        assertEquals(1, tagRepository.count());
+    }
+
+    /**
+     * Test listing certificates as read-only views.
+     */
+    @Test
+    @DisplayName("Should return certificate views ordered by id")
+    public void testFindAllViews() {
+        certificateRepository.save(certificate1);
+        certificateRepository.save(certificate2);
+
+        List<CertificateView> views = certificateRepository.findAllViews();
+
+        assertEquals(2, views.size());
+        assertEquals(certificate1.getId(), views.get(0).id());
+        assertEquals("https://www.github.com", views.get(1).url());
+        assertEquals(2, certificateRepository.streamAllViews().count());
+    }
 }
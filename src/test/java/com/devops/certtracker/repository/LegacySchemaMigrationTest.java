@@ -0,0 +1,54 @@
+package com.devops.certtracker.repository;
+
+import com.devops.certtracker.entity.Certificate;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests migrating a database whose certificates table and rows were created by Hibernate before
+ * Flyway managed the schema.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:db/legacy-schema.sql'")
+public class LegacySchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Test
+    @DisplayName("Baseline below V1, keep the existing rows and allocate new IDs after them")
+    public void testMigrateLegacySchema() {
+        List<String> applied = Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion)
+                .map(Object::toString).toList();
+        assertEquals("0", applied.get(0));
+        assertTrue(applied.contains("1"));
+        assertEquals(0, flyway.info().pending().length);
+
+        List<Certificate> saved = certificateRepository.saveAllAndFlush(IntStream.range(0, 60)
+                .mapToObj(i -> new Certificate("https://new" + i + ".example.com", "CN=new" + i, "CN=issuer.com", new Date(), new Date()))
+                .toList());
+
+        assertTrue(saved.stream().allMatch(certificate -> certificate.getId() > 3));
+        assertEquals(63, certificateRepository.count());
+        assertEquals("CN=legacy1.example.com", certificateRepository.findById(1L).orElseThrow().getSubject());
+        assertEquals("example.com", certificateRepository.findById(1L).orElseThrow().getDomain());
+    }
+}
@@ -0,0 +1,155 @@
+package com.devops.certtracker.repository;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.OutboxEntry;
+import com.devops.certtracker.entity.RevocationStatus;
+import com.devops.certtracker.entity.Tag;
+import com.devops.certtracker.service.CertificateArchiveService;
+import com.devops.certtracker.service.CertificateEventBus;
+import com.devops.certtracker.service.CertificateOutbox;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the Flyway migrations, the archival of long-expired certificates and the outbox tables against H2.
+ */
+@DataJpaTest
+@Import({CertificateArchiveService.class, CertificateOutbox.class, JacksonAutoConfiguration.class})
+@TestPropertySource(properties = "certtracker.archive.retention-days=30")
+public class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateArchiveService certificateArchiveService;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @MockBean
+    private CertificateEventBus certificateEventBus;
+
+    private long count(String sql) {
+        return ((Number) entityManager.createNativeQuery(sql).getSingleResult()).longValue();
+    }
+
+    private Certificate certificate(String url, Instant validTo) {
+        return new Certificate(url, "CN=" + url, "CN=issuer.com", Date.from(validTo.minus(Duration.ofDays(90))), Date.from(validTo));
+    }
+
+    @Test
+    @DisplayName("Should apply every migration")
+    public void testMigrationsApplied() {
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(flyway.info().applied().length >= 3);
+    }
+
+    @Test
+    @DisplayName("Should create the URL and expiry indexes")
+    public void testIndexesCreated() {
+        assertEquals(1, count("select count(*) from information_schema.indexes "
+                + "where table_name = 'CERTIFICATES' and index_name = 'IDX_CERTIFICATES_URL'"));
+        assertEquals(1, count("select count(*) from information_schema.indexes "
+                + "where table_name = 'CERTIFICATES' and index_name = 'IDX_CERTIFICATES_VALID_TO'"));
+    }
+
+    @Test
+    @DisplayName("Should move only long-expired certificates to the archive")
+    public void testArchiveExpiredCertificates() {
+        Instant now = Instant.now();
+        Certificate expired = certificate("https://old.example.com", now.minus(Duration.ofDays(60)));
+        expired.setIpAddress("192.0.2.10");
+        expired.setOwner("team-a");
+        expired.setRevocationStatus(RevocationStatus.GOOD);
+        expired.setTlsProtocol("TLSv1.2");
+        expired.setCipherSuite("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+        expired.setKeyAlgorithm("RSA");
+        expired.setKeySize(2048);
+        expired.setSignatureAlgorithm("SHA256withRSA");
+        expired.setFingerprint("ab".repeat(32));
+        expired.setTags(Set.of(tagRepository.save(new Tag("prod")), tagRepository.save(new Tag("payments"))));
+        Certificate old = certificateRepository.save(expired);
+        certificateRepository.save(certificate("https://recent.example.com", now.minus(Duration.ofDays(5))));
+        certificateRepository.save(certificate("https://valid.example.com", now.plus(Duration.ofDays(60))));
+        certificateRepository.flush();
+
+        int archived = certificateArchiveService.archiveExpiredCertificates();
+
+        assertEquals(1, archived);
+        assertEquals(2, certificateRepository.count());
+        assertEquals(1, count("select count(*) from certificates_archive where url = 'https://old.example.com' "
+                + "and ip_address = '192.0.2.10' and domain = 'example.com' and owner = 'team-a' "
+                + "and revocation_status = 'GOOD' and tls_protocol = 'TLSv1.2' "
+                + "and cipher_suite = 'TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256' and key_algorithm = 'RSA' "
+                + "and key_size = 2048 and signature_algorithm = 'SHA256withRSA' and fingerprint = '" + "ab".repeat(32) + "'"));
+        assertEquals(2, count("select count(*) from certificates_archive_tags where certificate_id = " + old.getId()
+                + " and name in ('prod', 'payments')"));
+        assertEquals(0, count("select count(*) from certificate_tags"));
+        assertEquals(1, count("select count(*) from certificate_outbox where event_type = 'DELETED' and certificate_id = "
+                + old.getId() + " and payload is null"));
+        verify(certificateEventBus).publish(argThat((List<CertificateEvent> events) -> events.size() == 1
+                && events.get(0).type() == CertificateEvent.Type.DELETED && events.get(0).certificateId().equals(old.getId())));
+        assertEquals(0, certificateArchiveService.archiveExpiredCertificates());
+    }
+
+    @Test
+    @DisplayName("Should leave the unpartitioned H2 archive alone")
+    public void testAddArchivePartitionsOnH2() {
+        assertDoesNotThrow(() -> certificateArchiveService.addArchivePartitions());
+    }
+
+    @Test
+    @DisplayName("Should let one owner at a time hold the relay lease")
+    public void testOutboxLease() {
+        Date now = new Date();
+        Date until = Date.from(now.toInstant().plus(Duration.ofMinutes(1)));
+
+        assertEquals(1, outboxRepository.acquireLock("a", now, until));
+        assertEquals(0, outboxRepository.acquireLock("b", now, until));
+        assertEquals(1, outboxRepository.acquireLock("a", now, until));
+        assertEquals(1, outboxRepository.acquireLock("b", Date.from(until.toInstant().plusMillis(1)), until));
+    }
+
+    @Test
+    @DisplayName("Should copy outbox entries to the dead letter table")
+    public void testOutboxDeadLetter() {
+        OutboxEntry entry = outboxRepository.saveAndFlush(new OutboxEntry("SAVED", 42L, 2, "{\"id\":42}", new Date()));
+
+        assertEquals(1, outboxRepository.recordFailure(List.of(entry.getId()), "Webhook answered 400"));
+        assertEquals(1, outboxRepository.copyToDeadLetter(List.of(entry.getId()), new Date()));
+        assertEquals(1, outboxRepository.deleteByIdIn(List.of(entry.getId())));
+
+        assertEquals(0, outboxRepository.count());
+        assertEquals(1, count("select count(*) from certificate_outbox_dead_letter where certificate_id = 42 "
+                + "and certificate_version = 2 and attempts = 1 and last_error = 'Webhook answered 400' and payload = '{\"id\":42}'"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.devops.certtracker.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the AdaptiveConcurrencyLimiter.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    @DisplayName("Grow the limit while calls are fast and the limit is in use")
+    public void testAdditiveIncrease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 16);
+
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.acquire();
+            }
+            for (int j = limiter.getInFlight(); j > 0; j--) {
+                limiter.release(FAST, true);
+            }
+        }
+
+        assertEquals(16, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Keep the limit when it is not the bottleneck")
+    public void testNoIncreaseWhenUnderused() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 16);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Shrink the limit when latency goes well over the baseline")
+    public void testDecreaseOnLatency() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 16);
+        limiter.acquire();
+        limiter.release(FAST, true);
+
+        limiter.acquire();
+        limiter.release(FAST * 5, true);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(1.2, limiter.getLatencyRatio(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Compare each call with the baseline of its own target, so slower targets are not overload")
+    public void testBaselinePerTarget() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 16);
+
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.acquire();
+            }
+            for (int j = limiter.getInFlight(); j > 0; j--) {
+                // A fleet mixing nearby targets with ones ten times slower
+                limiter.release(j % 2 == 0 ? "https://near.example.com" : "https://far.example.com",
+                        j % 2 == 0 ? FAST : FAST * 10, true);
+            }
+        }
+
+        assertEquals(16, limiter.getLimit());
+        assertEquals(2, limiter.getBaselineCount());
+
+        // The slow target slowing down further is overload
+        limiter.acquire();
+        limiter.release("https://far.example.com", FAST * 30, true);
+        assertEquals(14, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Remember the baselines of the most recently called targets only")
+    public void testBaselinesBounded() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 16);
+
+        for (int i = 0; i < AdaptiveConcurrencyLimiter.MAX_BASELINES + 10; i++) {
+            limiter.acquire();
+            limiter.release("https://host" + i + ".example.com", FAST, true);
+        }
+
+        assertEquals(AdaptiveConcurrencyLimiter.MAX_BASELINES, limiter.getBaselineCount());
+    }
+
+    @Test
+    @DisplayName("Shrink the limit when the error rate goes over the threshold, never below the minimum")
+    public void testDecreaseOnErrors() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 16);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Block callers while the limit is reached")
+    public void testAcquireBlocks() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(FAST, true);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    @Test
+    @DisplayName("Reject inconsistent limits")
+    public void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(4, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(4, 8, 2));
+    }
+}
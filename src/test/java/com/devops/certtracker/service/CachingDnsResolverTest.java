@@ -0,0 +1,83 @@
+package com.devops.certtracker.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the CachingDnsResolver, using a local resolver stub instead of real DNS.
+ */
+public class CachingDnsResolverTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final DnsResolver stub = host -> {
+        lookups.incrementAndGet();
+        if (host.startsWith("missing")) {
+            throw new UnknownHostException(host);
+        }
+        return List.of(InetAddress.getByAddress(host, new byte[]{127, 0, 0, 1}),
+                InetAddress.getByAddress(host, new byte[]{127, 0, 0, 2}));
+    };
+
+    @Test
+    @DisplayName("Resolve every address and serve repeated lookups from the cache")
+    public void testResolveCached() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(stub, Runnable::run, Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+        List<InetAddress> addresses = resolver.resolve("lb.example.com");
+        resolver.resolve("LB.example.com");
+
+        assertEquals(2, addresses.size());
+        assertEquals("127.0.0.2", addresses.get(1).getHostAddress());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    @DisplayName("Resolve again once the TTL has expired")
+    public void testResolveExpired() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(stub, Runnable::run, Duration.ofMillis(1), Duration.ofMillis(1));
+
+        resolver.resolve("lb.example.com");
+        Thread.sleep(5);
+        resolver.resolve("lb.example.com");
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    @DisplayName("Evict expired entries and keep fresh ones")
+    public void testEvictExpired() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(stub, Runnable::run, Duration.ofMillis(200), Duration.ofMillis(200));
+
+        resolver.resolve("old.example.com");
+        Thread.sleep(300);
+        resolver.resolve("lb.example.com");
+        resolver.evictExpired();
+
+        assertEquals(1, resolver.size());
+        resolver.resolve("lb.example.com");
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    @DisplayName("Cache failed lookups for the negative TTL")
+    public void testResolveUnknownHost() {
+        CachingDnsResolver resolver = new CachingDnsResolver(stub, Runnable::run, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.example.com"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.example.com"));
+        assertEquals(1, lookups.get());
+
+        resolver.invalidate("missing.example.com");
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.example.com"));
+        assertEquals(2, lookups.get());
+    }
+}
@@ -0,0 +1,33 @@
+package com.devops.certtracker.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the yearly archive partitions planned by the CertificateArchiveService. The
+ * archival itself is tested against H2 in SchemaMigrationTest.
+ */
+public class CertificateArchiveServiceTest {
+
+    @Test
+    @DisplayName("Split the coming years off pmax after the last yearly partition")
+    public void testPartitionsToAdd() {
+        assertEquals(List.of(2028), CertificateArchiveService.partitionsToAdd(
+                List.of("p2025", "p2026", "p2027", "pmax"), 2026, 2));
+        assertEquals(List.of(2028, 2029, 2030, 2031), CertificateArchiveService.partitionsToAdd(
+                List.of("p2025", "p2026", "p2027", "pmax"), 2029, 2));
+        assertEquals(List.of(), CertificateArchiveService.partitionsToAdd(
+                List.of("p2025", "p2026", "p2027", "p2028", "pmax"), 2026, 2));
+    }
+
+    @Test
+    @DisplayName("Start at the current year when only pmax exists, and never split a table without pmax")
+    public void testPartitionsToAdd_NoYearlyPartitions() {
+        assertEquals(List.of(2026, 2027, 2028), CertificateArchiveService.partitionsToAdd(List.of("pmax"), 2026, 2));
+        assertEquals(List.of(), CertificateArchiveService.partitionsToAdd(List.of("p2026"), 2026, 2));
+    }
+}
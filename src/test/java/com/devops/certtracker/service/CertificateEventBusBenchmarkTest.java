@@ -0,0 +1,117 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.repository.CertificateRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures publication throughput while a bulk scan saves certificates from every probe thread at
+ * once, with the renewal worklist listening. The bus is compared with calling the listener inline
+ * under a lock, which is what each saving thread would otherwise have to do.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class CertificateEventBusBenchmarkTest {
+
+    private static final int EVENTS = 200_000;
+
+    private static final int THREADS = 32;
+
+    @Test
+    public void benchmarkPublishUnderBulkScan() throws Exception {
+        List<CertificateEvent> events = new ArrayList<>(EVENTS);
+        Instant now = Instant.now();
+        for (int i = 0; i < EVENTS; i++) {
+            Certificate certificate = new Certificate("https://host" + i + ".example.com", "CN=host" + i, "CN=issuer.com",
+                    Date.from(now.minus(Duration.ofDays(30))), Date.from(now.plus(Duration.ofMinutes(i % 100_000))));
+            certificate.setId((long) i);
+            events.add(CertificateEvent.saved(CertificateEvent.Type.RESCANNED, certificate));
+        }
+
+        // Warm up the JIT
+        runBus(events.subList(0, 20_000), "warmup");
+        runInline(events.subList(0, 20_000), "warmup");
+
+        double inline = runInline(events, "inline-locked");
+        double bus = runBus(events, "bus");
+        System.out.printf("[benchmark] events bus/inline publish throughput ratio=%.1f%n", bus / inline);
+    }
+
+    private double runBus(List<CertificateEvent> events, String label) throws Exception {
+        RenewalWorklist worklist = new RenewalWorklist(mock(CertificateRepository.class), Duration.ofMinutes(15));
+        long[] lagMicros = new long[events.size()];
+        int[] delivered = {0};
+        CertificateEventListener lag = batch -> {
+            long nowMicros = Instant.now().toEpochMilli() * 1000;
+            for (CertificateEvent event : batch) {
+                lagMicros[delivered[0]++] = nowMicros - event.occurredAt().toEpochMilli() * 1000;
+            }
+        };
+        // Events are stamped before the run, so restamp them at publication to measure the lag
+        try (CertificateEventBus bus = new CertificateEventBus(List.of(worklist, lag), 65536, 256)) {
+            long start = System.nanoTime();
+            double publishSeconds = publishConcurrently(events, event -> bus.publish(new CertificateEvent(event.type(),
+                    event.certificateId(), event.version(), event.certificate(), Instant.now())));
+            assertTrue(bus.flush(Duration.ofMinutes(1)));
+            double totalSeconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(events.size(), delivered[0]);
+            Arrays.sort(lagMicros);
+            System.out.printf("[benchmark] events %s publish=%.0f events/s end-to-end=%.0f events/s lag p50=%.1fms p99=%.1fms max=%.1fms worklist=%d%n",
+                    label, events.size() / publishSeconds, events.size() / totalSeconds,
+                    lagMicros[lagMicros.length / 2] / 1000.0, lagMicros[(int) (lagMicros.length * 0.99)] / 1000.0,
+                    lagMicros[lagMicros.length - 1] / 1000.0, worklist.size());
+            return events.size() / publishSeconds;
+        }
+    }
+
+    private double runInline(List<CertificateEvent> events, String label) throws Exception {
+        RenewalWorklist worklist = new RenewalWorklist(mock(CertificateRepository.class), Duration.ofMinutes(15));
+        Object lock = new Object();
+        double publishSeconds = publishConcurrently(events, event -> {
+            synchronized (lock) {
+                worklist.onEvents(List.of(event));
+            }
+        });
+        System.out.printf("[benchmark] events %s publish=%.0f events/s worklist=%d%n",
+                label, events.size() / publishSeconds, worklist.size());
+        return events.size() / publishSeconds;
+    }
+
+    private static double publishConcurrently(List<CertificateEvent> events, Consumer<CertificateEvent> publish) {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<CompletableFuture<Void>> publishers = new ArrayList<>(THREADS);
+            long start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                publishers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = thread; i < events.size(); i += THREADS) {
+                        publish.accept(events.get(i));
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(publishers.toArray(CompletableFuture[]::new)).join();
+            return (System.nanoTime() - start) / 1e9;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
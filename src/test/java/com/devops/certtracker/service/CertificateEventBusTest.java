@@ -0,0 +1,147 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.CertificateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the CertificateEventBus: ordering, batching, failure isolation, back pressure
+ * and transaction-bound publication.
+ */
+public class CertificateEventBusTest {
+
+    private final List<CertificateEvent> received = new CopyOnWriteArrayList<>();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private CertificateEventBus bus;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        bus.close();
+    }
+
+    private void record(List<CertificateEvent> events) {
+        batchSizes.add(events.size());
+        received.addAll(events);
+    }
+
+    private static List<Long> ids(List<CertificateEvent> events) {
+        return events.stream().map(CertificateEvent::certificateId).toList();
+    }
+
+    @Test
+    @DisplayName("Deliver every event in publication order, in bounded batches")
+    public void testOrderedBatches() {
+        bus = new CertificateEventBus(List.of(this::record), 64, 16);
+        List<CertificateEvent> events = LongStream.rangeClosed(1, 1000).mapToObj(id -> CertificateEvent.deleted(id, 0)).toList();
+
+        events.forEach(bus::publish);
+
+        assertTrue(bus.flush(Duration.ofSeconds(10)));
+        assertEquals(ids(events), ids(received));
+        assertTrue(batchSizes.stream().allMatch(size -> size >= 1 && size <= 16));
+        assertEquals(1000, bus.getDelivered());
+        assertEquals(0, bus.getPending());
+    }
+
+    @Test
+    @DisplayName("Keep delivering to the other listeners when one fails")
+    public void testFailingListenerIsolated() {
+        bus = new CertificateEventBus(List.of(events -> {
+            throw new IllegalStateException("listener down");
+        }, this::record), 64, 16);
+
+        bus.publish(CertificateEvent.deleted(1L, 0));
+        bus.publish(CertificateEvent.deleted(2L, 0));
+
+        assertTrue(bus.flush(Duration.ofSeconds(10)));
+        assertEquals(List.of(1L, 2L), ids(received));
+    }
+
+    @Test
+    @DisplayName("Keep the dispatcher running when a listener throws an Error")
+    public void testListenerErrorIsolated() {
+        bus = new CertificateEventBus(List.of(events -> {
+            if (events.stream().anyMatch(event -> event.certificateId() == 1L)) {
+                throw new StackOverflowError("listener recursed");
+            }
+        }, this::record), 64, 1);
+
+        bus.publish(CertificateEvent.deleted(1L, 0));
+        bus.publish(CertificateEvent.deleted(2L, 0));
+
+        assertTrue(bus.flush(Duration.ofSeconds(10)));
+        assertEquals(List.of(1L, 2L), ids(received));
+    }
+
+    @Test
+    @DisplayName("Publish inside a transaction only once it commits")
+    public void testPublishedAfterCommit() {
+        bus = new CertificateEventBus(List.of(this::record), 64, 16);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(List.of(CertificateEvent.deleted(1L, 0)));
+            assertTrue(bus.flush(Duration.ofSeconds(10)));
+            assertTrue(received.isEmpty());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(bus.flush(Duration.ofSeconds(10)));
+        assertEquals(List.of(1L), ids(received));
+    }
+
+    @Test
+    @DisplayName("Make publishers wait instead of dropping events when the queue is full")
+    public void testBackPressure() throws Exception {
+        bus = new CertificateEventBus(List.of(events -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            record(events);
+        }), 8, 4);
+
+        AtomicInteger maxPending = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                maxPending.accumulateAndGet(bus.getPending(), Math::max);
+            }
+        });
+        sampler.start();
+        List<Thread> publishers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            long first = p * 100L;
+            Thread publisher = new Thread(() -> LongStream.range(first, first + 100)
+                    .forEach(id -> bus.publish(CertificateEvent.deleted(id, 0))));
+            publisher.start();
+            publishers.add(publisher);
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        sampler.interrupt();
+        sampler.join();
+
+        assertTrue(bus.flush(Duration.ofSeconds(30)));
+        assertEquals(400, received.size());
+        assertEquals(400, ids(received).stream().distinct().count());
+        assertTrue(maxPending.get() <= 8, "pending went up to " + maxPending.get());
+    }
+}
@@ -0,0 +1,110 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.exception.CertificateParseException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the CertificateFileParser, covering each supported upload format.
+ */
+public class CertificateFileParserTest {
+
+    private final CertificateFileParser parser = new CertificateFileParser();
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream inputStream = CertificateFileParserTest.class.getResourceAsStream("/certs/" + name)) {
+            assertNotNull(inputStream, "Missing test resource " + name);
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Test
+    @DisplayName("Parse a single PEM certificate")
+    public void testParsePem() throws Exception {
+        List<X509Certificate> certificates = parser.parse(resource("server.pem"), null);
+
+        assertEquals(1, certificates.size());
+        assertEquals("O=Cert Tracker Test,CN=localhost", certificates.get(0).getSubjectX500Principal().getName());
+    }
+
+    @Test
+    @DisplayName("Parse a PEM bundle in file order")
+    public void testParsePemBundle() throws Exception {
+        List<X509Certificate> certificates = parser.parse(resource("bundle.pem"), null);
+
+        assertEquals(3, certificates.size());
+        assertEquals("CN=bundle1.example.com", certificates.get(0).getSubjectX500Principal().getName());
+        assertEquals("CN=bundle3.example.com", certificates.get(2).getSubjectX500Principal().getName());
+    }
+
+    @Test
+    @DisplayName("Parse a large PEM bundle in parallel, keeping file order")
+    public void testParseLargePemBundle() throws Exception {
+        String bundle = new String(resource("bundle.pem"), StandardCharsets.US_ASCII);
+        byte[] content = bundle.repeat(CertificateFileParser.PARALLEL_THRESHOLD).getBytes(StandardCharsets.US_ASCII);
+
+        List<X509Certificate> certificates = parser.parse(content, null);
+
+        assertEquals(3 * CertificateFileParser.PARALLEL_THRESHOLD, certificates.size());
+        assertEquals("CN=bundle1.example.com", certificates.get(3).getSubjectX500Principal().getName());
+        assertEquals("CN=bundle3.example.com", certificates.get(certificates.size() - 1).getSubjectX500Principal().getName());
+    }
+
+    @Test
+    @DisplayName("Parse a DER certificate")
+    public void testParseDer() throws Exception {
+        List<X509Certificate> certificates = parser.parse(resource("server.der"), null);
+
+        assertEquals(1, certificates.size());
+        assertEquals(parser.parse(resource("server.pem"), null).get(0), certificates.get(0));
+    }
+
+    @Test
+    @DisplayName("Report a corrupt DER certificate as such, not as an unreadable keystore")
+    public void testParseDer_Corrupt() throws Exception {
+        byte[] der = resource("server.der");
+        byte[] corrupt = Arrays.copyOf(der, der.length / 2);
+
+        CertificateParseException exception = assertThrows(CertificateParseException.class,
+                () -> parser.parse(corrupt, null));
+
+        assertTrue(exception.getMessage().startsWith("Invalid certificate encoding"), exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Parse PKCS12 and JKS keystores")
+    public void testParseKeyStores() throws Exception {
+        X509Certificate expected = parser.parse(resource("server.pem"), null).get(0);
+
+        assertEquals(List.of(expected), parser.parse(resource("server.p12"), "changeit"));
+        assertEquals(List.of(expected), parser.parse(resource("server.jks"), "changeit"));
+    }
+
+    @Test
+    @DisplayName("Reject a keystore with the wrong password")
+    public void testParseKeyStore_WrongPassword() {
+        CertificateParseException exception = assertThrows(CertificateParseException.class,
+                () -> parser.parse(resource("server.p12"), "wrong"));
+
+        assertTrue(exception.getMessage().startsWith("Unable to read the PKCS12 keystore"));
+    }
+
+    @Test
+    @DisplayName("Reject content without any certificate")
+    public void testParse_InvalidContent() {
+        CertificateParseException exception = assertThrows(CertificateParseException.class,
+                () -> parser.parse("not a certificate".getBytes(StandardCharsets.US_ASCII), null));
+
+        assertEquals("No certificate found in the PEM content.", exception.getMessage());
+        assertThrows(CertificateParseException.class, () -> parser.parse(new byte[0], null));
+    }
+}
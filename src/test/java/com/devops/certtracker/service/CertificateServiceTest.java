@@ -3,11 +3,23 @@
  */
 package com.devops.certtracker.service;
 
+import com.devops.certtracker.entity.BulkDeleteResult;
 import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.CertificateFilter;
+import com.devops.certtracker.entity.CertificatePage;
+import com.devops.certtracker.entity.CertificateVersion;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.RevocationStatus;
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.entity.Tag;
 import com.devops.certtracker.exception.CertificateNoContentException;
 import com.devops.certtracker.exception.CertificateServiceException;
 import com.devops.certtracker.exception.EntityNotFoundException;
 import com.devops.certtracker.repository.CertificateRepository;
+import com.devops.certtracker.repository.TagRepository;
+import com.devops.certtracker.support.TestTlsServer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,8 +27,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +56,40 @@ public class CertificateServiceTest {
     @Mock
     private CertificateRepository certificateRepository;
 
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private RevocationChecker revocationChecker;
+
+    @Mock
+    private CertificateEventBus certificateEventBus;
+
+    @Mock
+    private CertificateOutbox certificateOutbox;
+
+    // Runs the callbacks in place, without a database
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private ProbeTracer probeTracer = new ProbeTracer(spans -> {});
+
+    // Real parser, so imports are exercised end to end without touching the network.
+    @Spy
+    private CertificateFileParser certificateFileParser = new CertificateFileParser();
+
+    // Real scan engine, with a DNS stub resolving every host to two local addresses.
+    @Spy
+    private ScanEngine scanEngine = new ScanEngine(
+            new CachingDnsResolver(host -> List.of(InetAddress.getByName("127.0.0.1"), InetAddress.getByName("127.0.0.2")),
+                    Runnable::run, java.time.Duration.ofMinutes(1), java.time.Duration.ofSeconds(10)),
+            new TlsProbe(2000, 2000),
+            Runnable::run,
+            Runnable::run,
+            new AdaptiveConcurrencyLimiter(8, 1, 32),
+            new ProbeTracer(spans -> {}));
+
     // The service under test, which will be automatically injected with mocked dependencies.
     @InjectMocks
     private CertificateService certificateService;
@@ -63,6 +121,11 @@ public class CertificateServiceTest {
         certificate2.setValidTo(new Date());
     }
 
+    private static CertificateView view(Long id, Certificate certificate) {
+        return new CertificateView(id, certificate.getUrl(), certificate.getIpAddress(), certificate.getSubject(), certificate.getIssuer(),
+                certificate.getValidFrom(), certificate.getValidTo(), certificate.getOwner());
+    }
+
     /**
      * Test the retrieval of all certificates from the database.
      */
@@ -70,13 +133,13 @@ public class CertificateServiceTest {
     @DisplayName("Get all certificates")
     public void testGetAllCertificates() {
         // Mock data
-        List<Certificate> certificates = new ArrayList<>();
-        certificates.add(certificate1);
-        certificates.add(certificate2);
-        when(certificateRepository.findAll()).thenReturn(certificates);
+        List<CertificateView> certificates = new ArrayList<>();
+        certificates.add(view(1L, certificate1));
+        certificates.add(view(2L, certificate2));
+        when(certificateRepository.findAllViews()).thenReturn(certificates);
 
         // Test
-        List<Certificate> result = certificateService.getAllCertificates();
+        List<CertificateView> result = certificateService.getAllCertificates();
 
         // Assertions
         assertEquals(2, certificates.size());
@@ -92,10 +155,10 @@ public class CertificateServiceTest {
     @DisplayName("Get all certificates with an empty list - No Content")
     public void testGetAllCertificates_EmptyList() {
         // Create an empty list of certificates
-        List<Certificate> emptyCertificates = new ArrayList<>();
+        List<CertificateView> emptyCertificates = new ArrayList<>();
 
         // Mock data
-        when(certificateRepository.findAll()).thenReturn(emptyCertificates);
+        when(certificateRepository.findAllViews()).thenReturn(emptyCertificates);
 
         // Test and assert exception
         CertificateNoContentException exception = assertThrows(CertificateNoContentException.class, () -> {
@@ -105,6 +168,137 @@ public class CertificateServiceTest {
         assertEquals("No certificates found in the database", exception.getMessage());
     }
 
+    /**
+     * Test retrieving one page of certificates, with the page size capped and the certificates
+     * counted for the first page only.
+     */
+    @Test
+    @DisplayName("Get a page of certificates")
+    public void testGetCertificatePage() {
+        List<CertificateView> views = List.of(view(1L, certificate1), view(2L, certificate2));
+        when(certificateRepository.findViews(any(Pageable.class))).thenReturn(views);
+        when(certificateRepository.count()).thenReturn(1002L);
+
+        CertificatePage first = certificateService.getCertificatePage(0, 10, null);
+        CertificatePage page = certificateService.getCertificatePage(2, 10_000, null);
+
+        assertEquals(1002L, first.total());
+        assertEquals(views, page.items());
+        assertEquals(2, page.page());
+        assertEquals(CertificateService.MAX_PAGE_SIZE, page.size());
+        assertNull(page.total());
+        verify(certificateRepository).findViews(PageRequest.of(2, CertificateService.MAX_PAGE_SIZE, Sort.by("id")));
+        verify(certificateRepository, times(1)).count();
+    }
+
+    /**
+     * Test retrieving the page following a known ID through the primary key.
+     */
+    @Test
+    @DisplayName("Get the page after the last ID of the previous one")
+    public void testGetCertificatePage_AfterId() {
+        List<CertificateView> views = List.of(view(201L, certificate1));
+        when(certificateRepository.findViewsAfter(200L, PageRequest.ofSize(200))).thenReturn(views);
+
+        CertificatePage page = certificateService.getCertificatePage(1, 200, 200L);
+
+        assertEquals(views, page.items());
+        assertEquals(1, page.page());
+        assertNull(page.total());
+        verify(certificateRepository, never()).findViews(any(Pageable.class));
+        verify(certificateRepository, never()).count();
+    }
+
+    /**
+     * Test searching by owner only, and by normalized tags and owner.
+     */
+    @Test
+    @DisplayName("Search certificates by owner and tags")
+    public void testSearchCertificates() {
+        Page<CertificateView> empty = Page.empty();
+        when(certificateRepository.findViewsByOwner(eq("team-a"), any(Pageable.class))).thenReturn(empty);
+        when(certificateRepository.findViewsByTags(eq(Set.of("prod", "payments")), eq(2L), eq("team-a"), any(Pageable.class)))
+                .thenReturn(empty);
+
+        certificateService.searchCertificates(" team-a ", List.of(), 0, 50);
+        CertificatePage page = certificateService.searchCertificates("team-a", List.of("Prod", "payments", "prod "), 0, 50);
+
+        assertEquals(0, page.total());
+        verify(certificateRepository).findViewsByOwner(eq("team-a"), any(Pageable.class));
+        verify(certificateRepository).findViewsByTags(eq(Set.of("prod", "payments")), eq(2L), eq("team-a"), any(Pageable.class));
+        assertThrows(CertificateServiceException.class,
+                () -> certificateService.searchCertificates(null, List.of(" "), 0, 50));
+    }
+
+    /**
+     * Test replacing the tags of a certificate, reusing existing tags and creating the others.
+     */
+    @Test
+    @DisplayName("Set the tags of a certificate")
+    public void testSetCertificateTags() {
+        certificate1.getTags().add(new Tag("old"));
+        Tag prod = new Tag("prod");
+        prod.setId(1L);
+        when(certificateRepository.findById(1L)).thenReturn(Optional.of(certificate1));
+        when(tagRepository.findByNameIn(Set.of("prod", "payments"))).thenReturn(List.of(prod));
+        when(tagRepository.saveAll(List.of(new Tag("payments")))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(certificateRepository.save(certificate1)).thenReturn(certificate1);
+
+        Certificate result = certificateService.setCertificateTags(1L, List.of("Prod", "payments"));
+
+        assertEquals(Set.of(new Tag("prod"), new Tag("payments")), result.getTags());
+        assertThrows(EntityNotFoundException.class, () -> certificateService.setCertificateTags(2L, List.of("prod")));
+    }
+
+    /**
+     * Test the bulk deletion of certificates by ID, sent in chunks without duplicates.
+     */
+    @Test
+    @DisplayName("Delete certificates by ID list")
+    public void testDeleteCertificatesByIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= CertificateService.DELETE_CHUNK_SIZE + 1; id++) {
+            ids.add(id);
+        }
+        ids.add(1L);
+        ids.add(999_999L);
+        // Every requested ID exists but the last one
+        when(certificateRepository.lockVersions(anyList())).thenAnswer(invocation -> ((List<Long>) invocation.getArgument(0)).stream()
+                .filter(id -> id != 999_999L).map(id -> new CertificateVersion(id, 0)).toList());
+        when(certificateRepository.deleteByIdIn(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        BulkDeleteResult result = certificateService.deleteCertificatesByIds(ids);
+
+        assertEquals(CertificateService.DELETE_CHUNK_SIZE + 1, result.deleted());
+        verify(certificateRepository, times(2)).deleteByIdIn(anyList());
+        verify(certificateEventBus).publish(argThat((List<CertificateEvent> events) -> events.size() == CertificateService.DELETE_CHUNK_SIZE + 1
+                && events.stream().noneMatch(event -> event.certificateId() == 999_999L)));
+        assertThrows(CertificateServiceException.class, () -> certificateService.deleteCertificatesByIds(List.of()));
+    }
+
+    /**
+     * Test the deletion of certificates by filter, with LIKE wildcards in the prefix escaped and
+     * only the rows locked by the filter deleted.
+     */
+    @Test
+    @DisplayName("Delete certificates by filter")
+    public void testDeleteCertificatesByFilter() {
+        Date cutoff = new Date();
+        when(certificateRepository.lockVersionsByFilter("https://100!%!_off!!.example.com%", null, cutoff))
+                .thenReturn(List.of(new CertificateVersion(4L, 0), new CertificateVersion(5L, 0), new CertificateVersion(6L, 0)));
+        when(certificateRepository.deleteByIdIn(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        BulkDeleteResult result = certificateService.deleteCertificatesByFilter(
+                new CertificateFilter("https://100%_off!.example.com", "", cutoff));
+
+        assertEquals(3, result.deleted());
+        assertThrows(CertificateServiceException.class,
+                () -> certificateService.deleteCertificatesByFilter(new CertificateFilter(null, "", null)));
+        verify(certificateRepository, times(1)).deleteByIdIn(List.of(4L, 5L, 6L));
+        verify(certificateEventBus).publish(argThat((List<CertificateEvent> events) ->
+                events.stream().map(CertificateEvent::certificateId).toList().equals(List.of(4L, 5L, 6L))));
+    }
+
     /**
      * Test the deletion of a certificate by ID.
      */
@@ -114,12 +308,18 @@ public class CertificateServiceTest {
         // Mock data
         Long certificateId = 1L;
         when(certificateRepository.existsById(certificateId)).thenReturn(true);
+        when(certificateRepository.lockVersions(List.of(certificateId))).thenReturn(List.of(new CertificateVersion(certificateId, 4)));
 
         // Test
         certificateService.deleteCertificateById(certificateId);
 
-        // Verify that deleteById is called
-        verify(certificateRepository, times(1)).deleteById(certificateId);
+        // Verify that the locked row is deleted and the deletion recorded in the outbox and published
+        verify(certificateRepository, times(1)).deleteByIdIn(List.of(certificateId));
+        verify(certificateOutbox, times(1)).append(argThat((List<CertificateEvent> events) -> events.size() == 1
+                && events.get(0).type() == CertificateEvent.Type.DELETED && events.get(0).certificateId().equals(certificateId)
+                && events.get(0).version() == 5));
+        verify(certificateEventBus, times(1)).publish(argThat((List<CertificateEvent> events) -> events.size() == 1
+                && events.get(0).type() == CertificateEvent.Type.DELETED && events.get(0).certificateId().equals(certificateId)));
     }
 
     /**
@@ -149,26 +349,74 @@ public class CertificateServiceTest {
     @Test
     @DisplayName("Retrieve and save a certificate with a valid URL")
     public void testRetrieveAndSaveCertificate_ValidUrl() throws Exception {
-        // Test case for retrieving and saving a certificate
-        String validHttpsUrl = "https://www.google.com";
-
-        Certificate savedCertificate = new Certificate();
-        savedCertificate.setUrl(validHttpsUrl);
-        savedCertificate.setSubject("CN=Test Subject");
-        savedCertificate.setIssuer("CN=Test Issuer");
-        savedCertificate.setValidFrom(new Date());
-        savedCertificate.setValidTo(new Date());
-
-        when(certificateRepository.save(any(Certificate.class))).thenReturn(savedCertificate);
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            String validHttpsUrl = "https://localhost:" + server.getPort();
+            when(certificateRepository.save(any(Certificate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Certificate result = certificateService.retrieveAndSaveCertificate(validHttpsUrl);
+
+            assertNotNull(result);
+            assertEquals(validHttpsUrl, result.getUrl());
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.getSubject());
+            assertNotNull(result.getIssuer());
+            assertNotNull(result.getValidFrom());
+            assertNotNull(result.getValidTo());
+            verify(certificateRepository).save(result);
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
 
-        Certificate result = certificateService.retrieveAndSaveCertificate(validHttpsUrl);
+    /**
+     * Test that the timings of a probe include its revocation check.
+     *
+     * @throws Exception If the local TLS server cannot be started.
+     */
+    @Test
+    @DisplayName("Get certificate info with timings including the revocation check")
+    public void testGetCertificateInfo_TimingsIncludeRevocation() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            when(revocationChecker.check(anyList(), anyList())).thenReturn(RevocationStatus.GOOD);
+
+            Certificate result = certificateService.getCertificateInfo("https://localhost:" + server.getPort(), true);
+
+            assertEquals(RevocationStatus.GOOD, result.getRevocationStatus());
+            assertTrue(result.getTimings().containsKey("revocation"));
+            assertTrue(result.getTimings().get("total") >= result.getTimings().get("revocation"));
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
 
-        assertNotNull(result);
-        assertEquals(validHttpsUrl, result.getUrl());
-        assertEquals("CN=Test Subject", result.getSubject());
-        assertEquals("CN=Test Issuer", result.getIssuer());
-        assertNotNull(result.getValidFrom());
-        assertNotNull(result.getValidTo());
+    /**
+     * Test that adding a URL again, after its certificate was renewed, updates the stored row.
+     *
+     * @throws Exception If the local TLS server cannot be started.
+     */
+    @Test
+    @DisplayName("Retrieve and save a certificate for a URL already stored")
+    public void testRetrieveAndSaveCertificate_UpdatesStoredRow() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            String url = "https://localhost:" + server.getPort();
+            when(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc(url)).thenReturn(Optional.of(certificate1));
+            when(certificateRepository.save(any(Certificate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Certificate result = certificateService.retrieveAndSaveCertificate(url);
+
+            assertSame(certificate1, result);
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.getSubject());
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
     }
 
     /**
@@ -236,4 +484,156 @@ public class CertificateServiceTest {
         // Verify that the certificateRepository.save method is never called
         verify(certificateRepository, never()).save(any(Certificate.class));
     }
+
+    /**
+     * Test importing the leaf of an uploaded chain, CA first, without any network probe.
+     *
+     * @throws Exception If the test resource cannot be read.
+     */
+    @Test
+    @DisplayName("Import the leaf certificate of a PEM chain")
+    public void testImportCertificate() throws Exception {
+        byte[] content;
+        try (InputStream inputStream = getClass().getResourceAsStream("/certs/chain.pem")) {
+            content = inputStream.readAllBytes();
+        }
+        when(certificateRepository.save(any(Certificate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Certificate result = certificateService.importCertificate("https://internal.example.com", content, null);
+
+        assertEquals("https://internal.example.com", result.getUrl());
+        assertEquals("CN=chain.example.com", result.getSubject());
+        assertEquals("CN=Cert Tracker Test CA", result.getIssuer());
+        assertNotNull(result.getValidTo());
+        assertTrue(result.getFingerprint().matches("[0-9a-f]{64}"));
+        verify(certificateRepository, times(1)).save(result);
+    }
+
+    /**
+     * Test that importing a renewed certificate under a label already tracked updates its row,
+     * and that the first certificate of a bundle of self-signed ones is taken.
+     *
+     * @throws Exception If the test resource cannot be read.
+     */
+    @Test
+    @DisplayName("Import a certificate for a label already stored")
+    public void testImportCertificate_UpdatesStoredRow() throws Exception {
+        byte[] content;
+        try (InputStream inputStream = getClass().getResourceAsStream("/certs/bundle.pem")) {
+            content = inputStream.readAllBytes();
+        }
+        when(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc("https://www.google.com"))
+                .thenReturn(Optional.of(certificate1));
+        when(certificateRepository.save(any(Certificate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Certificate result = certificateService.importCertificate("https://www.google.com", content, null);
+
+        assertSame(certificate1, result);
+        assertEquals("CN=bundle1.example.com", result.getSubject());
+        verify(certificateEventBus).publish(argThat((List<CertificateEvent> events) -> events.size() == 1));
+    }
+
+    /**
+     * Test that an import without a URL or label is rejected before parsing.
+     */
+    @Test
+    @DisplayName("Import certificates without a URL - Invalid request")
+    public void testImportCertificates_MissingUrl() {
+        CertificateServiceException exception = assertThrows(CertificateServiceException.class, () -> {
+            certificateService.importCertificate(null, new byte[]{1}, null);
+        });
+
+        assertEquals("URL cannot be null or empty.", exception.getMessage());
+        verify(certificateRepository, never()).save(any(Certificate.class));
+    }
+
+    /**
+     * Test exporting the stored certificates as CSV from the streamed views.
+     */
+    @Test
+    @DisplayName("Export certificates as CSV")
+    public void testExportCertificates() {
+        certificate1.setSubject("CN=\"quoted\", O=Example");
+        when(certificateRepository.streamAllViews())
+                .thenReturn(java.util.stream.Stream.of(view(1L, certificate1), view(2L, certificate2)));
+        StringWriter writer = new StringWriter();
+
+        certificateService.exportCertificates(writer);
+
+        String[] lines = writer.toString().split("\\R");
+        assertEquals(3, lines.length);
+        assertEquals("id,url,ipAddress,subject,issuer,validFrom,validTo,owner", lines[0]);
+        assertTrue(lines[1].startsWith("1,\"https://www.google.com\",,\"CN=\"\"quoted\"\", O=Example\","));
+    }
+
+    /**
+     * Test probing every address of a host, with a different certificate served from each of two
+     * local backends sharing the same port.
+     *
+     * @throws Exception If the local TLS servers cannot be started.
+     */
+    @Test
+    @DisplayName("Retrieve and save one certificate per resolved address")
+    public void testRetrieveAndSaveCertificatesForAllAddresses() throws Exception {
+        InetAddress first = InetAddress.getByName("127.0.0.1");
+        InetAddress second = InetAddress.getByName("127.0.0.2");
+        try (TestTlsServer backend1 = new TestTlsServer("server.p12", first, 0);
+             TestTlsServer backend2 = new TestTlsServer("backend2.p12", second, backend1.getPort())) {
+            String url = "https://localhost:" + backend1.getPort();
+            when(certificateRepository.findFirstByUrlAndIpAddressOrderByIdAsc(eq(url), anyString())).thenReturn(Optional.empty());
+            when(certificateRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            List<Certificate> result = certificateService.retrieveAndSaveCertificatesForAllAddresses(url);
+
+            assertEquals(2, result.size());
+            assertEquals("127.0.0.1", result.get(0).getIpAddress());
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.get(0).getSubject());
+            assertEquals("127.0.0.2", result.get(1).getIpAddress());
+            assertEquals("O=Cert Tracker Backend 2,CN=localhost", result.get(1).getSubject());
+            // The posture comes from the same handshake
+            assertNotNull(result.get(0).getTlsProtocol());
+            assertNotNull(result.get(0).getCipherSuite());
+            assertEquals("RSA", result.get(0).getKeyAlgorithm());
+            assertEquals(2048, result.get(0).getKeySize());
+            assertEquals("SHA256withRSA", result.get(0).getSignatureAlgorithm());
+        }
+    }
+
+    /**
+     * Test that a host whose addresses all fail to answer results in a CertificateServiceException.
+     *
+     * @throws Exception If the stub cannot be set up.
+     */
+    @Test
+    @DisplayName("Retrieve certificates for all addresses when none answers - Probe Error")
+    public void testRetrieveAndSaveCertificatesForAllAddresses_NoAnswer() throws Exception {
+        // Port 1 is privileged and never open in the test environment
+        CertificateServiceException exception = assertThrows(CertificateServiceException.class, () ->
+                certificateService.retrieveAndSaveCertificatesForAllAddresses("https://localhost:1"));
+
+        assertTrue(exception.getMessage().startsWith("No address of localhost could be probed"));
+        verify(certificateRepository, never()).saveAll(anyList());
+    }
+
+    /**
+     * Test probing an SMTP target over STARTTLS and saving its certificate under the target URL.
+     *
+     * @throws Exception If the local server cannot be started.
+     */
+    @Test
+    @DisplayName("Retrieve and save the certificate of a STARTTLS target")
+    public void testRetrieveAndSaveTargetCertificate() throws Exception {
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0,
+                TestTlsServer.Dialect.SMTP)) {
+            ScanTarget target = ScanTarget.of("mail.internal", server.getPort(), null, ScanProtocol.SMTP);
+            when(certificateRepository.findFirstByUrlAndIpAddressIsNullOrderByIdAsc(target.toUrl())).thenReturn(Optional.of(certificate1));
+            when(certificateRepository.save(any(Certificate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            Certificate result = certificateService.retrieveAndSaveTargetCertificate(target);
+
+            // The stored row is updated in place rather than duplicated
+            assertSame(certificate1, result);
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.getSubject());
+        }
+    }
 }
@@ -0,0 +1,183 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxEntry;
+import com.devops.certtracker.entity.OutboxMessage;
+import com.devops.certtracker.repository.OutboxRepository;
+import com.devops.certtracker.support.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the OutboxRelay: ordered batches, removal after delivery, backoff on failure, dead
+ * letters and the relay lease.
+ */
+public class OutboxRelayTest {
+
+    private final Instant start = Instant.parse("2026-01-01T00:00:00Z");
+    private final List<OutboxEntry> outbox = new ArrayList<>();
+    private final List<List<OutboxMessage>> sent = new ArrayList<>();
+    private MutableClock clock;
+    private OutboxRepository outboxRepository;
+    private boolean sinkDown;
+    private long rejectedId;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        clock = new MutableClock(start);
+        outboxRepository = mock(OutboxRepository.class);
+        when(outboxRepository.findByOrderByIdAsc(any())).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            return List.copyOf(outbox.subList(0, Math.min(pageable.getPageSize(), outbox.size())));
+        });
+        when(outboxRepository.deleteByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            int before = outbox.size();
+            outbox.removeIf(entry -> ids.contains(entry.getId()));
+            return before - outbox.size();
+        });
+        when(outboxRepository.recordFailure(anyCollection(), anyString())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            outbox.stream().filter(entry -> ids.contains(entry.getId()))
+                    .forEach(entry -> ReflectionTestUtils.setField(entry, "attempts", entry.getAttempts() + 1));
+            return ids.size();
+        });
+        when(outboxRepository.acquireLock(anyString(), any(), any())).thenReturn(1);
+        relay = relay(10);
+    }
+
+    private OutboxRelay relay(int maxAttempts) {
+        OutboxSink sink = messages -> {
+            if (sinkDown) {
+                throw new IOException("Connection refused");
+            }
+            if (messages.stream().anyMatch(message -> message.id() == rejectedId)) {
+                throw new IOException("Webhook answered 400");
+            }
+            sent.add(messages);
+        };
+        return new OutboxRelay(outboxRepository, sink, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                3, Duration.ofSeconds(5), maxAttempts, Duration.ofMinutes(1), clock);
+    }
+
+    private void append(long id) {
+        OutboxEntry entry = new OutboxEntry("SAVED", id * 10, 1, "{\"id\":" + id * 10 + "}", Date.from(start));
+        ReflectionTestUtils.setField(entry, "id", id);
+        outbox.add(entry);
+    }
+
+    @Test
+    @DisplayName("Send the outbox oldest first in batches and remove what was delivered")
+    public void testRelayInOrder() {
+        for (long id = 1; id <= 7; id++) {
+            append(id);
+        }
+
+        assertEquals(7, relay.relay());
+
+        assertTrue(outbox.isEmpty());
+        assertEquals(List.of(3, 3, 1), sent.stream().map(List::size).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), sent.stream().flatMap(List::stream).map(OutboxMessage::id).toList());
+        OutboxMessage first = sent.get(0).get(0);
+        assertEquals("SAVED", first.type());
+        assertEquals(10L, first.certificateId());
+        assertEquals(start, first.occurredAt());
+        assertEquals(0, relay.relay());
+    }
+
+    @Test
+    @DisplayName("Keep undelivered changes and back off exponentially while the sink is down")
+    @SuppressWarnings("unchecked")
+    public void testBackOffOnFailure() {
+        append(1);
+        append(2);
+        sinkDown = true;
+
+        assertEquals(0, relay.relay());
+        assertEquals(2, outbox.size());
+        verify(outboxRepository).recordFailure(eq(List.of(1L, 2L)), eq("Connection refused"));
+
+        // Backing off for 1s, 2s, 4s, then capped at 5s
+        int failures = 1;
+        for (long backoff : new long[]{1000, 2000, 4000, 5000, 5000}) {
+            clock.advance(Duration.ofMillis(backoff - 1));
+            assertEquals(0, relay.relay());
+            verify(outboxRepository, times(failures)).findByOrderByIdAsc(any());
+            clock.advance(Duration.ofMillis(1));
+            relay.relay();
+            verify(outboxRepository, times(++failures)).recordFailure(anyCollection(), anyString());
+        }
+
+        // Recovered: everything kept is delivered in order, and a new failure starts over at 1s
+        sinkDown = false;
+        append(3);
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals(3, relay.relay());
+        assertEquals(List.of(1L, 2L, 3L), sent.stream().flatMap(List::stream).map(OutboxMessage::id).toList());
+
+        append(4);
+        sinkDown = true;
+        relay.relay();
+        sinkDown = false;
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, relay.relay());
+    }
+
+    @Test
+    @DisplayName("Move an entry the sink keeps rejecting to the dead letter table and deliver the rest in order")
+    @SuppressWarnings("unchecked")
+    public void testDeadLetterAfterMaxAttempts() {
+        relay = relay(3);
+        for (long id = 1; id <= 4; id++) {
+            append(id);
+        }
+        rejectedId = 2;
+
+        assertEquals(0, relay.relay());
+        // The entry in front of the rejected one goes out alone after the first failure
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, relay.relay());
+        verify(outboxRepository, never()).copyToDeadLetter(anyCollection(), any());
+
+        // Its third failure moves it out of the way
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(2, relay.relay());
+        verify(outboxRepository).copyToDeadLetter(eq(List.of(2L)), eq(Date.from(clock.instant())));
+        assertTrue(outbox.isEmpty());
+        assertEquals(List.of(1L, 3L, 4L), sent.stream().flatMap(List::stream).map(OutboxMessage::id).toList());
+    }
+
+    @Test
+    @DisplayName("Relay nothing while another instance holds the lease")
+    public void testLeaseHeldElsewhere() {
+        append(1);
+        when(outboxRepository.acquireLock(anyString(), any(), any())).thenReturn(0);
+
+        assertEquals(0, relay.relay());
+        assertTrue(sent.isEmpty());
+        verify(outboxRepository, never()).findByOrderByIdAsc(any());
+
+        when(outboxRepository.acquireLock(anyString(), any(), any())).thenReturn(1);
+        assertEquals(1, relay.relay());
+        verify(outboxRepository, atLeastOnce()).acquireLock(anyString(), eq(Date.from(start)),
+                eq(Date.from(start.plus(Duration.ofMinutes(1)))));
+    }
+}
@@ -0,0 +1,89 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.OutboxMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the file and webhook outbox sinks.
+ */
+public class OutboxSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<OutboxMessage> messages = List.of(
+            new OutboxMessage(1L, "SAVED", 10L, 3, Instant.parse("2026-01-01T00:00:00Z"), "{\"id\":10,\"subject\":\"CN=a\"}"),
+            new OutboxMessage(2L, "DELETED", 11L, 1, Instant.parse("2026-01-01T00:00:01Z"), null));
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Append one JSON line per change, creating the file and its directory")
+    public void testFileSink(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("export/changes.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(file, objectMapper);
+
+        sink.send(messages.subList(0, 1));
+        sink.send(messages.subList(1, 2));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode saved = objectMapper.readTree(lines.get(0));
+        assertEquals(1, saved.get("id").asLong());
+        assertEquals(3, saved.get("version").asLong());
+        assertEquals("CN=a", saved.get("certificate").get("subject").asText());
+        JsonNode deleted = objectMapper.readTree(lines.get(1));
+        assertEquals("DELETED", deleted.get("type").asText());
+        assertTrue(deleted.get("certificate").isNull());
+    }
+
+    @Test
+    @DisplayName("Post each batch as a JSON array and fail on an error status")
+    public void testWebhookSink() throws IOException {
+        List<JsonNode> received = new CopyOnWriteArrayList<>();
+        int[] status = {204};
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/hooks/certificates", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(status[0], -1);
+            exchange.close();
+        });
+        server.start();
+        WebhookOutboxSink sink = new WebhookOutboxSink(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hooks/certificates"),
+                Duration.ofSeconds(5), objectMapper);
+
+        sink.send(messages);
+        assertEquals(1, received.size());
+        assertEquals(2, received.get(0).size());
+        assertEquals(11, received.get(0).get(1).get("certificateId").asLong());
+
+        status[0] = 500;
+        IOException exception = assertThrows(IOException.class, () -> sink.send(messages));
+        assertTrue(exception.getMessage().contains("500"));
+    }
+}
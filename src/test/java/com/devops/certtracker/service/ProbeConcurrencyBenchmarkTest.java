@@ -0,0 +1,95 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.support.TestTlsServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares fixed probe concurrency limits with the adaptive limiter against a local TLS server
+ * that serves 8 clients at a time with 100 ms of latency each, so its throughput peaks at 8
+ * concurrent probes and extra concurrency only adds queueing latency.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class ProbeConcurrencyBenchmarkTest {
+
+    private static final int PROBES = 800;
+
+    private static final int SERVER_CAPACITY = 8;
+
+    private static final int THREADS = 128;
+
+    private TestTlsServer server;
+
+    private ExecutorService probeExecutor;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new TestTlsServer("server.p12");
+        server.setLatency(Duration.ofMillis(100));
+        server.setCapacity(SERVER_CAPACITY);
+        probeExecutor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void shutdown() throws Exception {
+        probeExecutor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void benchmarkConcurrencyLimits() {
+        // Warm up the JIT
+        run(new AdaptiveConcurrencyLimiter(8, 8, 8), "warmup");
+
+        double best = 0;
+        for (int limit : new int[]{2, SERVER_CAPACITY, 32, THREADS}) {
+            best = Math.max(best, run(new AdaptiveConcurrencyLimiter(limit, limit, limit), "fixed-" + limit));
+        }
+        AdaptiveConcurrencyLimiter adaptive = new AdaptiveConcurrencyLimiter(4, 1, THREADS);
+        double adaptiveThroughput = run(adaptive, "adaptive");
+
+        System.out.printf("[benchmark] probe adaptive converged on limit=%d (server capacity %d)%n",
+                adaptive.getLimit(), SERVER_CAPACITY);
+        assertTrue(adaptiveThroughput > best * 0.7, "Adaptive limiter far from the best fixed limit");
+    }
+
+    private double run(AdaptiveConcurrencyLimiter limiter, String label) {
+        ScanEngine scanEngine = new ScanEngine(
+                new CachingDnsResolver(host -> List.of(InetAddress.getLoopbackAddress()), Runnable::run,
+                        Duration.ofMinutes(1), Duration.ofSeconds(10)),
+                new TlsProbe(5000, 5000),
+                probeExecutor,
+                probeExecutor,
+                limiter,
+                new ProbeTracer(spans -> {}));
+        ScanTarget target = ScanTarget.of("localhost", server.getPort(), null, ScanProtocol.TLS);
+
+        List<CompletableFuture<Void>> probes = new ArrayList<>(PROBES);
+        long start = System.nanoTime();
+        for (int i = 0; i < PROBES; i++) {
+            probes.add(CompletableFuture.runAsync(() -> scanEngine.probe(target), probeExecutor));
+        }
+        CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).join();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        double throughput = PROBES * 1000.0 / elapsedMillis;
+        System.out.printf("[benchmark] probe %s elapsed=%dms throughput=%.0f probes/s limit=%d latency-ratio=%.2f%n",
+                label, elapsedMillis, throughput, limiter.getLimit(), limiter.getLatencyRatio());
+        return throughput;
+    }
+}
@@ -0,0 +1,219 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.CertificateEvent;
+import com.devops.certtracker.entity.CertificateView;
+import com.devops.certtracker.entity.RenewalClaim;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.exception.RenewalClaimException;
+import com.devops.certtracker.repository.CertificateRepository;
+import com.devops.certtracker.support.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the RenewalWorklist: ordering, incremental updates, endpoints and concurrent claims.
+ */
+public class RenewalWorklistTest {
+
+    private final Instant start = Instant.parse("2026-01-01T00:00:00Z");
+    private MutableClock clock;
+    private CertificateRepository certificateRepository;
+    private RenewalWorklist worklist;
+
+    @BeforeEach
+    void init() {
+        clock = new MutableClock(start);
+        certificateRepository = mock(CertificateRepository.class);
+        worklist = new RenewalWorklist(certificateRepository, Duration.ofMinutes(15), clock);
+    }
+
+    private CertificateEvent saved(long id, int daysLeft) {
+        return saved(id, "https://host" + id + ".example.com", daysLeft);
+    }
+
+    private CertificateEvent saved(long id, String url, int daysLeft) {
+        return saved(id, url, daysLeft, 0);
+    }
+
+    private CertificateEvent saved(long id, String url, int daysLeft, long version) {
+        Certificate certificate = new Certificate(url, "CN=host" + id, "CN=issuer.com",
+                Date.from(start.minus(Duration.ofDays(90))), Date.from(start.plus(Duration.ofDays(daysLeft))));
+        certificate.setId(id);
+        ReflectionTestUtils.setField(certificate, "version", version);
+        return CertificateEvent.saved(CertificateEvent.Type.SAVED, certificate);
+    }
+
+    private static List<Long> ids(List<CertificateView> certificates) {
+        return certificates.stream().map(CertificateView::id).toList();
+    }
+
+    @Test
+    @DisplayName("Load the stored certificates and list the soonest expiry first")
+    public void testLoadOrdered() {
+        when(certificateRepository.streamAllViews()).thenReturn(Stream.of(
+                new CertificateView(1L, "https://a", null, "CN=a", "CN=i", null, Date.from(start.plus(Duration.ofDays(30))), null),
+                new CertificateView(2L, "https://b", null, "CN=b", "CN=i", null, Date.from(start.plus(Duration.ofDays(5))), null),
+                new CertificateView(3L, "https://c", null, "CN=c", "CN=i", null, null, null),
+                new CertificateView(4L, "https://d", null, "CN=d", "CN=i", null, Date.from(start.minus(Duration.ofDays(1))), null)));
+
+        worklist.load();
+
+        assertEquals(3, worklist.size());
+        assertEquals(List.of(4L, 2L, 1L), ids(worklist.next(10)));
+        assertEquals(List.of(4L), ids(worklist.next(1)));
+        assertThrows(CertificateServiceException.class, () -> worklist.next(0));
+        assertThrows(CertificateServiceException.class, () -> worklist.next(RenewalWorklist.MAX_LIMIT + 1));
+    }
+
+    @Test
+    @DisplayName("Reposition a re-scanned certificate and drop its claim once renewed")
+    public void testUpdateRepositions() {
+        worklist.onEvents(List.of(saved(1, 10), saved(2, 20), saved(3, 30)));
+        assertEquals(1L, worklist.claim("alice", 1, null).get(0).certificate().id());
+
+        // Re-scanned without change: still claimed
+        worklist.onEvents(List.of(saved(1, 10)));
+        assertEquals(List.of(2L, 3L), ids(worklist.next(10)));
+
+        // Renewed: moves to the back and is offered again
+        worklist.onEvents(List.of(saved(1, 90)));
+        assertEquals(List.of(2L, 3L, 1L), ids(worklist.next(10)));
+        assertEquals(3, worklist.size());
+    }
+
+    @Test
+    @DisplayName("Drop deleted certificates along with their claims")
+    public void testRemove() {
+        worklist.onEvents(List.of(saved(1, -60), saved(2, -1), saved(3, 5)));
+        worklist.claim("alice", 1, null);
+
+        worklist.onEvents(List.of(CertificateEvent.deleted(1L, 0), CertificateEvent.deleted(3L, 0), CertificateEvent.deleted(99L, 0)));
+
+        assertEquals(1, worklist.size());
+        assertEquals(List.of(2L), ids(worklist.next(10)));
+        assertThrows(RenewalClaimException.class, () -> worklist.release(1L, "alice"));
+    }
+
+    @Test
+    @DisplayName("Ignore events older than the last one applied, deletions included")
+    public void testStaleEventsIgnored() {
+        // A re-scan published after the delete that waited on its lock: no ghost row is listed
+        worklist.onEvents(List.of(saved(1, "https://a.example.com", 10, 1)));
+        worklist.onEvents(List.of(CertificateEvent.deleted(1L, 1)));
+        worklist.onEvents(List.of(saved(1, "https://a.example.com", 20, 1)));
+        assertEquals(0, worklist.size());
+
+        // Two re-scans published in the opposite order to their commits
+        worklist.onEvents(List.of(saved(2, "https://b.example.com", 90, 3), saved(2, "https://b.example.com", 5, 2)));
+        assertEquals(List.of(start.plus(Duration.ofDays(90))),
+                worklist.next(10).stream().map(certificate -> certificate.validTo().toInstant()).toList());
+
+        // The rows loaded at startup do not override what events already applied
+        when(certificateRepository.streamAllViews()).thenReturn(Stream.of(
+                new CertificateView(1L, "https://a.example.com", null, "CN=a", "CN=i", null, Date.from(start), null),
+                new CertificateView(2L, "https://b.example.com", null, "CN=b", "CN=i", null, Date.from(start), null)));
+        worklist.load();
+        assertEquals(1, worklist.size());
+        assertEquals(List.of(start.plus(Duration.ofDays(90))),
+                worklist.next(10).stream().map(certificate -> certificate.validTo().toInstant()).toList());
+    }
+
+    @Test
+    @DisplayName("List only the oldest row of an endpoint and never hand out a superseded one")
+    public void testOneCertificatePerEndpoint() {
+        worklist.onEvents(List.of(saved(2, "https://a.example.com", 1), saved(3, "https://b.example.com", 10)));
+        assertEquals(2L, worklist.claim("alice", 1, null).get(0).certificate().id());
+
+        // The row /add and re-scans update shows up, the duplicate added after it is superseded
+        worklist.onEvents(List.of(saved(1, "https://a.example.com", 30)));
+
+        assertEquals(2, worklist.size());
+        assertEquals(List.of(3L, 1L), ids(worklist.next(10)));
+        assertThrows(RenewalClaimException.class, () -> worklist.release(2L, "alice"));
+        assertEquals(List.of(3L, 1L), worklist.claim("bob", 10, null).stream().map(claim -> claim.certificate().id()).toList());
+
+        // Bob still holds the claim on 3, the next row of the endpoint takes the place of 1
+        worklist.onEvents(List.of(CertificateEvent.deleted(1L, 0)));
+
+        assertEquals(List.of(2L), ids(worklist.next(10)));
+        assertEquals(2, worklist.size());
+    }
+
+    @Test
+    @DisplayName("Claim each certificate once until it is released or its lease runs out")
+    public void testClaimAndRelease() {
+        worklist.onEvents(List.of(saved(1, 1), saved(2, 2), saved(3, 3)));
+
+        List<RenewalClaim> alice = worklist.claim("alice", 2, Duration.ofMinutes(5));
+        List<RenewalClaim> bob = worklist.claim("bob", 2, null);
+
+        assertEquals(List.of(1L, 2L), alice.stream().map(claim -> claim.certificate().id()).toList());
+        assertEquals(List.of(3L), bob.stream().map(claim -> claim.certificate().id()).toList());
+        assertEquals(start.plus(Duration.ofMinutes(15)), bob.get(0).leaseExpiresAt());
+        assertTrue(worklist.next(10).isEmpty());
+
+        assertThrows(RenewalClaimException.class, () -> worklist.release(1L, "bob"));
+        worklist.release(1L, "alice");
+        assertEquals(List.of(1L), ids(worklist.next(10)));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals(List.of(1L, 2L), ids(worklist.next(10)));
+        assertThrows(RenewalClaimException.class, () -> worklist.release(2L, "alice"));
+        assertEquals(2L, worklist.claim("carol", 2, null).get(1).certificate().id());
+    }
+
+    @Test
+    @DisplayName("Never hand the same certificate to two concurrent workers")
+    public void testConcurrentClaims() throws Exception {
+        List<CertificateEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            events.add(saved(id, (int) (id % 97)));
+        }
+        worklist.onEvents(events);
+
+        ConcurrentLinkedQueue<Long> claimed = new ConcurrentLinkedQueue<>();
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String worker = "worker-" + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                List<RenewalClaim> claims;
+                while (!(claims = worklist.claim(worker, 7, null)).isEmpty()) {
+                    claims.forEach(claim -> claimed.add(claim.certificate().id()));
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+        ready.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        Set<Long> distinct = new HashSet<>(claimed);
+        assertEquals(1000, claimed.size());
+        assertEquals(1000, distinct.size());
+    }
+}
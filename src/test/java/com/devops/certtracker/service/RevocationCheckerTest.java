@@ -0,0 +1,176 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.RevocationStatus;
+import com.devops.certtracker.support.MutableClock;
+import com.devops.certtracker.support.TestCertificateAuthority;
+import com.devops.certtracker.support.TestTlsServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the RevocationChecker, against a local OCSP responder and CRL stub, and a
+ * TLS server stapling the responder's answers.
+ */
+public class RevocationCheckerTest {
+
+    private TestCertificateAuthority authority;
+    private MutableClock clock;
+    private RevocationChecker checker;
+
+    @BeforeEach
+    void init() throws Exception {
+        authority = new TestCertificateAuthority();
+        clock = new MutableClock(Instant.now());
+        checker = new RevocationChecker(Duration.ofSeconds(5), Duration.ofHours(1), Duration.ofMinutes(5), clock);
+    }
+
+    @AfterEach
+    void close() {
+        authority.close();
+    }
+
+    @Test
+    @DisplayName("Ask the OCSP responder once and answer later checks from the cache")
+    public void testOcspCached() throws Exception {
+        X509Certificate leaf = authority.issue("good.example.com", true, false);
+
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of()));
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of()));
+        assertEquals(1, authority.getOcspRequests());
+    }
+
+    @Test
+    @DisplayName("Report a certificate revoked by OCSP")
+    public void testOcspRevoked() throws Exception {
+        X509Certificate leaf = authority.issue("revoked.example.com", true, false);
+        authority.revoke(leaf);
+
+        assertEquals(RevocationStatus.REVOKED, checker.check(chain(leaf), List.of()));
+    }
+
+    @Test
+    @DisplayName("Use the stapled OCSP response without contacting the responder")
+    public void testStapledResponse() throws Exception {
+        X509Certificate leaf = authority.issue("stapled.example.com", true, true);
+        authority.revoke(leaf);
+
+        assertEquals(RevocationStatus.REVOKED, checker.check(chain(leaf), List.of(authority.ocspResponseFor(leaf))));
+        assertEquals(0, authority.getOcspRequests());
+        assertEquals(0, authority.getCrlRequests());
+    }
+
+    @Test
+    @DisplayName("Ignore a stapled response signed by another CA")
+    public void testStapledResponseForgedIgnored() throws Exception {
+        X509Certificate leaf = authority.issue("forged.example.com", true, false);
+        try (TestCertificateAuthority other = new TestCertificateAuthority()) {
+            byte[] forged = other.ocspResponseFor(leaf);
+
+            assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of(forged)));
+            assertEquals(1, authority.getOcspRequests());
+        }
+    }
+
+    @Test
+    @DisplayName("Download the CRL once for every certificate of the CA")
+    public void testCrlShared() throws Exception {
+        X509Certificate revoked = authority.issue("revoked.example.com", false, true);
+        authority.revoke(revoked);
+
+        for (int i = 0; i < 50; i++) {
+            X509Certificate leaf = authority.issue("host" + i + ".example.com", true, true);
+            assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of()));
+        }
+        assertEquals(RevocationStatus.REVOKED, checker.check(chain(revoked), List.of()));
+        assertEquals(1, authority.getCrlRequests());
+        assertEquals(0, authority.getOcspRequests());
+    }
+
+    @Test
+    @DisplayName("Fetch the CRL again once its nextUpdate has passed")
+    public void testNextUpdateHonored() throws Exception {
+        authority.setValidity(Duration.ofMinutes(10));
+        X509Certificate leaf = authority.issue("rotating.example.com", false, true);
+
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of()));
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of()));
+        assertEquals(1, authority.getCrlRequests());
+
+        authority.revoke(leaf);
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(RevocationStatus.REVOKED, checker.check(chain(leaf), List.of()));
+        assertEquals(2, authority.getCrlRequests());
+    }
+
+    @Test
+    @DisplayName("Report UNKNOWN without an issuer or any revocation location")
+    public void testUnknown() throws Exception {
+        X509Certificate leaf = authority.issue("nowhere.example.com", false, false);
+
+        assertEquals(RevocationStatus.UNKNOWN, checker.check(List.of(leaf), List.of()));
+        assertEquals(RevocationStatus.UNKNOWN, checker.check(chain(leaf), List.of()));
+    }
+
+    @Test
+    @DisplayName("Find the issuer anywhere in the chain and report UNKNOWN when it is missing")
+    public void testIssuerLookup() throws Exception {
+        X509Certificate leaf = authority.issue("unordered.example.com", true, false);
+        try (TestCertificateAuthority other = new TestCertificateAuthority()) {
+            assertEquals(RevocationStatus.UNKNOWN, checker.check(List.of(leaf, other.getCertificate()), List.of()));
+            assertEquals(0, authority.getOcspRequests());
+
+            assertEquals(RevocationStatus.GOOD, checker.check(List.of(leaf, other.getCertificate(), authority.getCertificate()), List.of()));
+            assertEquals(1, authority.getOcspRequests());
+        }
+    }
+
+    @Test
+    @DisplayName("Evict cached answers once they have expired")
+    public void testEvictExpired() throws Exception {
+        authority.setValidity(Duration.ofMinutes(10));
+        X509Certificate leaf = authority.issue("evicted.example.com", true, true);
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(leaf), List.of(authority.ocspResponseFor(leaf))));
+        assertEquals(RevocationStatus.GOOD, checker.check(chain(authority.issue("crl.example.com", false, true)), List.of()));
+        assertEquals(2, checker.getCacheSize());
+
+        clock.advance(Duration.ofMinutes(9));
+        checker.evictExpired();
+        assertEquals(2, checker.getCacheSize());
+
+        clock.advance(Duration.ofMinutes(2));
+        checker.evictExpired();
+        assertEquals(0, checker.getCacheSize());
+    }
+
+    @Test
+    @DisplayName("Check the OCSP response a server stapled to a real handshake")
+    public void testStapledByServer() throws Exception {
+        KeyStore keyStore = authority.issueKeyStore("localhost");
+        authority.revoke((X509Certificate) keyStore.getCertificate("server"));
+        try (TestTlsServer server = new TestTlsServer(keyStore)) {
+            ProbeResult result = new TlsProbe(2000, 2000).probe(server.getAddress(), "localhost");
+            // The server fetched the response it staples, the checker must not ask again
+            int serverRequests = authority.getOcspRequests();
+
+            assertFalse(result.stapledResponses().isEmpty());
+            assertEquals(RevocationStatus.REVOKED, checker.check(result.chain(), result.stapledResponses()));
+            assertEquals(1, serverRequests);
+            assertEquals(serverRequests, authority.getOcspRequests());
+        }
+    }
+
+    private List<X509Certificate> chain(X509Certificate leaf) {
+        return List.of(leaf, authority.getCertificate());
+    }
+}
@@ -0,0 +1,234 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanProtocol;
+import com.devops.certtracker.entity.ScanTarget;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.support.TestConnectProxy;
+import com.devops.certtracker.support.TestTlsServer;
+import com.devops.certtracker.support.TestTlsServer.Dialect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.InetAddress;
+import java.net.ProxySelector;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the ScanEngine, probing local servers over direct TLS and each STARTTLS flavour.
+ */
+public class ScanEngineTest {
+
+    private final List<ProbeSpan> exported = new CopyOnWriteArrayList<>();
+
+    private final ProbeTracer tracer = new ProbeTracer(exported::addAll);
+
+    private final ScanEngine scanEngine = new ScanEngine(
+            new CachingDnsResolver(host -> List.of(InetAddress.getByName("127.0.0.1")), Runnable::run,
+                    Duration.ofMinutes(1), Duration.ofSeconds(10)),
+            new TlsProbe(2000, 2000),
+            Runnable::run,
+            Runnable::run,
+            new AdaptiveConcurrencyLimiter(8, 1, 32),
+            tracer);
+
+    @ParameterizedTest
+    @CsvSource({"NONE, TLS", "SMTP, SMTP", "IMAP, IMAP", "POSTGRES, POSTGRES"})
+    @DisplayName("Probe a target over direct TLS and STARTTLS")
+    public void testProbe(Dialect dialect, ScanProtocol protocol) throws Exception {
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0, dialect)) {
+            ScanTarget target = ScanTarget.of("service.internal", server.getPort(), null, protocol);
+
+            ProbeResult result = scanEngine.probe(target);
+
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.leaf().getSubjectX500Principal().getName());
+            assertEquals(server.getPort(), result.address().getPort());
+        }
+    }
+
+    @Test
+    @DisplayName("Report a rotated certificate on the next probe instead of resuming the old session")
+    public void testProbe_RotatedCertificate() throws Exception {
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            // TLS 1.2 resumes by session ID right after the handshake, without reading a ticket
+            server.setProtocols("TLSv1.2");
+            ScanTarget target = ScanTarget.of("service.internal", server.getPort(), null, ScanProtocol.TLS);
+            assertEquals("O=Cert Tracker Test,CN=localhost", scanEngine.probe(target).leaf().getSubjectX500Principal().getName());
+
+            server.rotate("backend2.p12");
+
+            assertEquals("O=Cert Tracker Backend 2,CN=localhost", scanEngine.probe(target).leaf().getSubjectX500Principal().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Negotiate TLSv1 with a server that speaks nothing newer")
+    public void testProbe_LegacyProtocol() throws Exception {
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setProtocols("TLSv1");
+            ScanTarget target = ScanTarget.of("service.internal", server.getPort(), null, ScanProtocol.TLS);
+
+            ProbeResult result = scanEngine.probe(target);
+
+            assertEquals("TLSv1", result.session().getProtocol());
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.leaf().getSubjectX500Principal().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Probe every address on the executor of API requests, not behind scan jobs")
+    public void testProbeAllAddresses_InteractiveExecutor() throws Exception {
+        ScanEngine engine = new ScanEngine(
+                new CachingDnsResolver(host -> List.of(InetAddress.getByName("127.0.0.1")), Runnable::run,
+                        Duration.ofMinutes(1), Duration.ofSeconds(10)),
+                new TlsProbe(2000, 2000),
+                task -> {
+                    throw new AssertionError("Queued behind scan jobs");
+                },
+                Runnable::run,
+                new AdaptiveConcurrencyLimiter(8, 1, 32),
+                tracer);
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            ScanTarget target = ScanTarget.of("localhost", server.getPort(), "localhost", ScanProtocol.TLS);
+
+            List<CompletableFuture<ProbeResult>> probes = engine.probeAllAddresses(target);
+
+            assertEquals(1, probes.size());
+            assertEquals("O=Cert Tracker Test,CN=localhost", probes.get(0).join().leaf().getSubjectX500Principal().getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Fail when the server does not speak the expected protocol")
+    public void testProbe_ProtocolMismatch() throws Exception {
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0, Dialect.IMAP)) {
+            ScanTarget target = ScanTarget.of("service.internal", server.getPort(), null, ScanProtocol.SMTP);
+
+            CertificateServiceException exception = assertThrows(CertificateServiceException.class, () -> scanEngine.probe(target));
+
+            assertTrue(exception.getMessage().contains("Unexpected SMTP reply"));
+        }
+    }
+
+    @Test
+    @DisplayName("Trace each phase of an HTTPS probe under one trace")
+    public void testProbeHttps_Traced() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            ProbeTrace trace = tracer.start("https", Map.of("url", "https://localhost:" + server.getPort()));
+
+            ProbeResult result = scanEngine.probeHttps("localhost", server.getPort(), "/", trace);
+            Map<String, Double> timings = trace.getTimings();
+            trace.end(null);
+
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.leaf().getSubjectX500Principal().getName());
+            assertEquals(List.of("dns", "connect", "tls.handshake", "http", "total"), List.copyOf(timings.keySet()));
+            assertEquals(5, exported.size());
+            ProbeSpan root = exported.get(exported.size() - 1);
+            assertNull(root.parentSpanId());
+            for (ProbeSpan span : exported.subList(0, 4)) {
+                assertEquals(root.traceId(), span.traceId());
+                assertEquals(root.spanId(), span.parentSpanId());
+            }
+            assertEquals("200", exported.get(3).attributes().get("http.status_code"));
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
+
+    @Test
+    @DisplayName("Record the error of the failing phase")
+    public void testProbeHttps_ErrorStatusTraced() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            server.setHttpErrorRate(1);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            ProbeTrace trace = tracer.start("https", Map.of());
+
+            CertificateServiceException exception = assertThrows(CertificateServiceException.class,
+                    () -> scanEngine.probeHttps("localhost", server.getPort(), "/", trace));
+            trace.end(exception.getMessage());
+
+            assertEquals("Failed to establish HTTPS connection. Response code: 503", exception.getMessage());
+            ProbeSpan http = exported.stream().filter(span -> span.name().equals("http")).findFirst().orElseThrow();
+            assertEquals(exception.getMessage(), http.error());
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
+
+    @Test
+    @DisplayName("Follow a redirect to another HTTPS URL and report the certificate that answered there")
+    public void testProbeHttps_Redirect() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0);
+             TestTlsServer moved = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0)) {
+            server.setHttp(true);
+            server.setRedirect("/old", "https://localhost:" + moved.getPort() + "/new");
+            moved.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            ProbeTrace trace = tracer.start("https", Map.of());
+
+            ProbeResult result = scanEngine.probeHttps("localhost", server.getPort(), "/old", trace);
+            trace.end(null);
+
+            assertEquals(moved.getPort(), result.address().getPort());
+            assertEquals(List.of("302", "200"), exported.stream().filter(span -> span.name().equals("http"))
+                    .map(span -> span.attributes().get("http.status_code")).toList());
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        }
+    }
+
+    @Test
+    @DisplayName("Tunnel through the JVM's HTTPS proxy and let it resolve the host name")
+    public void testProbeHttps_Proxy() throws Exception {
+        SSLSocketFactory defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        ProxySelector defaultProxySelector = ProxySelector.getDefault();
+        try (TestTlsServer server = new TestTlsServer("server.p12", InetAddress.getByName("127.0.0.1"), 0);
+             TestConnectProxy proxy = new TestConnectProxy()) {
+            server.setHttp(true);
+            HttpsURLConnection.setDefaultSSLSocketFactory(TestTlsServer.trustingContext("server.p12").getSocketFactory());
+            ProxySelector.setDefault(ProxySelector.of(proxy.getAddress()));
+            ProbeTrace trace = tracer.start("https", Map.of());
+
+            ProbeResult result = scanEngine.probeHttps("localhost", server.getPort(), "/", trace);
+            Map<String, Double> timings = trace.getTimings();
+            trace.end(null);
+
+            assertEquals("O=Cert Tracker Test,CN=localhost", result.leaf().getSubjectX500Principal().getName());
+            assertEquals(List.of("localhost:" + server.getPort()), proxy.getTargets());
+            assertEquals(List.of("connect", "tls.handshake", "http", "total"), List.copyOf(timings.keySet()));
+        } finally {
+            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+            ProxySelector.setDefault(defaultProxySelector);
+        }
+    }
+
+    @Test
+    @DisplayName("Round-trip targets through their URL form")
+    public void testTargetUrl() {
+        ScanTarget smtp = ScanTarget.fromUrl("smtp://mail.example.com");
+        assertEquals(new ScanTarget("mail.example.com", 25, "mail.example.com", ScanProtocol.SMTP), smtp);
+        assertEquals("smtp://mail.example.com:25", smtp.toUrl());
+
+        ScanTarget sni = ScanTarget.of("10.0.0.5", 8443, "internal.example.com", null);
+        assertEquals("tls://10.0.0.5:8443?sni=internal.example.com", sni.toUrl());
+        assertEquals(sni, ScanTarget.fromUrl(sni.toUrl()));
+
+        assertEquals(443, ScanTarget.fromUrl("https://www.google.com").port());
+        assertThrows(IllegalArgumentException.class, () -> ScanTarget.fromUrl("ftp://files.example.com"));
+    }
+}
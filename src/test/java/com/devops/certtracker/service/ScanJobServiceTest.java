@@ -0,0 +1,171 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.ScanJob;
+import com.devops.certtracker.entity.ScanJobRequest;
+import com.devops.certtracker.entity.ScanJobStatus;
+import com.devops.certtracker.entity.ScanResult;
+import com.devops.certtracker.entity.ScanResultPage;
+import com.devops.certtracker.exception.CertificateServiceException;
+import com.devops.certtracker.exception.ScanJobNotFoundException;
+import com.devops.certtracker.exception.ScanJobRejectedException;
+import com.devops.certtracker.repository.CertificateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the ScanJobService, running jobs on a real single-threaded executor.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ScanJobServiceTest {
+
+    @Mock
+    private CertificateService certificateService;
+
+    @Mock
+    private CertificateRepository certificateRepository;
+
+    @InjectMocks
+    private ScanJobService scanJobService;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        ReflectionTestUtils.setField(scanJobService, "scanJobExecutor", executor);
+        ReflectionTestUtils.setField(scanJobService, "scanScheduler", new ScanScheduler(Runnable::run, new AdaptiveConcurrencyLimiter(8, 1, 32), 1000, 100));
+        ReflectionTestUtils.setField(scanJobService, "retainedJobs", 10);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static void awaitFinished(ScanJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Job did not finish in time");
+    }
+
+    @Test
+    @DisplayName("Run a scan job and record one result per URL")
+    public void testSubmit() throws Exception {
+        Certificate certificate = new Certificate("https://a.example.com", "CN=a", "CN=ca", new Date(), new Date());
+        certificate.setId(7L);
+        when(certificateService.refreshCertificate("https://a.example.com")).thenReturn(certificate);
+        when(certificateService.refreshCertificate("https://b.example.com"))
+                .thenThrow(new CertificateServiceException("No SSL session established."));
+
+        ScanJob job = scanJobService.submit(new ScanJobRequest(List.of("https://a.example.com", "https://b.example.com"), false));
+        awaitFinished(job);
+
+        assertEquals(ScanJobStatus.COMPLETED, job.getStatus());
+        assertEquals(1, job.getSucceeded());
+        assertEquals(1, job.getFailed());
+        assertSame(job, scanJobService.getJob(job.getId()));
+        // Only the failure outlives the job; the successful result's certificate is stored
+        ScanResultPage page = scanJobService.getResults(job.getId(), 0, 100);
+        assertEquals(1, page.items().size());
+        assertEquals("https://b.example.com", page.items().get(0).url());
+        assertEquals(2, job.getTotal());
+        assertTrue(job.getUrls().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Page through the results of a running job")
+    public void testGetResults() {
+        ScanJob job = new ScanJob(List.of("https://a.example.com", "https://b.example.com", "https://c.example.com"));
+        job.addResult(ScanResult.failure("https://a.example.com", "down"));
+        job.addResult(ScanResult.failure("https://b.example.com", "down"));
+        job.addResult(ScanResult.failure("https://c.example.com", "down"));
+
+        ScanResultPage first = job.getResults(0, 2);
+        ScanResultPage second = job.getResults(first.next(), 2);
+        ScanResultPage last = job.getResults(second.next(), 2);
+
+        assertEquals(List.of("https://a.example.com", "https://b.example.com"),
+                first.items().stream().map(ScanResult::url).toList());
+        assertEquals("https://c.example.com", second.items().get(0).url());
+        assertTrue(last.items().isEmpty());
+        assertNull(last.next());
+    }
+
+    @Test
+    @DisplayName("Scan every stored URL")
+    public void testSubmit_All() throws Exception {
+        when(certificateRepository.findDistinctUrls()).thenReturn(List.of("https://a.example.com"));
+        when(certificateService.refreshCertificate(anyString())).thenThrow(new CertificateServiceException("down"));
+
+        ScanJob job = scanJobService.submit(new ScanJobRequest(null, true));
+        awaitFinished(job);
+
+        assertEquals(1, job.getTotal());
+        verify(certificateService).refreshCertificate("https://a.example.com");
+    }
+
+    @Test
+    @DisplayName("Reject jobs once the queue is full")
+    public void testSubmit_QueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(certificateService.refreshCertificate(anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new CertificateServiceException("down");
+        });
+        ScanJobRequest request = new ScanJobRequest(List.of("https://a.example.com"), false);
+
+        ScanJob running = scanJobService.submit(request);
+        ScanJob queued = scanJobService.submit(request);
+
+        assertThrows(ScanJobRejectedException.class, () -> scanJobService.submit(request));
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+    }
+
+    @Test
+    @DisplayName("Scan the stored URLs carrying a tag")
+    public void testSubmit_Tag() throws Exception {
+        when(certificateRepository.findDistinctUrlsByTag("prod")).thenReturn(List.of("https://a.example.com"));
+        when(certificateService.refreshCertificate(anyString())).thenThrow(new CertificateServiceException("down"));
+        ScanJobRequest request = new ScanJobRequest(null, false);
+        request.setTag(" Prod");
+
+        ScanJob job = scanJobService.submit(request);
+        awaitFinished(job);
+
+        assertEquals(1, job.getTotal());
+        verify(certificateService).refreshCertificate("https://a.example.com");
+    }
+
+    @Test
+    @DisplayName("Reject jobs without URLs and unknown job IDs")
+    public void testInvalidRequests() {
+        assertThrows(CertificateServiceException.class,
+                () -> scanJobService.submit(new ScanJobRequest(List.of(), false)));
+        assertThrows(ScanJobNotFoundException.class, () -> scanJobService.getJob("missing"));
+    }
+}
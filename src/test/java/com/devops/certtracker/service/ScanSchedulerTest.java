@@ -0,0 +1,112 @@
+package com.devops.certtracker.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the ScanScheduler and its token buckets, mostly dispatching work on the calling thread.
+ */
+public class ScanSchedulerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://www.example.com, example.com",
+            "https://a.b.Example.com:8443, example.com",
+            "https://shop.example.co.uk, example.co.uk",
+            "smtp://mail.example.org:25, example.org",
+            "https://localhost, localhost",
+            "https://10.0.0.1, 10.0.0.1",
+            "https://[2001:db8::1]:443, 2001:db8::1",
+            "not a url, not a url"
+    })
+    @DisplayName("Group URLs by registrable domain or IP address")
+    public void testGroupKey(String url, String expected) {
+        assertEquals(expected, ScanScheduler.groupKey(url));
+    }
+
+    @Test
+    @DisplayName("Interleave work across groups")
+    public void testSubmitAll_Interleaves() {
+        ScanScheduler scheduler = new ScanScheduler(Runnable::run, new AdaptiveConcurrencyLimiter(8, 1, 32), 1000, 100);
+        Queue<String> order = new ConcurrentLinkedQueue<>();
+
+        scheduler.submitAll(List.of(
+                "https://a1.one.com", "https://a2.one.com", "https://a3.one.com",
+                "https://b1.two.com", "https://b2.two.com",
+                "https://c1.three.com"), order::add).join();
+
+        assertEquals(List.of(
+                "https://a1.one.com", "https://b1.two.com", "https://c1.three.com",
+                "https://a2.one.com", "https://b2.two.com",
+                "https://a3.one.com"), List.copyOf(order));
+    }
+
+    @Test
+    @DisplayName("Pace each group at its own rate without holding back the others")
+    public void testSubmitAll_PacesGroups() {
+        ScanScheduler scheduler = new ScanScheduler(Runnable::run, new AdaptiveConcurrencyLimiter(8, 1, 32), 20, 1);
+        Queue<String> order = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        scheduler.submitAll(List.of(
+                "https://a1.one.com", "https://a2.one.com", "https://a3.one.com", "https://a4.one.com",
+                "https://b1.two.com"), order::add).join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // One token up front, then one every 50 ms for the three remaining URLs of one.com
+        assertTrue(elapsedMillis >= 140, "Dispatched in " + elapsedMillis + " ms");
+        assertEquals("https://b1.two.com", List.copyOf(order).get(1));
+        assertEquals(5, order.size());
+    }
+
+    @Test
+    @DisplayName("Dispatch no more work than the concurrency limit allows")
+    public void testSubmitAll_BoundedByConcurrencyLimit() {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            ScanScheduler scheduler = new ScanScheduler(executor, new AdaptiveConcurrencyLimiter(2, 1, 8), 1000, 100);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            scheduler.submitAll(List.of(
+                    "https://a1.one.com", "https://a2.one.com", "https://b1.two.com",
+                    "https://b2.two.com", "https://c1.three.com", "https://c2.three.com"), url -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                running.decrementAndGet();
+            }).join();
+
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Hand out the burst at once, then one token per interval")
+    public void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1), "Wait " + wait);
+        assertFalse(bucket.isIdle());
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
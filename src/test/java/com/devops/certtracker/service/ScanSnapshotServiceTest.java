@@ -0,0 +1,154 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.Certificate;
+import com.devops.certtracker.entity.EndpointChange;
+import com.devops.certtracker.entity.EndpointDiff;
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotDiffSummary;
+import com.devops.certtracker.exception.EntityNotFoundException;
+import com.devops.certtracker.repository.CertificateRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the ScanSnapshotService, against the migrated schema. The diff reads two
+ * endpoints per query, so every comparison crosses several chunk boundaries.
+ */
+@DataJpaTest
+@Import({ScanSnapshotService.class, JacksonAutoConfiguration.class})
+@TestPropertySource(properties = "certtracker.snapshots.diff-chunk-size=2")
+public class ScanSnapshotServiceTest {
+
+    private final Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Autowired
+    private ScanSnapshotService scanSnapshotService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Certificate save(String url, String ipAddress, String issuer, String fingerprint, int daysLeft) {
+        Certificate certificate = new Certificate(url, "CN=" + url, issuer, Date.from(now.minus(Duration.ofDays(30))),
+                Date.from(now.plus(Duration.ofDays(daysLeft))));
+        certificate.setIpAddress(ipAddress);
+        certificate.setFingerprint(fingerprint);
+        return certificateRepository.saveAndFlush(certificate);
+    }
+
+    private List<EndpointDiff> diff(ScanSnapshot from, ScanSnapshot to, Set<EndpointChange> changes) {
+        List<EndpointDiff> diffs = new ArrayList<>();
+        scanSnapshotService.diff(from.getId(), to.getId(), changes, diffs::add);
+        return diffs;
+    }
+
+    @Test
+    @DisplayName("Copy one row per endpoint, the one re-scans update")
+    public void testCreateSnapshot() {
+        Certificate leaf = save("https://a.example.com", null, "CN=Old CA", "aa", 10);
+        save("https://a.example.com", null, "CN=Old CA", "ab", 900);
+        save("https://a.example.com", "10.0.0.1", "CN=Old CA", "ac", 10);
+        save(null, null, "CN=Old CA", "ad", 10);
+
+        ScanSnapshot snapshot = scanSnapshotService.createSnapshot("  before renewal ");
+
+        assertEquals(2, snapshot.getEndpoints());
+        assertEquals("before renewal", snapshot.getLabel());
+        List<EndpointDiff> endpoints = diff(snapshot, snapshot, null);
+        assertEquals(2, endpoints.size());
+        assertEquals(leaf.getId(), endpoints.get(0).after().certificateId());
+        assertNull(endpoints.get(0).ipAddress());
+        assertEquals("10.0.0.1", endpoints.get(1).ipAddress());
+        assertTrue(endpoints.stream().allMatch(endpoint -> endpoint.change() == EndpointChange.UNCHANGED));
+        assertEquals(List.of(snapshot.getId()), scanSnapshotService.getSnapshots().stream().map(ScanSnapshot::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Tell rotated, re-issued, unchanged, added and removed endpoints apart")
+    public void testDiff() {
+        Certificate rotated = save("https://a.example.com", null, "CN=Old CA", "a1", 5);
+        Certificate reissued = save("https://b.example.com", null, "CN=Old CA", "b1", 5);
+        save("https://c.example.com", null, "CN=Old CA", "c1", 5);
+        Certificate removed = save("https://d.example.com", null, "CN=Old CA", "d1", 5);
+        Certificate legacy = save("https://e.example.com", "10.0.0.5", "CN=Old CA", null, 5);
+        ScanSnapshot before = scanSnapshotService.createSnapshot(null);
+
+        rotated.setFingerprint("a2");
+        rotated.setValidTo(Date.from(now.plus(Duration.ofDays(90))));
+        reissued.setFingerprint("b2");
+        reissued.setIssuer("CN=New CA");
+        legacy.setValidTo(Date.from(now.plus(Duration.ofDays(90))));
+        certificateRepository.saveAllAndFlush(List.of(rotated, reissued, legacy));
+        certificateRepository.delete(removed);
+        save("https://f.example.com", null, "CN=New CA", "f1", 90);
+        ScanSnapshot after = scanSnapshotService.createSnapshot("after");
+
+        List<EndpointDiff> diffs = diff(before, after, null);
+
+        assertEquals(List.of("https://a.example.com", "https://b.example.com", "https://c.example.com",
+                        "https://d.example.com", "https://e.example.com", "https://f.example.com"),
+                diffs.stream().map(EndpointDiff::url).toList());
+        assertEquals(List.of(EndpointChange.ROTATED, EndpointChange.ISSUER_CHANGED, EndpointChange.UNCHANGED,
+                        EndpointChange.REMOVED, EndpointChange.ROTATED, EndpointChange.ADDED),
+                diffs.stream().map(EndpointDiff::change).toList());
+        assertEquals("CN=New CA", diffs.get(1).after().issuer());
+        assertNull(diffs.get(3).after());
+        assertNull(diffs.get(5).before());
+
+        SnapshotDiffSummary summary = scanSnapshotService.diff(before.getId(), after.getId(),
+                Set.of(EndpointChange.ISSUER_CHANGED), endpointDiff -> assertEquals(EndpointChange.ISSUER_CHANGED, endpointDiff.change()));
+        assertEquals(new SnapshotDiffSummary(before.getId(), after.getId(), 1, 1, 2, 1, 1), summary);
+    }
+
+    @Test
+    @DisplayName("Write the requested changes as one JSON object per line")
+    public void testWriteDiff() throws Exception {
+        Certificate certificate = save("https://a.example.com", null, "CN=Old CA", "a1", 5);
+        save("https://b.example.com", null, "CN=Old CA", "b1", 5);
+        ScanSnapshot before = scanSnapshotService.createSnapshot(null);
+        certificate.setFingerprint("a2");
+        certificateRepository.saveAndFlush(certificate);
+        ScanSnapshot after = scanSnapshotService.createSnapshot(null);
+
+        StringWriter writer = new StringWriter();
+        scanSnapshotService.writeDiff(before.getId(), after.getId(), Set.of(EndpointChange.ROTATED), writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(1, lines.length);
+        JsonNode line = objectMapper.readTree(lines[0]);
+        assertEquals("ROTATED", line.get("change").asText());
+        assertEquals("a1", line.get("before").get("fingerprint").asText());
+        assertEquals("a2", line.get("after").get("fingerprint").asText());
+    }
+
+    @Test
+    @DisplayName("Reject unknown snapshots and delete snapshots with their endpoints")
+    public void testUnknownAndDeletedSnapshots() {
+        save("https://a.example.com", null, "CN=Old CA", "a1", 5);
+        ScanSnapshot snapshot = scanSnapshotService.createSnapshot(null);
+
+        assertThrows(EntityNotFoundException.class, () -> scanSnapshotService.diff(snapshot.getId(), 999L, null, endpointDiff -> {}));
+        scanSnapshotService.deleteSnapshot(snapshot.getId());
+        assertThrows(EntityNotFoundException.class, () -> scanSnapshotService.getSnapshot(snapshot.getId()));
+        assertThrows(EntityNotFoundException.class, () -> scanSnapshotService.deleteSnapshot(snapshot.getId()));
+    }
+}
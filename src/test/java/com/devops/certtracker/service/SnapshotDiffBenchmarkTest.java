@@ -0,0 +1,104 @@
+package com.devops.certtracker.service;
+
+import com.devops.certtracker.entity.ScanSnapshot;
+import com.devops.certtracker.entity.SnapshotDiffSummary;
+import com.devops.certtracker.entity.SnapshotEndpoint;
+import com.devops.certtracker.repository.ScanSnapshotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares two snapshots of 100,000 endpoints after a simulated mass renewal, with the streaming
+ * merge and, for reference, by loading both snapshots into maps.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import({ScanSnapshotService.class, JacksonAutoConfiguration.class})
+public class SnapshotDiffBenchmarkTest {
+
+    private static final int ENDPOINTS = 100_000;
+
+    @Autowired
+    private ScanSnapshotService scanSnapshotService;
+
+    @Autowired
+    private ScanSnapshotRepository scanSnapshotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void benchmarkDiff() {
+        entityManager.createNativeQuery("""
+                insert into certificates (id, url, subject, issuer, valid_from, valid_to, fingerprint)
+                select x, 'https://host' || x || '.example.com', 'CN=host' || x || '.example.com', 'CN=Old CA',
+                       timestamp '2025-01-01 00:00:00', timestamp '2026-01-01 00:00:00', 'old' || x
+                from system_range(1, ?1)""").setParameter(1, ENDPOINTS).executeUpdate();
+        long start = System.nanoTime();
+        ScanSnapshot before = scanSnapshotService.createSnapshot("before");
+        double snapshotSeconds = (System.nanoTime() - start) / 1e9;
+
+        // 90% renewed, a tenth of them by another CA; 1% decommissioned, 1% new
+        entityManager.createNativeQuery("update certificates set fingerprint = 'new' || id, "
+                + "issuer = case when mod(id, 100) < 9 then 'CN=New CA' else issuer end where mod(id, 10) <> 0").executeUpdate();
+        entityManager.createNativeQuery("delete from certificates where mod(id, 100) = 50").executeUpdate();
+        entityManager.createNativeQuery("""
+                insert into certificates (id, url, subject, issuer, valid_from, valid_to, fingerprint)
+                select x, 'https://host' || x || '.example.com', 'CN=host', 'CN=New CA',
+                       timestamp '2026-01-01 00:00:00', timestamp '2027-01-01 00:00:00', 'new' || x
+                from system_range(?1, ?2)""").setParameter(1, ENDPOINTS + 1).setParameter(2, ENDPOINTS + ENDPOINTS / 100).executeUpdate();
+        ScanSnapshot after = scanSnapshotService.createSnapshot("after");
+
+        // Warm up the JIT
+        scanSnapshotService.diff(before.getId(), after.getId(), null, endpointDiff -> {});
+
+        start = System.nanoTime();
+        scanSnapshotService.diff(before.getId(), after.getId(), null, endpointDiff -> {});
+        double countSeconds = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        SnapshotDiffSummary summary = scanSnapshotService.writeDiff(before.getId(), after.getId(), null, Writer.nullWriter());
+        double mergeSeconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(ENDPOINTS / 100, summary.added());
+        assertEquals(ENDPOINTS / 100, summary.removed());
+        assertEquals(ENDPOINTS + ENDPOINTS / 100, summary.added() + summary.removed() + summary.rotated()
+                + summary.issuerChanged() + summary.unchanged());
+
+        start = System.nanoTime();
+        Map<String, SnapshotEndpoint> loaded = load(before.getId());
+        Map<String, SnapshotEndpoint> loadedAfter = load(after.getId());
+        long changed = loadedAfter.entrySet().stream()
+                .filter(entry -> !loaded.containsKey(entry.getKey())
+                        || !loaded.get(entry.getKey()).fingerprint().equals(entry.getValue().fingerprint()))
+                .count();
+        double mapSeconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(summary.added() + summary.rotated() + summary.issuerChanged(), changed);
+
+        System.out.printf("[benchmark] snapshots endpoints=%d snapshot=%.2fs merge-diff=%.2fs merge-diff+ndjson=%.2fs "
+                        + "(2 chunks of 5000 in memory) map-diff=%.2fs (%d endpoints in memory) %s%n",
+                ENDPOINTS, snapshotSeconds, countSeconds, mergeSeconds,
+                mapSeconds, loaded.size() + loadedAfter.size(), summary);
+    }
+
+    private Map<String, SnapshotEndpoint> load(Long snapshotId) {
+        List<SnapshotEndpoint> endpoints = scanSnapshotRepository.findFirstEndpoints(snapshotId, PageRequest.of(0, Integer.MAX_VALUE));
+        Map<String, SnapshotEndpoint> byKey = new HashMap<>(endpoints.size() * 2);
+        endpoints.forEach(endpoint -> byKey.put(endpoint.url() + " " + endpoint.ipAddress(), endpoint));
+        return byKey;
+    }
+}
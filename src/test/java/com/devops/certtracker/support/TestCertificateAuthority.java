@@ -0,0 +1,228 @@
+package com.devops.certtracker.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throwaway certificate authority for revocation tests. It issues leaf certificates whose AIA and
+ * CRL distribution point extensions point at a local HTTP stub, which answers OCSP requests at
+ * /ocsp, by POST or GET, and serves the CA's CRL at /crl while counting the requests it receives.
+ */
+public class TestCertificateAuthority implements AutoCloseable {
+
+    private final KeyPair keyPair;
+    private final X509Certificate certificate;
+    private final HttpServer server;
+    private final Set<BigInteger> revoked = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextSerial = new AtomicLong(2);
+    private final AtomicInteger ocspRequests = new AtomicInteger();
+    private final AtomicInteger crlRequests = new AtomicInteger();
+    private volatile Duration validity = Duration.ofHours(1);
+
+    public TestCertificateAuthority() throws Exception {
+        this.keyPair = newKeyPair();
+        Instant now = Instant.now();
+        X500Name name = new X500Name("CN=Test Revocation CA");
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE,
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(365))), name, keyPair.getPublic())
+                .addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        this.certificate = new JcaX509CertificateConverter().getCertificate(builder.build(signer()));
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ocsp", exchange -> {
+            ocspRequests.incrementAndGet();
+            // Small requests may be sent with GET, base64-encoded in the path, as the JDK does when stapling
+            String path = exchange.getRequestURI().getPath();
+            byte[] request = "GET".equals(exchange.getRequestMethod())
+                    ? Base64.getDecoder().decode(path.substring(path.indexOf('/', 1) + 1))
+                    : exchange.getRequestBody().readAllBytes();
+            respond(exchange, "application/ocsp-response", ocspResponse(new OCSPReq(request)));
+        });
+        server.createContext("/crl", exchange -> {
+            crlRequests.incrementAndGet();
+            respond(exchange, "application/pkix-crl", crl());
+        });
+        server.start();
+    }
+
+    /**
+     * Issues a leaf certificate pointing at the stub for OCSP, for its CRL, or both.
+     */
+    public X509Certificate issue(String commonName, boolean withOcsp, boolean withCrl) throws Exception {
+        return issue(commonName, withOcsp, withCrl, newKeyPair().getPublic());
+    }
+
+    /**
+     * Issues a leaf certificate pointing at the OCSP stub, in a keystore for a TLS server: the
+     * private key under the alias "server" with the password {@link TestTlsServer#PASSWORD}, and
+     * the chain of the leaf and this CA.
+     */
+    public KeyStore issueKeyStore(String commonName) throws Exception {
+        KeyPair leafKeyPair = newKeyPair();
+        X509Certificate leaf = issue(commonName, true, false, leafKeyPair.getPublic());
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", leafKeyPair.getPrivate(), TestTlsServer.PASSWORD.toCharArray(),
+                new X509Certificate[]{leaf, certificate});
+        return keyStore;
+    }
+
+    private X509Certificate issue(String commonName, boolean withOcsp, boolean withCrl, PublicKey publicKey) throws Exception {
+        Instant now = Instant.now();
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(certificate,
+                BigInteger.valueOf(nextSerial.getAndIncrement()), Date.from(now.minus(Duration.ofDays(1))),
+                Date.from(now.plus(Duration.ofDays(90))), new X500Name("CN=" + commonName), publicKey);
+        if (withOcsp) {
+            builder.addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+                    AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, url("/ocsp"))));
+        }
+        if (withCrl) {
+            GeneralNames names = new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier, url("/crl")));
+            builder.addExtension(Extension.cRLDistributionPoints, false, new CRLDistPoint(new DistributionPoint[]{
+                    new DistributionPoint(new DistributionPointName(names), null, null)}));
+        }
+        return new JcaX509CertificateConverter().getCertificate(builder.build(signer()));
+    }
+
+    /**
+     * Builds the OCSP response the stub would return for the certificate, for stapling tests.
+     */
+    public byte[] ocspResponseFor(X509Certificate leaf) throws Exception {
+        CertificateID id = new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                new X509CertificateHolder(certificate.getEncoded()), leaf.getSerialNumber());
+        return ocspResponse(id);
+    }
+
+    public void revoke(X509Certificate leaf) {
+        revoked.add(leaf.getSerialNumber());
+    }
+
+    /**
+     * Sets the time between thisUpdate and nextUpdate of the responses and CRLs served.
+     */
+    public void setValidity(Duration validity) {
+        this.validity = validity;
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    public int getOcspRequests() {
+        return ocspRequests.get();
+    }
+
+    public int getCrlRequests() {
+        return crlRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private byte[] ocspResponse(OCSPReq request) throws IOException {
+        Req[] requests = request.getRequestList();
+        try {
+            return ocspResponse(requests[0].getCertID());
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private byte[] ocspResponse(CertificateID id) throws Exception {
+        Instant now = Instant.now();
+        CertificateStatus status = revoked.contains(id.getSerialNumber())
+                ? new RevokedStatus(Date.from(now.minus(Duration.ofHours(1))), CRLReason.keyCompromise)
+                : CertificateStatus.GOOD;
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(new X500Name(certificate.getSubjectX500Principal().getName())));
+        builder.addResponse(id, status, Date.from(now.minusSeconds(60)), Date.from(now.plus(validity)), null);
+        OCSPResp response = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL,
+                builder.build(signer(), new X509CertificateHolder[]{new X509CertificateHolder(certificate.getEncoded())}, new Date()));
+        return response.getEncoded();
+    }
+
+    private byte[] crl() throws IOException {
+        try {
+            Instant now = Instant.now();
+            X509v2CRLBuilder builder = new X509v2CRLBuilder(new X500Name(certificate.getSubjectX500Principal().getName()),
+                    Date.from(now.minusSeconds(60)));
+            builder.setNextUpdate(Date.from(now.plus(validity)));
+            for (BigInteger serial : revoked) {
+                builder.addCRLEntry(serial, Date.from(now.minus(Duration.ofHours(1))), CRLReason.keyCompromise);
+            }
+            return builder.build(signer()).getEncoded();
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private ContentSigner signer() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static KeyPair newKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,112 @@
+package com.devops.certtracker.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal HTTP proxy for tests: accepts CONNECT requests, opens the tunnel to the requested
+ * host and port and relays bytes both ways until either side closes. Remembers the targets it
+ * was asked for.
+ */
+public class TestConnectProxy implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final List<String> targets = new CopyOnWriteArrayList<>();
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "test-connect-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts the proxy on an ephemeral port of the loopback address.
+     */
+    public TestConnectProxy() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        connections.execute(this::acceptLoop);
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    /**
+     * @return The host:port of every CONNECT request received, in order.
+     */
+    public List<String> getTargets() {
+        return List.copyOf(targets);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                connections.execute(() -> tunnel(client));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void tunnel(Socket client) {
+        try (client) {
+            InputStream in = client.getInputStream();
+            String[] requestLine = readLine(in).split(" ");
+            while (!readLine(in).isEmpty()) {
+            }
+            OutputStream out = client.getOutputStream();
+            if (requestLine.length < 2 || !requestLine[0].equals("CONNECT")) {
+                out.write("HTTP/1.1 405 Method Not Allowed\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            targets.add(requestLine[1]);
+            int colon = requestLine[1].lastIndexOf(':');
+            try (Socket server = new Socket(requestLine[1].substring(0, colon), Integer.parseInt(requestLine[1].substring(colon + 1)))) {
+                out.write("HTTP/1.1 200 Connection established\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                connections.execute(() -> relay(server, client));
+                relay(client, server);
+            }
+        } catch (IOException e) {
+            // Either side went away
+        }
+    }
+
+    private static void relay(Socket from, Socket to) {
+        try {
+            from.getInputStream().transferTo(to.getOutputStream());
+            to.shutdownOutput();
+        } catch (IOException e) {
+            // Either side went away
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+}
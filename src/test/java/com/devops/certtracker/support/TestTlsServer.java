@@ -0,0 +1,401 @@
+package com.devops.certtracker.support;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local TLS server for tests: optionally runs a STARTTLS dialogue, completes the handshake
+ * with a certificate from the test keystores, optionally after an injected delay, optionally
+ * answers one HTTP request, possibly with a redirect, then closes the connection. A capacity can
+ * be set to model a server that only serves so many clients at once, so extra concurrency turns
+ * into queueing latency.
+ * The certificate can be rotated while the server keeps its TLS context, and with it the sessions
+ * clients could resume.
+ */
+public class TestTlsServer implements Closeable {
+
+    public static final String PASSWORD = "changeit";
+
+    /**
+     * Plain-text exchange run before the handshake.
+     */
+    public enum Dialect {
+        NONE, SMTP, IMAP, POSTGRES
+    }
+
+    private final ServerSocket serverSocket;
+    private final SSLSocketFactory socketFactory;
+    private final RotatingKeyManager keyManager = new RotatingKeyManager();
+    private final Dialect dialect;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "test-tls-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger handshakes = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double failureRate;
+    private volatile boolean http;
+    private volatile double httpErrorRate;
+    private volatile String redirectPath;
+    private volatile String redirectLocation;
+    private volatile Semaphore capacity;
+    private volatile String[] protocols;
+
+    /**
+     * Starts a direct TLS server on an ephemeral port of the loopback address.
+     *
+     * @param keystore The PKCS12 keystore under /certs on the test classpath.
+     */
+    public TestTlsServer(String keystore) throws Exception {
+        this(keystore, InetAddress.getLoopbackAddress(), 0, Dialect.NONE);
+    }
+
+    /**
+     * Starts a direct TLS server on the given address and port.
+     */
+    public TestTlsServer(String keystore, InetAddress bindAddress, int port) throws Exception {
+        this(keystore, bindAddress, port, Dialect.NONE);
+    }
+
+    /**
+     * Starts a server on the given address and port.
+     *
+     * @param keystore    The PKCS12 keystore under /certs on the test classpath.
+     * @param bindAddress The address to listen on.
+     * @param port        The port to listen on, 0 for an ephemeral one.
+     * @param dialect     The STARTTLS dialogue to run before the handshake.
+     */
+    public TestTlsServer(String keystore, InetAddress bindAddress, int port, Dialect dialect) throws Exception {
+        this(keyManager(keystore), bindAddress, port, dialect);
+    }
+
+    /**
+     * Starts a direct TLS server on an ephemeral port of the loopback address, serving the key
+     * entry of a keystore built by the test, such as one from TestCertificateAuthority.
+     */
+    public TestTlsServer(KeyStore keyStore) throws Exception {
+        this(keyManager(keyStore), InetAddress.getLoopbackAddress(), 0, Dialect.NONE);
+    }
+
+    private TestTlsServer(X509ExtendedKeyManager initialKeyManager, InetAddress bindAddress, int port, Dialect dialect) throws Exception {
+        keyManager.current = initialKeyManager;
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(new KeyManager[]{keyManager}, null, null);
+        this.socketFactory = context.getSocketFactory();
+        this.dialect = dialect;
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(bindAddress, port), 512);
+        connections.execute(this::acceptLoop);
+    }
+
+    public static SSLContext sslContext(String keystore) throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(new KeyManager[]{keyManager(keystore)}, null, null);
+        return context;
+    }
+
+    /**
+     * Returns a client context trusting only the certificate of a keystore, for HTTPS clients
+     * that validate the chain.
+     *
+     * @param keystore The PKCS12 keystore under /certs on the test classpath.
+     */
+    public static SSLContext trustingContext(String keystore) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = TestTlsServer.class.getResourceAsStream("/certs/" + keystore)) {
+            keyStore.load(inputStream, PASSWORD.toCharArray());
+        }
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("target", keyStore.getCertificate(keyStore.aliases().nextElement()));
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagerFactory.getTrustManagers(), null);
+        return context;
+    }
+
+    private static X509ExtendedKeyManager keyManager(String keystore) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = TestTlsServer.class.getResourceAsStream("/certs/" + keystore)) {
+            keyStore.load(inputStream, PASSWORD.toCharArray());
+        }
+        return keyManager(keyStore);
+    }
+
+    private static X509ExtendedKeyManager keyManager(KeyStore keyStore) throws Exception {
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD.toCharArray());
+        return (X509ExtendedKeyManager) keyManagerFactory.getKeyManagers()[0];
+    }
+
+    /**
+     * Serves the certificate of another keystore from the next full handshake on. Sessions
+     * established before stay resumable, as they would on a real server after a rotation.
+     *
+     * @param keystore The PKCS12 keystore under /certs on the test classpath.
+     */
+    public void rotate(String keystore) throws Exception {
+        keyManager.current = keyManager(keystore);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), getPort());
+    }
+
+    /**
+     * @param latency Delay injected before each handshake.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param failureRate Share of connections, between 0 and 1, closed without a handshake.
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * @param http Whether to read one HTTP request after the handshake and answer it, as HTTPS
+     *             clients expect.
+     */
+    public void setHttp(boolean http) {
+        this.http = http;
+    }
+
+    /**
+     * @param httpErrorRate Share of HTTP requests, between 0 and 1, answered with a 503.
+     */
+    public void setHttpErrorRate(double httpErrorRate) {
+        this.httpErrorRate = httpErrorRate;
+    }
+
+    /**
+     * Answers HTTP requests for a path with a redirect.
+     *
+     * @param path     The path redirected, such as /old.
+     * @param location The Location header of the redirect.
+     */
+    public void setRedirect(String path, String location) {
+        this.redirectLocation = location;
+        this.redirectPath = path;
+    }
+
+    /**
+     * @param capacity Number of connections served at once, the others wait for a free slot.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = new Semaphore(capacity);
+    }
+
+    /**
+     * @param protocols The only TLS protocol versions accepted, such as TLSv1.2.
+     */
+    public void setProtocols(String... protocols) {
+        this.protocols = protocols;
+    }
+
+    /**
+     * @return The number of handshakes completed so far.
+     */
+    public int getHandshakes() {
+        return handshakes.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        Semaphore slots = capacity;
+        try (socket) {
+            if (slots != null) {
+                slots.acquire();
+            }
+            try {
+                serve(socket);
+            } finally {
+                if (slots != null) {
+                    slots.release();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client went away, nothing to do
+        }
+    }
+
+    private void serve(Socket socket) throws IOException, InterruptedException {
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+        if (failureRate > 0 && Math.random() < failureRate) {
+            return;
+        }
+        startTls(socket);
+        try (SSLSocket sslSocket = (SSLSocket) socketFactory.createSocket(socket, null, socket.getPort(), false)) {
+            sslSocket.setUseClientMode(false);
+            if (protocols != null) {
+                sslSocket.setEnabledProtocols(protocols);
+            }
+            sslSocket.startHandshake();
+            handshakes.incrementAndGet();
+            if (http) {
+                answerHttp(sslSocket);
+            }
+        }
+    }
+
+    private void answerHttp(SSLSocket sslSocket) throws IOException {
+        InputStream in = sslSocket.getInputStream();
+        String[] requestLine = readLine(in).split(" ");
+        // Skip the headers, GET requests have no body
+        while (!readLine(in).isEmpty()) {
+        }
+        String status = httpErrorRate > 0 && Math.random() < httpErrorRate ? "503 Service Unavailable" : "200 OK";
+        String headers = "";
+        if (redirectPath != null && requestLine.length > 1 && requestLine[1].equals(redirectPath)) {
+            status = "302 Found";
+            headers = "Location: " + redirectLocation + "\r\n";
+        }
+        // A body, as real servers send: some clients release the connection, and its SSL session
+        // with it, as soon as they see an empty one
+        OutputStream out = sslSocket.getOutputStream();
+        out.write(("HTTP/1.1 " + status + "\r\n" + headers + "Content-Type: text/plain\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private void startTls(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+        switch (dialect) {
+            case NONE -> {
+            }
+            case SMTP -> {
+                write(out, "220 test.example.com ESMTP ready");
+                readLine(in);
+                write(out, "250-test.example.com greets cert-tracker");
+                write(out, "250-PIPELINING");
+                write(out, "250 STARTTLS");
+                readLine(in);
+                write(out, "220 Ready to start TLS");
+            }
+            case IMAP -> {
+                write(out, "* OK [CAPABILITY IMAP4rev1 STARTTLS] ready");
+                String tag = readLine(in).split(" ")[0];
+                write(out, tag + " OK Begin TLS negotiation now");
+            }
+            case POSTGRES -> {
+                DataInputStream data = new DataInputStream(in);
+                data.readInt();
+                data.readInt();
+                out.write('S');
+                out.flush();
+            }
+        }
+    }
+
+    private static void write(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    /**
+     * Server key manager delegating to the keystore currently served.
+     */
+    private static class RotatingKeyManager extends X509ExtendedKeyManager {
+        private volatile X509ExtendedKeyManager current;
+
+        @Override
+        public String[] getClientAliases(String keyType, Principal[] issuers) {
+            return current.getClientAliases(keyType, issuers);
+        }
+
+        @Override
+        public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+            return current.chooseClientAlias(keyType, issuers, socket);
+        }
+
+        @Override
+        public String[] getServerAliases(String keyType, Principal[] issuers) {
+            return current.getServerAliases(keyType, issuers);
+        }
+
+        @Override
+        public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+            return current.chooseServerAlias(keyType, issuers, socket);
+        }
+
+        @Override
+        public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+            return current.chooseEngineServerAlias(keyType, issuers, engine);
+        }
+
+        @Override
+        public X509Certificate[] getCertificateChain(String alias) {
+            return current.getCertificateChain(alias);
+        }
+
+        @Override
+        public PrivateKey getPrivateKey(String alias) {
+            return current.getPrivateKey(alias);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Schema and rows as Hibernate created them before Flyway managed the database. Run on every new
+-- connection of the test database, so it must be idempotent.
+create table if not exists certificates (
+    id         bigint generated by default as identity,
+    url        varchar(255),
+    subject    varchar(255),
+    issuer     varchar(255),
+    valid_from timestamp(6),
+    valid_to   timestamp(6),
+    primary key (id)
+);
+
+merge into certificates (id, url, subject, issuer) key (id) values
+    (1, 'https://legacy1.example.com', 'CN=legacy1.example.com', 'CN=issuer.com'),
+    (2, 'https://legacy2.example.com', 'CN=legacy2.example.com', 'CN=issuer.com'),
+    (3, 'https://legacy3.example.com', 'CN=legacy3.example.com', 'CN=issuer.com');